@@ -0,0 +1,21 @@
+package org.projog.wumpus;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler enabled, so the allocation rate is reported alongside the throughput.
+ * <p>
+ * Accepts the same command line arguments as {@code org.openjdk.jmh.Main} - e.g. a regular expression to select which
+ * benchmarks to run.
+ */
+public class Benchmarks {
+   public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+      CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+      new Runner(new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class).build()).run();
+   }
+}
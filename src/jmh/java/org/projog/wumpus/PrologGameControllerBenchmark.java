@@ -0,0 +1,76 @@
+package org.projog.wumpus;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+import org.projog.wumpus.model.World;
+
+/** Benchmarks for the decisions made by {@link PrologGameController}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrologGameControllerBenchmark {
+   private PrologGameController controller;
+   private World world;
+
+   @Setup
+   public void setup() {
+      controller = new PrologGameController();
+      controller.setOut(new PrintStream(new OutputStream() {
+         @Override
+         public void write(int b) {
+         }
+      }));
+
+      // same maze as WumpusWorldTest.kill_wumpus_but_cannot_take_gold_example2 - escaping it requires 46 actions
+      MazeBuilder builder = new MazeBuilder();
+      builder.boundary(0, 3, 0, 3);
+      builder.home(1, 0);
+      builder.gold(3, 2);
+      builder.wumpus(0, 2);
+      builder.wall(0, 3);
+      builder.pit(3, 1).pit(2, 3);
+      world = new World(builder.build());
+   }
+
+   /** Decide on, and perform, a single action - starting a new game if the previous one has finished. */
+   @Benchmark
+   public Action process() {
+      if (world.isFinished()) {
+         world.reset();
+         controller.reset();
+      }
+      Action action = controller.process(world.getPercepts());
+      world.update(action);
+      return action;
+   }
+
+   /** Play a complete game. */
+   @Benchmark
+   public int episode() {
+      world.reset();
+      controller.reset();
+      int actions = 0;
+      while (!world.isFinished()) {
+         world.update(controller.process(world.getPercepts()));
+         actions++;
+      }
+      return actions;
+   }
+}
@@ -0,0 +1,42 @@
+package org.projog.wumpus.model;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for generating mazes of different sizes with {@link MazeGenerator}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeGeneratorBenchmark {
+   @Param({"4", "100", "1000"})
+   private int size;
+
+   private MazeGenerator generator;
+   private SplittableRandom random;
+
+   @Setup
+   public void setup() {
+      generator = new MazeGenerator(size, size).pitDensity(2 / 16d).wallDensity(1 / 16d);
+      random = new SplittableRandom(0);
+   }
+
+   @Benchmark
+   public Maze generate() {
+      return generator.generate(random);
+   }
+}
@@ -0,0 +1,78 @@
+package org.projog.wumpus.model;
+
+import static org.projog.wumpus.model.Action.FORWARD;
+import static org.projog.wumpus.model.Action.RIGHT;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+
+/** Benchmarks for stepping a {@link World} and generating a {@link Maze}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldBenchmark {
+   /**
+    * Actions that move the agent clockwise around the edge of the maze, and back to where they started, forever.
+    * <p>
+    * Includes bumping into a wall, and passes squares that result in breeze, stench and glitter percepts.
+    */
+   private static final Action[] LOOP = {FORWARD, FORWARD, FORWARD, FORWARD, RIGHT, FORWARD, FORWARD, FORWARD, RIGHT, FORWARD, FORWARD, FORWARD, RIGHT, FORWARD, FORWARD,
+               FORWARD, RIGHT};
+
+   private World world;
+   private int actionIdx;
+
+   @Setup
+   public void setup() {
+      MazeBuilder builder = new MazeBuilder();
+      builder.boundary(0, 3, 0, 3);
+      builder.home(0, 3);
+      builder.pit(1, 1);
+      builder.wumpus(2, 2);
+      builder.gold(3, 3);
+      world = new World(builder.build());
+   }
+
+   private Action nextAction() {
+      Action action = LOOP[actionIdx];
+      actionIdx = actionIdx == LOOP.length - 1 ? 0 : actionIdx + 1;
+      return action;
+   }
+
+   @Benchmark
+   public AgentState update() {
+      return world.update(nextAction());
+   }
+
+   @Benchmark
+   public Set<Percept> getPercepts() {
+      return world.getPercepts();
+   }
+
+   /** Perform an action and then get the resulting percepts - as happens for every move in a game. */
+   @Benchmark
+   public Set<Percept> step() {
+      world.update(nextAction());
+      return world.getPercepts();
+   }
+
+   @Benchmark
+   public Maze buildRandom() {
+      return Maze.buildRandom();
+   }
+}
@@ -0,0 +1,84 @@
+package org.projog.wumpus;
+
+import java.util.concurrent.TimeUnit;
+
+import org.projog.wumpus.model.AgentState;
+
+/**
+ * The combined outcomes of games played by a {@link BatchSimulator}.
+ * <p>
+ * A game that finished with the agent still {@link AgentState#ACTIVE} is one where the agent got stuck.
+ */
+public class BatchResult {
+   private final long[] outcomes = new long[AgentState.values().length];
+   private long episodes;
+   private long totalActions;
+   private int minActions = Integer.MAX_VALUE;
+   private int maxActions;
+   private long elapsedNanos;
+
+   void add(AgentState outcome, int actions) {
+      outcomes[outcome.ordinal()]++;
+      episodes++;
+      totalActions += actions;
+      minActions = Math.min(minActions, actions);
+      maxActions = Math.max(maxActions, actions);
+   }
+
+   void add(BatchResult other) {
+      for (int i = 0; i < outcomes.length; i++) {
+         outcomes[i] += other.outcomes[i];
+      }
+      episodes += other.episodes;
+      totalActions += other.totalActions;
+      minActions = Math.min(minActions, other.minActions);
+      maxActions = Math.max(maxActions, other.maxActions);
+   }
+
+   void setElapsedNanos(long elapsedNanos) {
+      this.elapsedNanos = elapsedNanos;
+   }
+
+   public long getEpisodes() {
+      return episodes;
+   }
+
+   public long getEscaped() {
+      return outcomes[AgentState.ESCAPED.ordinal()];
+   }
+
+   public long getDead() {
+      return outcomes[AgentState.DEAD.ordinal()];
+   }
+
+   public long getStuck() {
+      return outcomes[AgentState.ACTIVE.ordinal()];
+   }
+
+   public long getTotalActions() {
+      return totalActions;
+   }
+
+   public int getMinActions() {
+      return episodes == 0 ? 0 : minActions;
+   }
+
+   public int getMaxActions() {
+      return maxActions;
+   }
+
+   public double getMeanActions() {
+      return episodes == 0 ? 0 : (double) totalActions / episodes;
+   }
+
+   public double getEpisodesPerSecond() {
+      return elapsedNanos == 0 ? 0 : episodes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+   }
+
+   @Override
+   public String toString() {
+      return String.format("Episodes: %d in %.3fs (%.1f episodes/sec)%nEscaped: %d Dead: %d Stuck: %d%nActions per episode: min %d, mean %.2f, max %d",
+                  episodes, elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1), getEpisodesPerSecond(), getEscaped(), getDead(), getStuck(), getMinActions(),
+                  getMeanActions(), maxActions);
+   }
+}
@@ -0,0 +1,205 @@
+package org.projog.wumpus;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.AgentState;
+import org.projog.wumpus.model.Maze;
+import org.projog.wumpus.model.MazeGenerator;
+import org.projog.wumpus.model.World;
+
+/**
+ * Plays many games without a user interface and reports on their outcomes.
+ * <p>
+ * Games are shared between a fixed number of worker threads. Either each worker has its own {@link GameController},
+ * or workers check out a controller from a {@link PrologGameControllerPool} for each game they play. Either way,
+ * a controller is never used by more than one thread at a time.
+ */
+public class BatchSimulator {
+   private static final int DEFAULT_EPISODES = 1000;
+   private static final int DEFAULT_MAX_ACTIONS = 1000;
+   private static final int DEFAULT_SIZE = 4;
+   private static final PrintStream NO_OUTPUT = new PrintStream(new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+   });
+
+   private final Supplier<GameController> controllerFactory;
+   private final PrologGameControllerPool pool;
+   private final int threads;
+   private final int maxActions;
+
+   /**
+    * @param controllerFactory used to create the controller for each worker thread
+    * @param threads the number of worker threads
+    * @param maxActions the number of actions after which a game is abandoned and the agent considered stuck
+    */
+   public BatchSimulator(Supplier<GameController> controllerFactory, int threads, int maxActions) {
+      this(controllerFactory, null, threads, maxActions);
+   }
+
+   /**
+    * @param pool the controllers to check out, one per game, from
+    * @param threads the number of worker threads
+    * @param maxActions the number of actions after which a game is abandoned and the agent considered stuck
+    */
+   public BatchSimulator(PrologGameControllerPool pool, int threads, int maxActions) {
+      this(null, pool, threads, maxActions);
+   }
+
+   private BatchSimulator(Supplier<GameController> controllerFactory, PrologGameControllerPool pool, int threads, int maxActions) {
+      if (threads < 1) {
+         throw new IllegalArgumentException("threads: " + threads);
+      }
+      if (maxActions < 1) {
+         throw new IllegalArgumentException("maxActions: " + maxActions);
+      }
+      this.controllerFactory = controllerFactory;
+      this.pool = pool;
+      this.threads = threads;
+      this.maxActions = maxActions;
+   }
+
+   /**
+    * Plays a game for each of the given mazes.
+    *
+    * @param mazes the mazes to play, iterated over once by the worker threads
+    * @return the combined outcomes of every game played
+    */
+   public BatchResult run(Iterable<Maze> mazes) {
+      Iterator<Maze> iterator = mazes.iterator();
+      return runGames(() -> next(iterator));
+   }
+
+   /**
+    * Plays a game for each of the mazes generated from a range of seeds.
+    * <p>
+    * Each maze is generated by the worker thread that plays it, just before playing it, so only the mazes currently
+    * being played are held in memory.
+    *
+    * @param generator used to generate the mazes
+    * @param firstSeed the seed of the first maze, with each subsequent maze using the next seed
+    * @param count the number of mazes to play
+    * @return the combined outcomes of every game played
+    */
+   public BatchResult run(MazeGenerator generator, long firstSeed, long count) {
+      if (count < 0) {
+         throw new IllegalArgumentException("count: " + count);
+      }
+      AtomicLong index = new AtomicLong();
+      return runGames(() -> {
+         long i = index.getAndIncrement();
+         return i < count ? generator.generate(firstSeed + i) : null;
+      });
+   }
+
+   /** @param mazes called by each worker thread to get its next maze, returns {@code null} once there are none left */
+   private BatchResult runGames(Supplier<Maze> mazes) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         long start = System.nanoTime();
+         List<Future<BatchResult>> futures = new ArrayList<>();
+         for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> playAll(mazes)));
+         }
+         BatchResult result = new BatchResult();
+         for (Future<BatchResult> future : futures) {
+            result.add(future.get());
+         }
+         result.setElapsedNanos(System.nanoTime() - start);
+         return result;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException(e);
+      } catch (ExecutionException e) {
+         throw new IllegalStateException(e.getCause());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private BatchResult playAll(Supplier<Maze> mazes) throws InterruptedException {
+      GameController controller = pool == null ? controllerFactory.get() : null;
+      if (controller != null) {
+         // debug from the controller is of no use when running without a user interface
+         controller.setOut(NO_OUTPUT);
+      }
+
+      BatchResult result = new BatchResult();
+      Maze maze;
+      while ((maze = mazes.get()) != null) {
+         if (controller != null) {
+            play(controller, new World(maze), result);
+         } else {
+            try (PrologGameControllerPool.GameSession session = pool.checkout()) {
+               session.setOut(NO_OUTPUT);
+               play(session, new World(maze), result);
+            }
+         }
+      }
+      return result;
+   }
+
+   private static Maze next(Iterator<Maze> mazes) {
+      synchronized (mazes) {
+         return mazes.hasNext() ? mazes.next() : null;
+      }
+   }
+
+   /**
+    * Plays a single game, recording the outcome as {@link AgentState#ACTIVE} if the agent got stuck.
+    * <p>
+    * Any exception other than a {@link StuckException} - such as an action that is not valid in the current state of the
+    * world - indicates a fault in the controller rather than an outcome of the game, so is not caught.
+    */
+   private void play(GameController controller, World world, BatchResult result) {
+      controller.reset();
+      int actions = 0;
+      try {
+         while (!world.isFinished() && actions < maxActions) {
+            Action action = controller.process(world.getPerceptMask());
+            world.update(action);
+            actions++;
+         }
+      } catch (StuckException e) {
+         // the controller could not decide on an action
+      }
+      result.add(world.getAgentState(), actions);
+   }
+
+   public static void main(String[] args) {
+      int episodes = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_EPISODES;
+      int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+      int engines = args.length > 2 ? Integer.parseInt(args[2]) : threads;
+      int size = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SIZE;
+      long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+      String controller = args.length > 5 ? args[5] : "prolog";
+      if (!"prolog".equals(controller) && !"java".equals(controller)) {
+         throw new IllegalArgumentException("controller: " + controller);
+      }
+
+      // same proportion of pits and walls as Maze.buildRandom() - which generates 4x4 mazes with 2 pits and 1 wall
+      MazeGenerator generator = new MazeGenerator(size, size).pitDensity(2 / 16d).wallDensity(1 / 16d);
+
+      if ("java".equals(controller)) {
+         BatchSimulator simulator = new BatchSimulator(JavaGameController::new, threads, DEFAULT_MAX_ACTIONS);
+         System.out.println(simulator.run(generator, seed, episodes));
+      } else {
+         PrologGameControllerPool pool = new PrologGameControllerPool(engines);
+         BatchSimulator simulator = new BatchSimulator(pool, threads, DEFAULT_MAX_ACTIONS);
+         System.out.println(simulator.run(generator, seed, episodes));
+         System.out.println(pool);
+      }
+   }
+}
@@ -0,0 +1,410 @@
+package org.projog.wumpus;
+
+import static org.projog.wumpus.RouteFinder.DX;
+import static org.projog.wumpus.RouteFinder.DY;
+import static org.projog.wumpus.RouteFinder.NORTH;
+import static org.projog.wumpus.RouteFinder.WEST;
+import static org.projog.wumpus.RouteFinder.turnLeft;
+import static org.projog.wumpus.RouteFinder.turnRight;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import org.projog.wumpus.model.Coordinate;
+import org.projog.wumpus.model.CoordinateSet;
+
+/**
+ * The number of moves needed to get from each safe location to the nearest target, moving only through safe locations.
+ * <p>
+ * Distances are kept up-to-date as safe locations and targets are added and removed, and only the distances that are
+ * affected by a change are recalculated. Adding a safe location or target can only reduce distances, so the new
+ * distances are propagated outwards from it. Removing a safe location or target can only increase distances - the
+ * locations whose only shortest paths went through it are found and then given new distances based on the locations
+ * around them that were not affected.
+ * <p>
+ * As each move costs at least 1, a distance is never more than the cost of reaching the nearest target - so can be used
+ * by {@link RouteFinder} as its heuristic. Unlike the Manhattan distance, it takes account of the locations that are not
+ * known to be safe.
+ * <p>
+ * The exact cost of the cheapest route from each state - a safe location and the direction faced - to the nearest target
+ * is maintained in the same way. Costs are those used by {@link RouteFinder}: moving forward costs 1 and turning left or
+ * right and then moving forward costs 2. (Turning around is not considered, as {@link RouteFinder} only considers it from
+ * the starting state.) As with the backwards search of D* Lite, the costs are repaired as locations and targets change -
+ * the states whose costs may change are found by following the routes backwards from the change, in order of cost - so
+ * the work done for each change is proportional to the number of states whose cost changes rather than the size of the
+ * explored area. {@link RouteFinder} uses the costs to ignore states that are not on any of the cheapest routes.
+ */
+final class DistanceField {
+   /** Used as the distance of locations from which no target can be reached. */
+   static final int UNREACHABLE = Integer.MAX_VALUE;
+
+   private final CoordinateSet safe = new CoordinateSet();
+   private final CoordinateSet targets = new CoordinateSet();
+   /** The distance of each safe location, indexed by its position in {@link #safe}. */
+   private int[] distances = new int[16];
+   /** Used when increasing distances to record the locations that are affected. */
+   private final CoordinateSet affected = new CoordinateSet();
+   private long[] queue = new long[16];
+   private final PriorityQueue<Long> boundary = new PriorityQueue<>();
+   /** The cost of each state, indexed by the position of its location in {@link #safe} multiplied by 4 plus its direction. */
+   private int[] costs = new int[64];
+   /** Used when increasing costs to record the states that are affected, indexed the same way as {@link #costs}. */
+   private boolean[] affectedStates = new boolean[64];
+   /** The states that are affected by the current change, in the order they were found. */
+   private int[] affectedList = new int[16];
+   /** States ordered by cost - each element is the cost shifted left 32 bits combined with the index of the state. */
+   private final PriorityQueue<Long> costQueue = new PriorityQueue<>();
+
+   /** The locations that can be moved through. */
+   CoordinateSet getSafe() {
+      return safe;
+   }
+
+   /** The locations distances are measured to. */
+   CoordinateSet getTargets() {
+      return targets;
+   }
+
+   boolean isTarget(int x, int y) {
+      return targets.contains(x, y);
+   }
+
+   /** Returns the number of moves to the nearest target, or {@link #UNREACHABLE} if there is no route to a target. */
+   int getDistance(int x, int y) {
+      int position = safe.positionOf(x, y);
+      return position == -1 ? UNREACHABLE : distances[position];
+   }
+
+   /** Returns the distance of the safe location at the given position in {@link #getSafe()}. */
+   int getDistance(int position) {
+      return distances[position];
+   }
+
+   /**
+    * Returns the cost of the cheapest route, without turning around, from the given state to the nearest target - or
+    * {@link #UNREACHABLE} if there is no such route.
+    */
+   int getCost(int x, int y, int direction) {
+      int position = safe.positionOf(x, y);
+      return position == -1 ? UNREACHABLE : costs[position * 4 + direction];
+   }
+
+   /** Returns the cost of the state facing the given direction in the safe location at the given position. */
+   int getCost(int position, int direction) {
+      return costs[position * 4 + direction];
+   }
+
+   void clear() {
+      safe.clear();
+      targets.clear();
+   }
+
+   void addSafe(int x, int y) {
+      if (safe.add(x, y)) {
+         if (distances.length < safe.size()) {
+            distances = Arrays.copyOf(distances, distances.length * 2);
+         }
+         int position = safe.size() - 1;
+         distances[position] = targets.contains(x, y) ? 0 : minimumNeighbourDistance(x, y, null);
+         propagateDecrease(x, y);
+
+         if (costs.length < safe.size() * 4) {
+            costs = Arrays.copyOf(costs, costs.length * 2);
+            affectedStates = Arrays.copyOf(affectedStates, costs.length);
+         }
+         boolean target = targets.contains(x, y);
+         costQueue.clear();
+         for (int d = NORTH; d <= WEST; d++) {
+            int state = position * 4 + d;
+            costs[state] = target ? 0 : minimumSuccessorCost(state);
+            enqueueState(state);
+         }
+         propagateCostDecrease();
+      }
+   }
+
+   void removeSafe(int x, int y) {
+      int position = safe.positionOf(x, y);
+      if (position == -1) {
+         return;
+      }
+      int distance = distances[position];
+      int[] removedCosts = Arrays.copyOfRange(costs, position * 4, position * 4 + 4);
+      // the location can no longer be moved through, so the distances of neighbours that relied on it may increase
+      safe.remove(x, y);
+      int last = safe.size();
+      distances[position] = distances[last];
+      System.arraycopy(costs, last * 4, costs, position * 4, 4);
+      if (distance != UNREACHABLE) {
+         affected.clear();
+         int length = 0;
+         for (int d = NORTH; d <= WEST; d++) {
+            length = addIfUnsupported(x + DX[d], y + DY[d], distance + 1, length);
+         }
+         propagateIncrease(length);
+      }
+
+      costQueue.clear();
+      for (int d = NORTH; d <= WEST; d++) {
+         if (removedCosts[d] != UNREACHABLE) {
+            addPredecessors(x, y, d, removedCosts[d]);
+         }
+      }
+      propagateCostIncrease();
+   }
+
+   void addTarget(int x, int y) {
+      if (targets.add(x, y)) {
+         int position = safe.positionOf(x, y);
+         if (position != -1 && distances[position] != 0) {
+            distances[position] = 0;
+            propagateDecrease(x, y);
+
+            costQueue.clear();
+            for (int d = NORTH; d <= WEST; d++) {
+               int state = position * 4 + d;
+               costs[state] = 0;
+               enqueueState(state);
+            }
+            propagateCostDecrease();
+         }
+      }
+   }
+
+   void removeTarget(int x, int y) {
+      if (targets.remove(x, y)) {
+         int position = safe.positionOf(x, y);
+         if (position != -1) {
+            affected.clear();
+            affected.add(x, y);
+            queue[0] = Coordinate.pack(x, y);
+            propagateIncrease(1);
+
+            costQueue.clear();
+            for (int d = NORTH; d <= WEST; d++) {
+               enqueueState(position * 4 + d);
+            }
+            propagateCostIncrease();
+         }
+      }
+   }
+
+   /** Reduces the distances of locations that can now be reached more quickly through the given location. */
+   private void propagateDecrease(int x, int y) {
+      if (distances[safe.positionOf(x, y)] == UNREACHABLE) {
+         return;
+      }
+      int head = 0;
+      int length = 0;
+      queue[length++] = Coordinate.pack(x, y);
+      while (head < length) {
+         long location = queue[head++];
+         int lx = Coordinate.unpackX(location);
+         int ly = Coordinate.unpackY(location);
+         int distance = distances[safe.positionOf(lx, ly)] + 1;
+         for (int d = NORTH; d <= WEST; d++) {
+            int nx = lx + DX[d];
+            int ny = ly + DY[d];
+            int position = safe.positionOf(nx, ny);
+            if (position != -1 && distances[position] > distance) {
+               distances[position] = distance;
+               length = enqueue(nx, ny, length);
+            }
+         }
+      }
+   }
+
+   /**
+    * Recalculates the distances of the locations whose shortest paths to a target relied on a location that has been
+    * removed, or is no longer a target. The queue contains the first {@code length} affected locations.
+    */
+   private void propagateIncrease(int length) {
+      // find all the affected locations - those whose distance relied on an affected location
+      for (int head = 0; head < length; head++) {
+         long location = queue[head];
+         int lx = Coordinate.unpackX(location);
+         int ly = Coordinate.unpackY(location);
+         int childDistance = distances[safe.positionOf(lx, ly)] + 1;
+         for (int d = NORTH; d <= WEST; d++) {
+            length = addIfUnsupported(lx + DX[d], ly + DY[d], childDistance, length);
+         }
+      }
+
+      // give each affected location a distance based on its unaffected neighbours, then propagate from the nearest
+      boundary.clear();
+      for (int i = 0; i < affected.size(); i++) {
+         int ax = affected.getX(i);
+         int ay = affected.getY(i);
+         int position = safe.positionOf(ax, ay);
+         int distance = targets.contains(ax, ay) ? 0 : minimumNeighbourDistance(ax, ay, affected);
+         distances[position] = distance;
+         if (distance != UNREACHABLE) {
+            boundary.add(((long) distance << 32) | position);
+         }
+      }
+      Long next;
+      while ((next = boundary.poll()) != null) {
+         int distance = (int) (next >>> 32);
+         int position = (int) next.longValue();
+         if (distances[position] != distance) {
+            continue;
+         }
+         int lx = safe.getX(position);
+         int ly = safe.getY(position);
+         for (int d = NORTH; d <= WEST; d++) {
+            int neighbour = safe.positionOf(lx + DX[d], ly + DY[d]);
+            if (neighbour != -1 && distances[neighbour] > distance + 1) {
+               distances[neighbour] = distance + 1;
+               boundary.add(((long) (distance + 1) << 32) | neighbour);
+            }
+         }
+      }
+   }
+
+   /**
+    * Adds the location to the affected locations if it is safe, its distance is the given distance and none of its
+    * unaffected neighbours are one move closer to a target.
+    */
+   private int addIfUnsupported(int x, int y, int distance, int length) {
+      int position = safe.positionOf(x, y);
+      if (position == -1 || distances[position] != distance || affected.contains(x, y) || targets.contains(x, y)) {
+         return length;
+      }
+      if (minimumNeighbourDistance(x, y, affected) == distance) {
+         return length;
+      }
+      affected.add(x, y);
+      return enqueue(x, y, length);
+   }
+
+   /** Returns one more than the lowest distance of the safe neighbours of the location, ignoring any excluded ones. */
+   private int minimumNeighbourDistance(int x, int y, CoordinateSet excluded) {
+      int min = UNREACHABLE;
+      for (int d = NORTH; d <= WEST; d++) {
+         int nx = x + DX[d];
+         int ny = y + DY[d];
+         int position = safe.positionOf(nx, ny);
+         if (position != -1 && distances[position] != UNREACHABLE && (excluded == null || !excluded.contains(nx, ny))) {
+            min = Math.min(min, distances[position] + 1);
+         }
+      }
+      return min;
+   }
+
+   private int enqueue(int x, int y, int length) {
+      if (length == queue.length) {
+         queue = Arrays.copyOf(queue, length * 2);
+      }
+      queue[length] = Coordinate.pack(x, y);
+      return length + 1;
+   }
+
+   /** Reduces the costs of states that can now reach a target more cheaply through the states in the cost queue. */
+   private void propagateCostDecrease() {
+      Long next;
+      while ((next = costQueue.poll()) != null) {
+         int cost = (int) (next >>> 32);
+         int state = (int) next.longValue();
+         if (cost != UNREACHABLE && costs[state] == cost) {
+            int direction = state & 3;
+            int position = state >> 2;
+            int predecessor = safe.positionOf(safe.getX(position) - DX[direction], safe.getY(position) - DY[direction]);
+            if (predecessor != -1) {
+               reduceCost(predecessor * 4 + direction, cost + 1);
+               reduceCost(predecessor * 4 + turnLeft(direction), cost + 2);
+               reduceCost(predecessor * 4 + turnRight(direction), cost + 2);
+            }
+         }
+      }
+   }
+
+   private void reduceCost(int state, int cost) {
+      if (costs[state] > cost) {
+         costs[state] = cost;
+         enqueueState(state);
+      }
+   }
+
+   /**
+    * Recalculates the costs of the states whose cheapest routes relied on a location that has been removed, or is no
+    * longer a target. The cost queue contains the states that may be affected.
+    */
+   private void propagateCostIncrease() {
+      // find all the affected states - those without an unaffected successor their cost can be derived from. States are
+      // checked in order of cost so, as each step costs at least 1, the successors they could rely on have been checked.
+      int numberAffected = 0;
+      Long next;
+      while ((next = costQueue.poll()) != null) {
+         int state = (int) next.longValue();
+         int position = state >> 2;
+         int x = safe.getX(position);
+         int y = safe.getY(position);
+         if (affectedStates[state] || targets.contains(x, y) || minimumSuccessorCost(state) == costs[state]) {
+            continue;
+         }
+         affectedStates[state] = true;
+         if (numberAffected == affectedList.length) {
+            affectedList = Arrays.copyOf(affectedList, numberAffected * 2);
+         }
+         affectedList[numberAffected++] = state;
+         addPredecessors(x, y, state & 3, costs[state]);
+      }
+
+      // give each affected state a cost based on its unaffected successors, then propagate from the cheapest
+      for (int i = 0; i < numberAffected; i++) {
+         int state = affectedList[i];
+         costs[state] = minimumSuccessorCost(state);
+         enqueueState(state);
+      }
+      for (int i = 0; i < numberAffected; i++) {
+         affectedStates[affectedList[i]] = false;
+      }
+      propagateCostDecrease();
+   }
+
+   /**
+    * Adds to the cost queue the states whose cheapest routes may go through the state with the given location, direction
+    * and cost - the states of the location behind it that face the same direction or a quarter turn from it.
+    */
+   private void addPredecessors(int x, int y, int direction, int cost) {
+      int position = safe.positionOf(x - DX[direction], y - DY[direction]);
+      if (position != -1) {
+         addIfCost(position * 4 + direction, cost + 1);
+         addIfCost(position * 4 + turnLeft(direction), cost + 2);
+         addIfCost(position * 4 + turnRight(direction), cost + 2);
+      }
+   }
+
+   private void addIfCost(int state, int cost) {
+      if (costs[state] == cost && !affectedStates[state]) {
+         enqueueState(state);
+      }
+   }
+
+   /**
+    * Returns the lowest cost of moving forward, or turning left or right and moving forward, from the given state plus the
+    * cost of the state moved to - ignoring affected states.
+    */
+   private int minimumSuccessorCost(int state) {
+      int position = state >> 2;
+      int x = safe.getX(position);
+      int y = safe.getY(position);
+      int direction = state & 3;
+      int min = UNREACHABLE;
+      for (int i = 0; i < 3; i++) {
+         int d = i == 0 ? direction : i == 1 ? turnRight(direction) : turnLeft(direction);
+         int successor = safe.positionOf(x + DX[d], y + DY[d]);
+         if (successor != -1) {
+            int index = successor * 4 + d;
+            if (costs[index] != UNREACHABLE && !affectedStates[index]) {
+               min = Math.min(min, costs[index] + (i == 0 ? 1 : 2));
+            }
+         }
+      }
+      return min;
+   }
+
+   private void enqueueState(int state) {
+      costQueue.add(((long) costs[state] << 32) | state);
+   }
+}
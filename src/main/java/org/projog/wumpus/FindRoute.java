@@ -0,0 +1,153 @@
+package org.projog.wumpus;
+
+import java.util.Arrays;
+
+import org.projog.core.ProjogException;
+import org.projog.core.predicate.AbstractSingleResultPredicate;
+import org.projog.core.predicate.PredicateKey;
+import org.projog.core.term.ListFactory;
+import org.projog.core.term.Term;
+import org.projog.core.term.TermType;
+import org.projog.wumpus.RouteFinder.State;
+import org.projog.wumpus.model.CoordinateSet;
+
+/**
+ * Implements {@code find_route/4}, which {@code wumpus.pl} uses to find the route to the nearest target.
+ * <p>
+ * {@code find_route(state(X:Y,Direction),Safe,Targets,Route)} unifies {@code Route} with the states - each of the form
+ * {@code state(X:Y,Direction)}, excluding the starting state - of the lowest cost route from the starting state to one
+ * of {@code Targets}, passing only through the locations in {@code Safe}. Fails if none of the targets can be reached.
+ * Routes are found using {@link RouteFinder}.
+ * <p>
+ * The {@link DistanceField} used by {@link RouteFinder} is kept between calls, and each call only updates it with the
+ * differences between the given safe locations and targets and those of the previous call - so, as the agent only
+ * learns about a few locations each move, only the distances around those locations are recalculated. The given
+ * locations are added to the distance field, which ignores those it already has, and marked as given to this call. The
+ * members of the distance field that were not marked are then removed - which is skipped when as many were marked as
+ * there are members.
+ */
+final class FindRoute extends AbstractSingleResultPredicate {
+   static final PredicateKey KEY = new PredicateKey("find_route", 4);
+
+   private final RouteFinder routeFinder = new RouteFinder();
+   private final DistanceField field = new DistanceField();
+   private final Locations safe = new Locations(false);
+   private final Locations targets = new Locations(true);
+   /** Identifies the current call - incremented at the start of each call. */
+   private int call;
+
+   @Override
+   protected boolean evaluate(Term start, Term safe, Term targets, Term route) {
+      Term state = start.getTerm();
+      if (!"state".equals(state.getName()) || state.getNumberOfArguments() != 2) {
+         throw new ProjogException("Expected state(X:Y,Direction) but got: " + state);
+      }
+      Term location = state.getArgument(0).getTerm();
+      int direction = Terms.toDirection(state.getArgument(1));
+
+      updateField(safe, targets);
+      State last = routeFinder.find(Terms.getX(location), Terms.getY(location), direction, field);
+      if (last == null) {
+         return false;
+      }
+
+      int length = 0;
+      for (State s = last; s.previous != null; s = s.previous) {
+         length++;
+      }
+      Term[] states = new Term[length];
+      for (State s = last; s.previous != null; s = s.previous) {
+         states[--length] = createState(s);
+      }
+      return route.unify(ListFactory.createList(states));
+   }
+
+   /** Updates the distance field so its safe locations and targets are the same as those given to this call. */
+   private void updateField(Term safeList, Term targetList) {
+      if (++call == 0) {
+         // the marks of calls before the counter wrapped around would otherwise match later calls
+         safe.clearMarks();
+         targets.clearMarks();
+         call = 1;
+      }
+      // add before removing, so fewer distances increase only to be reduced again
+      int safeCount = safe.addAll(safeList);
+      int targetCount = targets.addAll(targetList);
+      targets.retain(targetCount);
+      safe.retain(safeCount);
+   }
+
+   private static Term createState(State s) {
+      return Terms.createState(s.x, s.y, s.direction);
+   }
+
+   /** Either the safe locations or the targets of the distance field, and which of them were given to the current call. */
+   private final class Locations {
+      private final boolean targets;
+      /** A member was given to the current call if its element, indexed by its position, is {@link FindRoute#call}. */
+      private int[] marks = new int[16];
+
+      Locations(boolean targets) {
+         this.targets = targets;
+      }
+
+      private CoordinateSet get() {
+         return targets ? field.getTargets() : field.getSafe();
+      }
+
+      /**
+       * Adds the {@code X:Y} locations of the given Prolog list, and marks them as given to the current call. Returns the
+       * number of members marked.
+       */
+      int addAll(Term list) {
+         CoordinateSet set = get();
+         int count = 0;
+         Term t = list.getTerm();
+         while (t.getType() == TermType.LIST) {
+            Term location = t.getArgument(0).getTerm();
+            int x = Terms.getX(location);
+            int y = Terms.getY(location);
+            if (targets) {
+               field.addTarget(x, y);
+            } else {
+               field.addSafe(x, y);
+            }
+            int position = set.positionOf(x, y);
+            if (marks.length <= position) {
+               marks = Arrays.copyOf(marks, Math.max(position + 1, marks.length * 2));
+            }
+            if (marks[position] != call) {
+               marks[position] = call;
+               count++;
+            }
+            t = t.getArgument(1).getTerm();
+         }
+         if (t.getType() != TermType.EMPTY_LIST) {
+            throw new ProjogException("Expected list but got: " + list.getTerm());
+         }
+         return count;
+      }
+
+      /** Removes the members that were not given to the current call, of which there are all but {@code marked}. */
+      void retain(int marked) {
+         CoordinateSet set = get();
+         // iterate backwards, as removing moves the last member - which has already been checked - into the position of
+         // the removed member
+         for (int i = set.size() - 1; i >= 0 && set.size() > marked; i--) {
+            if (marks[i] != call) {
+               int x = set.getX(i);
+               int y = set.getY(i);
+               if (targets) {
+                  field.removeTarget(x, y);
+               } else {
+                  field.removeSafe(x, y);
+               }
+            }
+         }
+      }
+
+      void clearMarks() {
+         Arrays.fill(marks, 0);
+      }
+   }
+}
@@ -21,4 +21,17 @@ public interface GameController {
     * @return the action the agent should perform
     */
    Action process(Set<Percept> percepts);
+
+   /**
+    * Determines the next action that the agent should perform.
+    * <p>
+    * Equivalent to {@link #process(Set)} but with the percepts represented as a mask - see {@link Percept#mask()}.
+    * Implementations can override this to avoid working with a {@code Set}.
+    * 
+    * @param perceptMask the inputs the agent can perceive
+    * @return the action the agent should perform
+    */
+   default Action process(int perceptMask) {
+      return process(Percept.toSet(perceptMask));
+   }
 }
@@ -0,0 +1,191 @@
+package org.projog.wumpus;
+
+import static org.projog.wumpus.RouteFinder.DX;
+import static org.projog.wumpus.RouteFinder.DY;
+import static org.projog.wumpus.RouteFinder.NORTH;
+import static org.projog.wumpus.RouteFinder.WEST;
+
+import java.util.function.IntPredicate;
+
+import org.projog.api.Projog;
+import org.projog.core.ProjogException;
+import org.projog.core.predicate.AbstractPredicateFactory;
+import org.projog.core.predicate.Predicate;
+import org.projog.core.predicate.PredicateKey;
+import org.projog.core.term.IntegerNumberCache;
+import org.projog.core.term.Term;
+import org.projog.core.term.TermType;
+import org.projog.core.term.TermUtils;
+
+/**
+ * Implements the predicates {@code wumpus.pl} uses to move between locations - {@code direction_offset/3},
+ * {@code forward_state/2} and {@code adjacent_location/2}.
+ * <p>
+ * Each has the same solutions, in the same order, as the Prolog clauses it replaces - which tried each direction in turn,
+ * using {@code is/2} to calculate each location. Only the directions that could succeed are tried. When the direction
+ * is known - or, for {@code forward_state/2} and {@code adjacent_location/2}, both locations are known - there is at
+ * most one solution, and no choice point is left.
+ * <ul>
+ * <li>{@code direction_offset(Direction,IncX,IncY)} - the values to add to the x and y of a location to move one location
+ * in {@code Direction}.</li>
+ * <li>{@code forward_state(state(X:Y,Direction),state(NextX:NextY,Direction))} - moving forward from the first state
+ * results in the second. Either location must be bound.</li>
+ * <li>{@code adjacent_location(X:Y,Adjacent)} - {@code Adjacent} is next to {@code X:Y}, which must be bound.</li>
+ * </ul>
+ * The names differ from those of the clauses they replace so that a program consulted alongside them - such as a
+ * replacement for {@code wumpus.pl} - can still define {@code direction/3}, {@code create_state/2} or
+ * {@code adjacent_to_square/2} itself.
+ */
+final class Geometry {
+   static final PredicateKey DIRECTION_OFFSET_KEY = new PredicateKey("direction_offset", 3);
+   static final PredicateKey FORWARD_STATE_KEY = new PredicateKey("forward_state", 2);
+   static final PredicateKey ADJACENT_LOCATION_KEY = new PredicateKey("adjacent_location", 2);
+
+   /** Represents all four directions, where each direction is represented by the bit at its position. */
+   private static final int ALL_DIRECTIONS = 15;
+
+   private Geometry() {
+   }
+
+   /** Adds the predicates to the given Projog instance. */
+   static void register(Projog projog) {
+      projog.addPredicateFactory(DIRECTION_OFFSET_KEY, new DirectionOffset());
+      projog.addPredicateFactory(FORWARD_STATE_KEY, new ForwardState());
+      projog.addPredicateFactory(ADJACENT_LOCATION_KEY, new AdjacentLocation());
+   }
+
+   /** {@code direction_offset(Direction,IncX,IncY)} */
+   private static final class DirectionOffset extends AbstractPredicateFactory {
+      @Override
+      protected Predicate getPredicate(Term directionArg, Term incXArg, Term incYArg) {
+         Term direction = directionArg.getTerm();
+         Term incX = incXArg.getTerm();
+         Term incY = incYArg.getTerm();
+         int directions = toDirections(direction);
+         return new Candidates(directions, new Term[] {direction, incX, incY}, d -> direction.unify(Terms.createDirection(d))
+                                                                                    && incX.unify(IntegerNumberCache.valueOf(DX[d]))
+                                                                                    && incY.unify(IntegerNumberCache.valueOf(DY[d])));
+      }
+   }
+
+   /** {@code forward_state(state(X:Y,Direction),state(NextX:NextY,Direction))} */
+   private static final class ForwardState extends AbstractPredicateFactory {
+      @Override
+      protected Predicate getPredicate(Term fromArg, Term toArg) {
+         Term from = fromArg.getTerm();
+         Term to = toArg.getTerm();
+         Term fromLocation = getLocation(from);
+         Term toLocation = getLocation(to);
+         int directions = getDirections(from) & getDirections(to);
+         Term[] args = {from, to};
+         if (fromLocation != null) {
+            int x = Terms.getX(fromLocation);
+            int y = Terms.getY(fromLocation);
+            if (toLocation != null) {
+               directions &= directionsBetween(x, y, Terms.getX(toLocation), Terms.getY(toLocation));
+            }
+            return new Candidates(directions, args, d -> from.unify(Terms.createState(x, y, d)) && to.unify(Terms.createState(x + DX[d], y + DY[d], d)));
+         } else if (toLocation != null) {
+            int x = Terms.getX(toLocation);
+            int y = Terms.getY(toLocation);
+            return new Candidates(directions, args, d -> from.unify(Terms.createState(x - DX[d], y - DY[d], d)) && to.unify(Terms.createState(x, y, d)));
+         } else {
+            throw new ProjogException("Expected the location of either state to be bound but got: " + from + " and " + to);
+         }
+      }
+
+      /** Returns the location of a state, or {@code null} if the term is not a state with a bound location. */
+      private static Term getLocation(Term state) {
+         if (isState(state)) {
+            Term location = state.getArgument(0).getTerm();
+            if (Terms.isLocation(location)) {
+               return location;
+            }
+         }
+         return null;
+      }
+
+      /** Returns the directions a state could be facing. */
+      private static int getDirections(Term state) {
+         return isState(state) ? toDirections(state.getArgument(1)) : ALL_DIRECTIONS;
+      }
+
+      private static boolean isState(Term t) {
+         return t.getType() == TermType.STRUCTURE && "state".equals(t.getName()) && t.getNumberOfArguments() == 2;
+      }
+   }
+
+   /** {@code adjacent_location(X:Y,Adjacent)} */
+   private static final class AdjacentLocation extends AbstractPredicateFactory {
+      @Override
+      protected Predicate getPredicate(Term location, Term adjacentArg) {
+         Term t = location.getTerm();
+         int x = Terms.getX(t);
+         int y = Terms.getY(t);
+         int directions = ALL_DIRECTIONS;
+         Term adjacent = adjacentArg.getTerm();
+         if (Terms.isLocation(adjacent)) {
+            directions = directionsBetween(x, y, Terms.getX(adjacent), Terms.getY(adjacent));
+         }
+         return new Candidates(directions, new Term[] {adjacent}, d -> adjacent.unify(Terms.createLocation(x + DX[d], y + DY[d])));
+      }
+   }
+
+   /**
+    * Returns the directions the term could represent - all of them if it is a variable, otherwise either the direction it
+    * represents or, as the Prolog clauses these predicates replace would have failed to match it, none.
+    */
+   private static int toDirections(Term term) {
+      Term t = term.getTerm();
+      if (t.getType().isVariable()) {
+         return ALL_DIRECTIONS;
+      }
+      int direction = Terms.findDirection(t);
+      return direction == -1 ? 0 : 1 << direction;
+   }
+
+   /**
+    * Returns the bit representing the direction to move in to get from one location to the other, or 0 if they are not
+    * adjacent.
+    */
+   private static int directionsBetween(int fromX, int fromY, int toX, int toY) {
+      for (int d = NORTH; d <= WEST; d++) {
+         if (fromX + DX[d] == toX && fromY + DY[d] == toY) {
+            return 1 << d;
+         }
+      }
+      return 0;
+   }
+
+   /** Tries each of a number of directions in turn, in the order of {@link RouteFinder#NORTH} to {@link RouteFinder#WEST}. */
+   private static final class Candidates implements Predicate {
+      private final Term[] args;
+      private final IntPredicate unify;
+      /** The directions still to be tried, where each direction is represented by the bit at its position. */
+      private int remaining;
+
+      Candidates(int directions, Term[] args, IntPredicate unify) {
+         this.remaining = directions;
+         this.args = args;
+         this.unify = unify;
+      }
+
+      @Override
+      public boolean evaluate() {
+         while (remaining != 0) {
+            int direction = Integer.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            TermUtils.backtrack(args);
+            if (unify.test(direction)) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      @Override
+      public boolean couldReevaluationSucceed() {
+         return remaining != 0;
+      }
+   }
+}
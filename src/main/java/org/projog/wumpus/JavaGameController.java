@@ -0,0 +1,386 @@
+package org.projog.wumpus;
+
+import static org.projog.wumpus.model.Percept.BREEZE;
+import static org.projog.wumpus.model.Percept.BUMP;
+import static org.projog.wumpus.model.Percept.GLITTER;
+import static org.projog.wumpus.model.Percept.SCREAM;
+import static org.projog.wumpus.model.Percept.STENCH;
+
+import static org.projog.wumpus.RouteFinder.DX;
+import static org.projog.wumpus.RouteFinder.DY;
+import static org.projog.wumpus.RouteFinder.NORTH;
+import static org.projog.wumpus.RouteFinder.WEST;
+import static org.projog.wumpus.RouteFinder.turnLeft;
+import static org.projog.wumpus.RouteFinder.turnRight;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Set;
+
+import org.projog.wumpus.RouteFinder.State;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.CoordinateSet;
+import org.projog.wumpus.model.Percept;
+
+/**
+ * Controls the agent using the same logic as {@code wumpus.pl}, implemented in Java rather than Prolog.
+ * <p>
+ * Every decision made by {@code wumpus.pl} is replicated - given the same percepts, this controller performs the same
+ * actions as {@link PrologGameController}. The facts {@code wumpus.pl} records about the maze ({@code visited},
+ * {@code to_visit}, {@code wall}, {@code stench}, {@code possible_wumpus} and {@code possibly_wumpus}) are kept as
+ * {@link CoordinateSet}s, and the route to the next target is found by the same {@link RouteFinder} that
+ * {@code wumpus.pl} uses. The {@link DistanceField} of each goal is updated as the facts change, rather than when a route
+ * is needed.
+ * <p>
+ * As with {@code wumpus.pl}, locations are relative to home, which is {@code 0,0}. Only the input, goal and output of
+ * each move are written to the output stream - not the state logged by {@code log_state/0}.
+ */
+class JavaGameController implements GameController {
+   private enum ArrowState {
+      HAVE,
+      FIRED,
+      HIT
+   }
+
+   private final CoordinateSet visited = new CoordinateSet();
+   private final CoordinateSet toVisit = new CoordinateSet();
+   private final CoordinateSet walls = new CoordinateSet();
+   private final CoordinateSet stenches = new CoordinateSet();
+   private final CoordinateSet possibleWumpus = new CoordinateSet();
+   /** The locations the wumpus could be in - see {@link #isPossiblyWumpus(int, int)}. */
+   private final CoordinateSet possiblyWumpus = new CoordinateSet();
+   /**
+    * The distances, through the locations that have been visited or are known to be safe to visit, to the targets of each
+    * goal - the locations to visit, the stenches and home.
+    */
+   private final DistanceField toVisitDistances = new DistanceField();
+   private final DistanceField stenchDistances = new DistanceField();
+   private final DistanceField homeDistances = new DistanceField();
+   private final DistanceField[] distanceFields = {toVisitDistances, stenchDistances, homeDistances};
+   /** The states the agent will move through to reach its current target. */
+   private final ArrayDeque<State> route = new ArrayDeque<>();
+   private final RouteFinder routeFinder = new RouteFinder();
+   private int x;
+   private int y;
+   private int direction;
+   private ArrowState arrow;
+   private boolean haveGold;
+   private PrintStream out = System.out;
+
+   JavaGameController() {
+      reset();
+   }
+
+   @Override
+   public void setOut(PrintStream out) {
+      this.out = out;
+   }
+
+   @Override
+   public void reset() {
+      out.println("Reset agent state");
+      visited.clear();
+      toVisit.clear();
+      walls.clear();
+      stenches.clear();
+      possibleWumpus.clear();
+      possiblyWumpus.clear();
+      for (DistanceField field : distanceFields) {
+         field.clear();
+      }
+      homeDistances.addTarget(0, 0);
+      route.clear();
+      x = 0;
+      y = 0;
+      direction = NORTH;
+      arrow = ArrowState.HAVE;
+      haveGold = false;
+   }
+
+   @Override
+   public Action process(Set<Percept> percepts) {
+      return process(Percept.toMask(percepts));
+   }
+
+   @Override
+   public Action process(int perceptMask) {
+      out.print("Input: ");
+      out.println(Percept.toSet(perceptMask));
+      Action action = update(perceptMask);
+      out.print("Output: ");
+      out.println(action);
+      return action;
+   }
+
+   /** Equivalent of {@code update/2} - each block corresponds to a clause, in the same order. */
+   private Action update(int perceptMask) {
+      boolean isBreeze = (perceptMask & BREEZE.mask()) != 0;
+
+      // the wumpus has been killed, so it is safe to move to the location the arrow was fired into
+      if ((perceptMask & SCREAM.mask()) != 0) {
+         arrow = ArrowState.HIT;
+         possiblyWumpus.clear();
+         setRoute(x + DX[direction], y + DY[direction], direction);
+      }
+
+      // the last move forward was into a wall, so revert to the previous location
+      if ((perceptMask & BUMP.mask()) != 0) {
+         int wallX = x;
+         int wallY = y;
+         x -= DX[direction];
+         y -= DY[direction];
+         if (walls.add(wallX, wallY)) {
+            toVisit.remove(wallX, wallY);
+            toVisitDistances.removeTarget(wallX, wallY);
+            removeSafe(wallX, wallY);
+            possibleWumpus.remove(wallX, wallY);
+            possiblyWumpus.remove(wallX, wallY);
+            // The square bumped into is not necessarily the last square of the route - a route home passes through
+            // squares still to be visited, any of which may be a wall - so the rest of the route may still be usable.
+            // It is discarded rather than repaired, and a new route found from the square the agent is in. As the
+            // distance field already excludes the wall, that search only expands the states on the cheapest routes.
+            route.clear();
+         }
+      }
+
+      addVisited(x, y, perceptMask);
+
+      if ((perceptMask & GLITTER.mask()) != 0) {
+         haveGold = true;
+         return Action.TAKE;
+      }
+
+      if (route.isEmpty() && shouldExit() && x == 0 && y == 0) {
+         return Action.CLIMB;
+      }
+
+      if (shouldFire()) {
+         arrow = ArrowState.FIRED;
+         // if no breeze then, after firing, the location in front will contain either no wumpus or a dead wumpus
+         if (!isBreeze) {
+            setRoute(x + DX[direction], y + DY[direction], direction);
+         }
+         return Action.FIRE;
+      }
+
+      // when hunting, turn to face the wumpus so it will be killed when the arrow is fired
+      if (shouldHunt() && stenches.contains(x, y)) {
+         int right = turnRight(direction);
+         if (isPossiblyWumpus(x + DX[right], y + DY[right])) {
+            direction = right;
+            return Action.RIGHT;
+         } else {
+            direction = turnLeft(direction);
+            return Action.LEFT;
+         }
+      }
+
+      if (route.isEmpty()) {
+         setPath();
+      }
+
+      State next = route.peekFirst();
+      if (next != null) {
+         if (next.direction == direction) {
+            route.removeFirst();
+            x = next.x;
+            y = next.y;
+            return Action.FORWARD;
+         } else if (next.direction == turnRight(direction)) {
+            direction = next.direction;
+            return Action.RIGHT;
+         } else if (next.direction == turnLeft(direction)) {
+            direction = next.direction;
+            return Action.LEFT;
+         } else {
+            // 180 degree turn required
+            direction = turnRight(direction);
+            return Action.RIGHT;
+         }
+      }
+
+      out.println("Stuck!");
+      throw new StuckException();
+   }
+
+   private void setRoute(int x, int y, int direction) {
+      route.clear();
+      route.add(new State(x, y, direction, 0, 0, null, 0));
+   }
+
+   /** Equivalent of {@code add_visited/2}. */
+   private void addVisited(int x, int y, int perceptMask) {
+      if ((perceptMask & STENCH.mask()) != 0 && !stenches.contains(x, y)) {
+         boolean isFirst = stenches.isEmpty();
+         stenches.add(x, y);
+         stenchDistances.addTarget(x, y);
+         addStenchToPossiblyWumpus(x, y, isFirst);
+         addAdjacentToStench(x, y);
+      }
+
+      if (visited.add(x, y)) {
+         addSafe(x, y);
+         toVisit.remove(x, y);
+         toVisitDistances.removeTarget(x, y);
+         possibleWumpus.remove(x, y);
+         possiblyWumpus.remove(x, y);
+         if (!stenches.contains(x, y)) {
+            // the wumpus cannot be next to a visited location without a stench
+            for (int d = NORTH; d <= WEST; d++) {
+               possiblyWumpus.remove(x + DX[d], y + DY[d]);
+            }
+         }
+         if ((perceptMask & BREEZE.mask()) == 0) {
+            addAdjacentToVisit(x, y);
+         }
+      }
+   }
+
+   /** Equivalent of {@code add_stench_to_possibly_wumpus/1}. */
+   private void addStenchToPossiblyWumpus(int x, int y, boolean isFirst) {
+      if (!isFirst) {
+         // the wumpus must be adjacent to every stench, so discard any locations that are not adjacent to this one
+         for (int i = possiblyWumpus.size() - 1; i >= 0; i--) {
+            int px = possiblyWumpus.getX(i);
+            int py = possiblyWumpus.getY(i);
+            if (!isAdjacent(x, y, px, py)) {
+               possiblyWumpus.remove(px, py);
+            }
+         }
+      } else if (isWumpusAlive()) {
+         for (int d = NORTH; d <= WEST; d++) {
+            int ax = x + DX[d];
+            int ay = y + DY[d];
+            if (!visited.contains(ax, ay) && !walls.contains(ax, ay) && !isAdjacentToNoStench(ax, ay)) {
+               possiblyWumpus.add(ax, ay);
+            }
+         }
+      }
+   }
+
+   /** Equivalent of {@code adjacent_to_no_stench/1}. */
+   private boolean isAdjacentToNoStench(int x, int y) {
+      for (int d = NORTH; d <= WEST; d++) {
+         int ax = x + DX[d];
+         int ay = y + DY[d];
+         if (visited.contains(ax, ay) && !stenches.contains(ax, ay)) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /** Equivalent of {@code add_adjacent_to_stench/1}. */
+   private void addAdjacentToStench(int x, int y) {
+      // the wumpus must be adjacent to every stench, so discard any possible locations that are not
+      for (int i = possibleWumpus.size() - 1; i >= 0; i--) {
+         int px = possibleWumpus.getX(i);
+         int py = possibleWumpus.getY(i);
+         if (!isAdjacent(x, y, px, py)) {
+            possibleWumpus.remove(px, py);
+         }
+      }
+      if (possibleWumpus.isEmpty()) {
+         for (int d = NORTH; d <= WEST; d++) {
+            int ax = x + DX[d];
+            int ay = y + DY[d];
+            if (isUnknown(ax, ay)) {
+               possibleWumpus.add(ax, ay);
+            }
+         }
+      }
+   }
+
+   /** Equivalent of {@code add_adjacent_to_visit/1}. */
+   private void addAdjacentToVisit(int x, int y) {
+      for (int d = NORTH; d <= WEST; d++) {
+         int ax = x + DX[d];
+         int ay = y + DY[d];
+         if (isUnknown(ax, ay) && !(isWumpusAlive() && possibleWumpus.contains(ax, ay))) {
+            toVisit.add(ax, ay);
+            toVisitDistances.addTarget(ax, ay);
+            addSafe(ax, ay);
+            possibleWumpus.remove(ax, ay);
+         }
+      }
+   }
+
+   private void addSafe(int x, int y) {
+      for (DistanceField field : distanceFields) {
+         field.addSafe(x, y);
+      }
+   }
+
+   private void removeSafe(int x, int y) {
+      for (DistanceField field : distanceFields) {
+         field.removeSafe(x, y);
+      }
+   }
+
+   private boolean isUnknown(int x, int y) {
+      return !visited.contains(x, y) && !walls.contains(x, y) && !toVisit.contains(x, y);
+   }
+
+   private boolean isWumpusAlive() {
+      return arrow != ArrowState.HIT;
+   }
+
+   private boolean canHunt() {
+      return arrow == ArrowState.HAVE && !stenches.isEmpty();
+   }
+
+   private boolean shouldHunt() {
+      // if have gold then head home rather than hunt, and visit all safe locations before attempting to kill the wumpus
+      return canHunt() && !haveGold && toVisit.isEmpty();
+   }
+
+   private boolean shouldExit() {
+      return haveGold || (!canHunt() && toVisit.isEmpty());
+   }
+
+   private boolean shouldFire() {
+      return shouldHunt() && stenches.contains(x, y) && isPossiblyWumpus(x + DX[direction], y + DY[direction]);
+   }
+
+   /**
+    * Equivalent of {@code possibly_wumpus/1} - {@code true} if the wumpus is alive and could be at the given location. The
+    * locations are recorded as the stenches, visited locations and walls they depend on are added, rather than derived
+    * each time they are checked.
+    */
+   private boolean isPossiblyWumpus(int x, int y) {
+      return possiblyWumpus.contains(x, y);
+   }
+
+   private static boolean isAdjacent(int x1, int y1, int x2, int y2) {
+      return Math.abs(x1 - x2) + Math.abs(y1 - y2) == 1;
+   }
+
+   /** Equivalent of {@code set_path/0} - tries each goal, in order, until a route to one of its targets is found. */
+   private void setPath() {
+      if (!haveGold && !toVisit.isEmpty() && search(toVisitDistances)) {
+         out.println("Goal: find_gold");
+      } else if (shouldHunt() && search(stenchDistances)) {
+         out.println("Goal: hunt_wumpus");
+      } else if (search(homeDistances)) {
+         out.println("Goal: go_home");
+      }
+   }
+
+   /**
+    * Finds the lowest cost route to one of the given targets.
+    *
+    * @return {@code true} if a route was found, in which case its states - excluding the current state of the agent - will
+    * have been recorded as the route to follow
+    */
+   private boolean search(DistanceField targets) {
+      State last = routeFinder.find(x, y, direction, targets);
+      if (last == null) {
+         return false;
+      }
+      route.clear();
+      for (State n = last; n.previous != null; n = n.previous) {
+         route.addFirst(n);
+      }
+      return true;
+   }
+}
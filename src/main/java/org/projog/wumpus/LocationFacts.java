@@ -0,0 +1,248 @@
+package org.projog.wumpus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.projog.api.Projog;
+import org.projog.core.ProjogException;
+import org.projog.core.predicate.AbstractPredicateFactory;
+import org.projog.core.predicate.AbstractSingleResultPredicate;
+import org.projog.core.predicate.Predicate;
+import org.projog.core.predicate.PredicateKey;
+import org.projog.core.predicate.SucceedsNeverPredicate;
+import org.projog.core.predicate.SucceedsOncePredicate;
+import org.projog.core.term.Term;
+import org.projog.core.term.TermType;
+import org.projog.core.term.TermUtils;
+import org.projog.core.term.Variable;
+import org.projog.wumpus.model.CoordinateSet;
+
+/**
+ * Stores the facts {@code wumpus.pl} records about locations - {@code visited}, {@code to_visit}, {@code wall},
+ * {@code stench}, {@code possible_wumpus} and {@code possibly_wumpus} - in a {@link CoordinateSet} per fact, rather than
+ * as dynamic Prolog facts.
+ * <p>
+ * Facts are queried using {@code location(Name,X:Y)}. When its second argument is a location of the form {@code X:Y},
+ * it checks whether the location is a member of the set - in constant time, rather than by scanning the facts. When its
+ * second argument is the anonymous variable {@code _} it checks whether the set has any members, and succeeds at most
+ * once - as every solution would be the same. Otherwise it unifies its second argument with each member of the set in
+ * turn. As with dynamic facts, the members are those when the predicate was called - changes to the set while they are
+ * being iterated over are not seen. The members are only copied if the set is changed before they have all been
+ * iterated over.
+ * <p>
+ * Facts are changed using {@code add_location(Name,X:Y)}, instead of {@code assert/1}, {@code remove_location(Name,X:Y)},
+ * instead of {@code retract/1} and {@code retractall/1}, and {@code clear_locations(Name)}, instead of
+ * {@code retractall/1} with a variable as its argument. {@code remove_location/2} succeeds even if the location was not
+ * a member.
+ * <p>
+ * The names of the facts are only arguments of these predicates, so a program consulted alongside them is free to
+ * define predicates of the same names - e.g. {@code visited/1} as a dynamic fact.
+ * <p>
+ * The members are iterated over in the order they were added only if none have been removed - see {@link CoordinateSet}.
+ * {@code wumpus.pl} only relies on the order of {@code stench}, whose members are never removed.
+ */
+final class LocationFacts {
+   /** The names of the facts stored. */
+   static final String[] NAMES = {"visited", "to_visit", "wall", "stench", "possible_wumpus", "possibly_wumpus"};
+   static final PredicateKey QUERY_KEY = new PredicateKey("location", 2);
+   static final PredicateKey ADD_KEY = new PredicateKey("add_location", 2);
+   static final PredicateKey REMOVE_KEY = new PredicateKey("remove_location", 2);
+   static final PredicateKey CLEAR_KEY = new PredicateKey("clear_locations", 1);
+
+   private final Map<String, Fact> facts = new HashMap<>();
+
+   LocationFacts() {
+      for (String name : NAMES) {
+         facts.put(name, new Fact());
+      }
+   }
+
+   /** Adds the predicates used to query and change the facts to the given Projog instance. */
+   void register(Projog projog) {
+      projog.addPredicateFactory(QUERY_KEY, new Query());
+      projog.addPredicateFactory(ADD_KEY, new Add());
+      projog.addPredicateFactory(REMOVE_KEY, new Remove());
+      projog.addPredicateFactory(CLEAR_KEY, new Clear());
+   }
+
+   /** Returns the locations stored for the fact with the given name. */
+   CoordinateSet get(String name) {
+      return getFact(name).locations;
+   }
+
+   /** Returns the number of iterations over the fact with the given name that are still reading from its set. */
+   int countOpenIterations(String name) {
+      return getFact(name).open.size();
+   }
+
+   private Fact getFact(String name) {
+      Fact fact = facts.get(name);
+      if (fact == null) {
+         throw new ProjogException("Unknown location fact: " + name);
+      }
+      return fact;
+   }
+
+   private Fact getFact(Term name) {
+      return getFact(TermUtils.getAtomName(name.getTerm()));
+   }
+
+   /** {@code add_location(Name,X:Y)} - adds the location to the facts with the given name. */
+   private final class Add extends AbstractSingleResultPredicate {
+      @Override
+      protected boolean evaluate(Term name, Term location) {
+         Term t = location.getTerm();
+         int x = Terms.getX(t);
+         int y = Terms.getY(t);
+         Fact fact = getFact(name);
+         if (!fact.locations.contains(x, y)) {
+            fact.beforeChange();
+            fact.locations.add(x, y);
+         }
+         return true;
+      }
+   }
+
+   /** {@code remove_location(Name,X:Y)} - removes the location, if present, from the facts with the given name. */
+   private final class Remove extends AbstractSingleResultPredicate {
+      @Override
+      protected boolean evaluate(Term name, Term location) {
+         Term t = location.getTerm();
+         int x = Terms.getX(t);
+         int y = Terms.getY(t);
+         Fact fact = getFact(name);
+         if (fact.locations.contains(x, y)) {
+            fact.beforeChange();
+            fact.locations.remove(x, y);
+         }
+         return true;
+      }
+   }
+
+   /** {@code clear_locations(Name)} - removes all of the locations from the facts with the given name. */
+   private final class Clear extends AbstractSingleResultPredicate {
+      @Override
+      protected boolean evaluate(Term name) {
+         Fact fact = getFact(name);
+         if (!fact.locations.isEmpty()) {
+            fact.beforeChange();
+            fact.locations.clear();
+         }
+         return true;
+      }
+   }
+
+   /** The locations of a single fact, and the iterations over them that have not yet finished. */
+   private static final class Fact {
+      final CoordinateSet locations = new CoordinateSet();
+      /**
+       * The unfinished iterations still reading from {@link #locations} rather than from a copy. An iteration removes
+       * itself once it has finished.
+       */
+      final List<Members> open = new ArrayList<>();
+
+      /** Gives each unfinished iteration a copy of the members it has still to iterate over. */
+      void beforeChange() {
+         for (Members m : open) {
+            if (m.couldReevaluationSucceed()) {
+               m.copyRemaining();
+            }
+         }
+         open.clear();
+      }
+   }
+
+   /** {@code location(Name,X:Y)} - queries the facts with the given name. */
+   private final class Query extends AbstractPredicateFactory {
+      @Override
+      protected Predicate getPredicate(Term name, Term location) {
+         Fact fact = getFact(name);
+         CoordinateSet locations = fact.locations;
+         Term t = location.getTerm();
+         if (Terms.isLocation(t)) {
+            boolean member = locations.contains(TermUtils.toInt(t.getArgument(0)), TermUtils.toInt(t.getArgument(1)));
+            return member ? SucceedsOncePredicate.SINGLETON : SucceedsNeverPredicate.SINGLETON;
+         } else if (locations.isEmpty()) {
+            return SucceedsNeverPredicate.SINGLETON;
+         } else if (t.getType() == TermType.VARIABLE && ((Variable) t).isAnonymous()) {
+            return SucceedsOncePredicate.SINGLETON;
+         } else {
+            Members members = new Members(t, fact);
+            fact.open.add(members);
+            return members;
+         }
+      }
+   }
+
+   /**
+    * Unifies a term with each of the members of a set in turn.
+    * <p>
+    * Reads from the set until the set is about to be changed - see {@link Fact#beforeChange()} - and from a copy of the
+    * members not yet iterated over after that.
+    */
+   private static final class Members implements Predicate {
+      private final Term location;
+      /** The fact being iterated over, or {@code null} once the iteration no longer reads from its set. */
+      private Fact fact;
+      private int[] copy;
+      private int next;
+      private int end;
+
+      Members(Term location, Fact fact) {
+         this.location = location;
+         this.fact = fact;
+         this.end = fact.locations.size();
+      }
+
+      void copyRemaining() {
+         int[] remaining = new int[(end - next) * 2];
+         for (int i = 0; i < remaining.length; i += 2) {
+            remaining[i] = getX(next + i / 2);
+            remaining[i + 1] = getY(next + i / 2);
+         }
+         copy = remaining;
+         fact = null;
+         next = 0;
+         end = remaining.length / 2;
+      }
+
+      private int getX(int position) {
+         return copy == null ? fact.locations.getX(position) : copy[position * 2];
+      }
+
+      private int getY(int position) {
+         return copy == null ? fact.locations.getY(position) : copy[position * 2 + 1];
+      }
+
+      @Override
+      public boolean evaluate() {
+         while (next < end) {
+            location.backtrack();
+            int position = next++;
+            if (location.unify(Terms.createLocation(getX(position), getY(position)))) {
+               if (next == end) {
+                  close();
+               }
+               return true;
+            }
+         }
+         close();
+         return false;
+      }
+
+      /** Stops the fact keeping a reference to this iteration, as there are no members left to iterate over. */
+      private void close() {
+         if (fact != null) {
+            fact.open.remove(this);
+            fact = null;
+         }
+      }
+
+      @Override
+      public boolean couldReevaluationSucceed() {
+         return next < end;
+      }
+   }
+}
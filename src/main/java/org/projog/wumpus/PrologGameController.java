@@ -1,8 +1,9 @@
 package org.projog.wumpus;
 
-import static java.util.stream.Collectors.toList;
-
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.projog.api.Projog;
@@ -13,13 +14,52 @@ import org.projog.wumpus.model.Percept;
 
 /** Facade to prolog code that contains the logic used to control the agent. */
 class PrologGameController implements GameController {
+   /** The atom {@code wumpus.pl} uses, instead of an action, when it cannot decide on an action. */
+   private static final String STUCK = "stuck";
+
+   /**
+    * The names of the atoms used to represent each possible combination of percepts, indexed by percept mask.
+    * <p>
+    * Percept names of enum are upper-case but wumpus.pl expects lower-case versions, so convert here.
+    */
+   private static final List<List<String>> PERCEPT_ATOM_NAMES = createPerceptAtomNames();
+
    private final Projog projog;
    private final QueryPlan resetStateQuery;
    private final QueryPlan updateQuery;
 
+   private static List<List<String>> createPerceptAtomNames() {
+      Percept[] values = Percept.values();
+      List<List<String>> result = new ArrayList<>(1 << values.length);
+      for (int mask = 0; mask < 1 << values.length; mask++) {
+         List<String> names = new ArrayList<>();
+         for (Percept p : Percept.toSet(mask)) {
+            names.add(p.toString().toLowerCase());
+         }
+         result.add(Collections.unmodifiableList(names));
+      }
+      return result;
+   }
+
    PrologGameController() {
+      this(true);
+   }
+
+   /**
+    * @param nativeRouteFinder {@code true} if routes should be found by {@link FindRoute}, or {@code false} if they should
+    * be found by the Prolog implementation of {@code find_route/4} in {@code find_route.pl}
+    */
+   PrologGameController(boolean nativeRouteFinder) {
       projog = new Projog();
+      new LocationFacts().register(projog);
+      Geometry.register(projog);
+      if (nativeRouteFinder) {
+         projog.addPredicateFactory(FindRoute.KEY, new FindRoute());
+      }
       projog.consultResource("prolog/wumpus.pl");
+      if (!nativeRouteFinder) {
+         projog.consultResource("prolog/find_route.pl");
+      }
       resetStateQuery = projog.createPlan("reset_agent_state.");
       updateQuery = projog.createPlan("process(Percepts,Action).");
 
@@ -45,16 +85,24 @@ class PrologGameController implements GameController {
     * @return the action the agent should perform
     */
    @Override
-   public synchronized Action process(Set<Percept> percepts) {
+   public Action process(Set<Percept> percepts) {
+      return process(Percept.toMask(percepts));
+   }
+
+   @Override
+   public synchronized Action process(int perceptMask) {
+      String action;
       try {
          QueryStatement updateStatement = updateQuery.createStatement();
-         // Percept names of enum are upper-case but wumpus.pl expects lower-case versions, so convert here.
-         updateStatement.setListOfAtomNames("Percepts", percepts.stream().map(p -> p.toString().toLowerCase()).collect(toList()));
-         String action = updateStatement.findFirstAsAtomName();
-         return Action.valueOf(action.toUpperCase());
+         updateStatement.setListOfAtomNames("Percepts", PERCEPT_ATOM_NAMES.get(perceptMask));
+         action = updateStatement.findFirstAsAtomName();
       } catch (RuntimeException e) {
          projog.printProjogStackTrace(e);
          throw e;
       }
+      if (STUCK.equals(action)) {
+         throw new StuckException();
+      }
+      return Action.valueOf(action.toUpperCase());
    }
 }
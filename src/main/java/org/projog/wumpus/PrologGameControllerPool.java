@@ -0,0 +1,148 @@
+package org.projog.wumpus;
+
+import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.Percept;
+
+/**
+ * A fixed number of {@link PrologGameController} instances that can be shared between threads.
+ * <p>
+ * As {@code wumpus.pl} keeps the agent's state in the knowledge base of the Prolog engine it is running in, each engine
+ * can only play one game at a time. Rather than all threads using a single engine, a thread calls {@link #checkout()}
+ * to get exclusive use of an engine for the duration of a game and then calls {@link GameSession#close()} to return it
+ * to the pool.
+ */
+public class PrologGameControllerPool {
+   private final BlockingQueue<PrologGameController> available;
+   private final int size;
+   private final LongAdder checkouts = new LongAdder();
+   private final LongAdder totalWaitNanos = new LongAdder();
+   private final AtomicLong maxWaitNanos = new AtomicLong();
+
+   /** @param size the number of Prolog engines to create - all are created, and the Prolog consulted, up front */
+   public PrologGameControllerPool(int size) {
+      if (size < 1) {
+         throw new IllegalArgumentException("size: " + size);
+      }
+      this.size = size;
+      this.available = new ArrayBlockingQueue<>(size);
+      for (int i = 0; i < size; i++) {
+         available.add(new PrologGameController());
+      }
+   }
+
+   /**
+    * Waits until an engine is available and then returns a session for playing a single game using it.
+    * <p>
+    * The agent state of the session is reset before it is returned. If resetting it fails then the engine is returned to
+    * the pool before the exception is rethrown.
+    */
+   public GameSession checkout() throws InterruptedException {
+      long start = System.nanoTime();
+      PrologGameController controller = available.take();
+      long waitNanos = System.nanoTime() - start;
+      try {
+         controller.reset();
+      } catch (RuntimeException e) {
+         checkin(controller);
+         throw e;
+      }
+      recordWait(waitNanos);
+      return new GameSession(controller);
+   }
+
+   private void recordWait(long waitNanos) {
+      checkouts.increment();
+      totalWaitNanos.add(waitNanos);
+      maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+   }
+
+   private void checkin(PrologGameController controller) {
+      available.add(controller);
+   }
+
+   /** Returns the number of Prolog engines in the pool. */
+   public int getSize() {
+      return size;
+   }
+
+   /** Returns the number of Prolog engines not currently checked out. */
+   public int getAvailable() {
+      return available.size();
+   }
+
+   /** Returns the number of times {@link #checkout()} has returned a session. */
+   public long getCheckouts() {
+      return checkouts.sum();
+   }
+
+   /** Returns the total time, in nanoseconds, that callers of {@link #checkout()} have spent waiting for an engine. */
+   public long getTotalWaitNanos() {
+      return totalWaitNanos.sum();
+   }
+
+   /** Returns the longest time, in nanoseconds, that a single call to {@link #checkout()} has waited for an engine. */
+   public long getMaxWaitNanos() {
+      return maxWaitNanos.get();
+   }
+
+   @Override
+   public String toString() {
+      long checkouts = getCheckouts();
+      double meanWaitMillis = checkouts == 0 ? 0 : getTotalWaitNanos() / (double) checkouts / TimeUnit.MILLISECONDS.toNanos(1);
+      double maxWaitMillis = getMaxWaitNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+      return String.format("Pool size: %d Checkouts: %d Wait: mean %.3fms, max %.3fms", size, checkouts, meanWaitMillis, maxWaitMillis);
+   }
+
+   /** Exclusive use of one of the pool's engines for a single game. */
+   public class GameSession implements GameController, AutoCloseable {
+      private PrologGameController controller;
+
+      private GameSession(PrologGameController controller) {
+         this.controller = controller;
+      }
+
+      @Override
+      public void setOut(PrintStream out) {
+         getController().setOut(out);
+      }
+
+      @Override
+      public void reset() {
+         getController().reset();
+      }
+
+      @Override
+      public Action process(Set<Percept> percepts) {
+         return getController().process(percepts);
+      }
+
+      @Override
+      public Action process(int perceptMask) {
+         return getController().process(perceptMask);
+      }
+
+      /** Returns the engine to the pool. The session cannot be used after it has been closed. */
+      @Override
+      public void close() {
+         if (controller != null) {
+            checkin(controller);
+            controller = null;
+         }
+      }
+
+      private PrologGameController getController() {
+         if (controller == null) {
+            throw new IllegalStateException("session has been closed");
+         }
+         return controller;
+      }
+   }
+}
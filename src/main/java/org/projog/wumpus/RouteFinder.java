@@ -0,0 +1,210 @@
+package org.projog.wumpus;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import org.projog.wumpus.model.CoordinateSet;
+
+/**
+ * Finds the lowest cost route, through locations known to be safe, from the state of the agent to one of a number of
+ * target locations.
+ * <p>
+ * A state is a location and the direction faced. Moving forward costs 1, turning left or right and then moving forward
+ * costs 2 and turning around and then moving forward - which is only considered from the starting state - costs 3. The
+ * search is A*, using a binary heap as the open set. The safe locations, the targets and the heuristic are provided by a
+ * {@link DistanceField} - the number of moves, through safe locations, to the nearest target. As this takes account of
+ * the locations that are not safe, the search goes more directly towards the target than when the Manhattan distance
+ * was used - and locations from which no target can be reached are not considered at all.
+ * <p>
+ * Routes of the same estimated cost are considered in the reverse of the order they were added, as they were by the
+ * sorted list used by the original {@code search/3} of {@code wumpus.pl}. Unlike {@code search/3}, which only rejected
+ * states already on the route being extended, each state is expanded at most once - by the first route to it that is
+ * considered. The heuristic is consistent, so that route is always one of the cheapest. Routes found are
+ * therefore still the lowest cost routes but, where there is more than one route with the lowest cost, may not be the
+ * same one that {@code search/3} would have found.
+ * <p>
+ * The distance field also provides the exact cost of reaching the nearest target from each state, which it keeps
+ * up-to-date as the safe locations and targets change. The cost of the cheapest route is therefore known before the
+ * search starts, and states that are not on a route of that cost are not added to the open set. Those states could
+ * never be part of the route that is found - so the route is the same as if they had been added - but, without them, the
+ * search only expands states on the cheapest routes rather than every state with a lower estimated cost.
+ * <p>
+ * Instances reuse their internal storage between searches, so are not thread-safe. Rather than being cleared before
+ * each search, the storage for each state records the search it was last written by - so a search only touches the
+ * states it reaches.
+ */
+final class RouteFinder {
+   static final int NORTH = 0;
+   static final int EAST = 1;
+   static final int SOUTH = 2;
+   static final int WEST = 3;
+   /** The x and y values to add to move one location in each direction, indexed by direction. */
+   static final int[] DX = {0, 1, 0, -1};
+   static final int[] DY = {-1, 0, 1, 0};
+   /** The cost of turning around and moving forward one location. */
+   private static final int REVERSE_COST = 3;
+
+   private final PriorityQueue<State> open = new PriorityQueue<>();
+   /**
+    * The cost of the cheapest route found to each state, indexed by the position of its location in the set of safe
+    * locations multiplied by 4 plus its direction. Only set for the current search if the state's element of
+    * {@link #reached} is {@link #search}.
+    */
+   private int[] costs = new int[0];
+   /** The search that last found a route to each state, indexed the same way as {@link #costs}. */
+   private int[] reached = new int[0];
+   /** The search that last expanded each state, indexed the same way as {@link #costs}. */
+   private int[] closed = new int[0];
+   /** Identifies the current search - incremented at the start of each search. */
+   private int search;
+   private int expanded;
+
+   static int turnRight(int direction) {
+      return (direction + 1) & 3;
+   }
+
+   static int turnLeft(int direction) {
+      return (direction + 3) & 3;
+   }
+
+   /**
+    * Finds the lowest cost route from the given state to one of the targets of the distance field.
+    *
+    * @param field the locations the route can pass through - which must include the starting location - and the
+    * targets
+    * @return the last state of the route found, or {@code null} if none of the targets can be reached
+    */
+   State find(int x, int y, int direction, DistanceField field) {
+      CoordinateSet safe = field.getSafe();
+      int start = safe.positionOf(x, y);
+      if (start == -1) {
+         throw new IllegalArgumentException("not safe: " + x + ":" + y);
+      }
+      int length = safe.size() * 4;
+      if (costs.length < length) {
+         costs = new int[Math.max(length, costs.length * 2)];
+         reached = Arrays.copyOf(reached, costs.length);
+         closed = Arrays.copyOf(closed, costs.length);
+      }
+      if (++search == 0) {
+         // the values from searches before the counter wrapped around would otherwise match later searches
+         Arrays.fill(reached, 0);
+         Arrays.fill(closed, 0);
+         search = 1;
+      }
+      open.clear();
+      expanded = 0;
+      int sequence = 0;
+
+      // reversing is represented by two states - turning to face the opposite direction, then moving forward
+      int opposite = (direction + 2) & 3;
+      int reverseX = x + DX[opposite];
+      int reverseY = y + DY[opposite];
+      int reversePosition = safe.positionOf(reverseX, reverseY);
+      int forwardCost = field.getCost(start, direction);
+      int reverseCost = DistanceField.UNREACHABLE;
+      if (reversePosition != -1 && field.getCost(reversePosition, opposite) != DistanceField.UNREACHABLE) {
+         reverseCost = REVERSE_COST + field.getCost(reversePosition, opposite);
+      }
+      // the cost of the cheapest route - states that are not on a route of this cost do not need to be considered
+      int lowestCost = Math.min(forwardCost, reverseCost);
+      if (lowestCost == DistanceField.UNREACHABLE) {
+         return null;
+      }
+
+      State reverseTurn = new State(x, y, opposite, 0, 0, null, 0);
+      setCost(start * 4 + direction, 0);
+      // the state facing the opposite direction is part of the route that reverses, so is not a state to be expanded
+      closed[start * 4 + opposite] = search;
+      if (reverseCost == lowestCost) {
+         setCost(reversePosition * 4 + opposite, REVERSE_COST);
+         open.add(new State(reverseX, reverseY, opposite, REVERSE_COST, REVERSE_COST + field.getDistance(reversePosition), reverseTurn, sequence++));
+      }
+      // if estimates are equal then moving forward is considered before reversing
+      if (forwardCost == lowestCost) {
+         open.add(new State(x, y, direction, 0, field.getDistance(start), null, sequence++));
+      }
+
+      State state;
+      while ((state = open.poll()) != null) {
+         int index = safe.positionOf(state.x, state.y) * 4 + state.direction;
+         if (closed[index] == search) {
+            continue;
+         }
+         closed[index] = search;
+         if (field.isTarget(state.x, state.y)) {
+            open.clear();
+            return state;
+         }
+         expanded++;
+         // forward, then turn right and move forward, then turn left and move forward
+         for (int i = 0; i < 3; i++) {
+            int d = i == 0 ? state.direction : i == 1 ? turnRight(state.direction) : turnLeft(state.direction);
+            int cost = state.cost + (i == 0 ? 1 : 2);
+            int nx = state.x + DX[d];
+            int ny = state.y + DY[d];
+            // routes to locations that are not safe, or that cannot be extended to a target at the lowest cost, are not
+            // added - routes with the same cost as the cheapest known route to a state are added, as they may be
+            // considered before it
+            int position = safe.positionOf(nx, ny);
+            if (position != -1 && closed[position * 4 + d] != search && cost <= getCost(position * 4 + d) && isOnCheapestRoute(cost, field.getCost(position, d), lowestCost)) {
+               setCost(position * 4 + d, cost);
+               open.add(new State(nx, ny, d, cost, cost + field.getDistance(position), state, sequence++));
+            }
+         }
+      }
+      return null;
+   }
+
+   /** Returns the cost of the cheapest route to the state found by the current search, or the maximum if none. */
+   private int getCost(int index) {
+      return reached[index] == search ? costs[index] : Integer.MAX_VALUE;
+   }
+
+   private void setCost(int index, int cost) {
+      costs[index] = cost;
+      reached[index] = search;
+   }
+
+   private static boolean isOnCheapestRoute(int cost, int remainingCost, int lowestCost) {
+      return remainingCost != DistanceField.UNREACHABLE && cost + remainingCost <= lowestCost;
+   }
+
+   /** Returns the number of states expanded by the last call to {@link #find(int, int, int, DistanceField)}. */
+   int getExpanded() {
+      return expanded;
+   }
+
+   /** A state - location and direction - at the end of a route. */
+   static final class State implements Comparable<State> {
+      final int x;
+      final int y;
+      final int direction;
+      /** The cost of the route to this state. */
+      final int cost;
+      /** The cost of the route to this state plus the estimated cost of reaching the nearest target from it. */
+      final int estimate;
+      /** The previous state of the route, or {@code null} if this is the first state. */
+      final State previous;
+      /** The order in which the state was added to the open set. */
+      final int sequence;
+
+      State(int x, int y, int direction, int cost, int estimate, State previous, int sequence) {
+         this.x = x;
+         this.y = y;
+         this.direction = direction;
+         this.cost = cost;
+         this.estimate = estimate;
+         this.previous = previous;
+         this.sequence = sequence;
+      }
+
+      @Override
+      public int compareTo(State o) {
+         if (estimate != o.estimate) {
+            return Integer.compare(estimate, o.estimate);
+         }
+         return Integer.compare(o.sequence, sequence);
+      }
+   }
+}
@@ -0,0 +1,10 @@
+package org.projog.wumpus;
+
+/** Thrown by a {@link GameController} when it cannot decide on an action for the agent to perform. */
+final class StuckException extends RuntimeException {
+   private static final long serialVersionUID = 1L;
+
+   StuckException() {
+      super("Stuck!");
+   }
+}
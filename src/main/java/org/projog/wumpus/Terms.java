@@ -0,0 +1,100 @@
+package org.projog.wumpus;
+
+import static org.projog.wumpus.RouteFinder.NORTH;
+import static org.projog.wumpus.RouteFinder.WEST;
+
+import org.projog.core.ProjogException;
+import org.projog.core.term.Atom;
+import org.projog.core.term.IntegerNumberCache;
+import org.projog.core.term.Structure;
+import org.projog.core.term.Term;
+import org.projog.core.term.TermType;
+import org.projog.core.term.TermUtils;
+
+/**
+ * Converts between the terms {@code wumpus.pl} uses to represent locations, directions and states and their Java
+ * representations.
+ * <p>
+ * A location is {@code X:Y}, a direction is one of the atoms {@code north}, {@code east}, {@code south} and {@code west} -
+ * represented in Java by {@link RouteFinder#NORTH} to {@link RouteFinder#WEST} - and a state is
+ * {@code state(X:Y,Direction)}.
+ */
+final class Terms {
+   /** The names of the atoms used to represent each direction, indexed by direction. */
+   private static final String[] DIRECTION_NAMES = {"north", "east", "south", "west"};
+   private static final Atom[] DIRECTION_ATOMS = new Atom[DIRECTION_NAMES.length];
+   static {
+      for (int d = NORTH; d <= WEST; d++) {
+         DIRECTION_ATOMS[d] = new Atom(DIRECTION_NAMES[d]);
+      }
+   }
+
+   private Terms() {
+   }
+
+   /** Returns the direction represented by the given atom. */
+   static int toDirection(Term term) {
+      String name = TermUtils.getAtomName(term.getTerm());
+      int direction = indexOfDirection(name);
+      if (direction == -1) {
+         throw new ProjogException("Unknown direction: " + name);
+      }
+      return direction;
+   }
+
+   /** Returns the direction represented by the given term, or -1 if it is not one of the direction atoms. */
+   static int findDirection(Term term) {
+      Term t = term.getTerm();
+      return t.getType() == TermType.ATOM ? indexOfDirection(t.getName()) : -1;
+   }
+
+   private static int indexOfDirection(String name) {
+      for (int d = NORTH; d <= WEST; d++) {
+         if (DIRECTION_NAMES[d].equals(name)) {
+            return d;
+         }
+      }
+      return -1;
+   }
+
+   /** Returns the atom used to represent the given direction. */
+   static Atom createDirection(int direction) {
+      return DIRECTION_ATOMS[direction];
+   }
+
+   /** Returns {@code true} if the term is a location of the form {@code X:Y} where both X and Y are integers. */
+   static boolean isLocation(Term t) {
+      return t.getType() == TermType.STRUCTURE
+             && ":".equals(t.getName())
+             && t.getNumberOfArguments() == 2
+             && t.getArgument(0).getTerm().getType() == TermType.INTEGER
+             && t.getArgument(1).getTerm().getType() == TermType.INTEGER;
+   }
+
+   /** Returns the x value of a location of the form {@code X:Y}. */
+   static int getX(Term location) {
+      return TermUtils.toInt(getCoordinate(location, 0));
+   }
+
+   /** Returns the y value of a location of the form {@code X:Y}. */
+   static int getY(Term location) {
+      return TermUtils.toInt(getCoordinate(location, 1));
+   }
+
+   private static Term getCoordinate(Term location, int index) {
+      if (!":".equals(location.getName()) || location.getNumberOfArguments() != 2) {
+         throw new ProjogException("Expected X:Y but got: " + location);
+      }
+      return location.getArgument(index).getTerm();
+   }
+
+   /** Returns a location of the form {@code X:Y}. */
+   static Term createLocation(int x, int y) {
+      return Structure.createStructure(":", new Term[] {IntegerNumberCache.valueOf(x), IntegerNumberCache.valueOf(y)});
+   }
+
+   /** Returns a state of the form {@code state(X:Y,Direction)}. */
+   static Term createState(int x, int y, int direction) {
+      return Structure.createStructure("state", new Term[] {createLocation(x, y), DIRECTION_ATOMS[direction]});
+   }
+}
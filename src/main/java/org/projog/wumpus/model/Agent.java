@@ -2,6 +2,9 @@ package org.projog.wumpus.model;
 
 /** Mutable object representing the current location and state of the agent. */
 class Agent {
+   private int x;
+   private int y;
+   /** Created on demand, by {@link #getLocation()}, as the agent's location is mostly only needed as x and y values. */
    private Coordinate location;
    private Direction direction = Direction.NORTH;
    private AgentState state = AgentState.ACTIVE;
@@ -9,9 +12,22 @@ class Agent {
    private boolean hasGold;
 
    Agent(Coordinate home) {
+      this.x = home.getX();
+      this.y = home.getY();
       this.location = home;
    }
 
+   /** Creates a copy of the given agent, which is unaffected by later changes to the original. */
+   Agent(Agent agent) {
+      this.x = agent.x;
+      this.y = agent.y;
+      this.location = agent.location;
+      this.direction = agent.direction;
+      this.state = agent.state;
+      this.arrow = agent.arrow;
+      this.hasGold = agent.hasGold;
+   }
+
    AgentState getState() {
       return state;
    }
@@ -21,11 +37,24 @@ class Agent {
    }
 
    Coordinate getLocation() {
+      if (location == null) {
+         location = new Coordinate(x, y);
+      }
       return location;
    }
 
-   void setLocation(Coordinate location) {
-      this.location = location;
+   int getX() {
+      return x;
+   }
+
+   int getY() {
+      return y;
+   }
+
+   void setLocation(int x, int y) {
+      this.x = x;
+      this.y = y;
+      this.location = null;
    }
 
    Direction getDirection() {
@@ -0,0 +1,313 @@
+package org.projog.wumpus.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A maze with no boundaries, whose contents are generated as they are needed.
+ * <p>
+ * The maze is divided into square chunks. The pits and walls of a chunk are generated, from the seed of the maze and
+ * the position of the chunk, the first time a location in the chunk is accessed - e.g. when the agent enters or
+ * perceives a location in it. As a chunk is always generated with the same contents, chunks far from the area currently
+ * being accessed can be discarded and later regenerated. This keeps the memory used proportional to the area explored
+ * rather than the size of the maze.
+ * <p>
+ * Home is at {@code 0,0}. Gold and the wumpus are placed within a given distance of home. As the maze is unbounded,
+ * {@link #getPits()} and {@link #getWalls()} only return the pits and walls of the chunks currently in memory, and the
+ * bounds of the maze are those of the area gold and the wumpus can be placed in.
+ * <p>
+ * A chunked maze can be used by multiple threads at once.
+ */
+public final class ChunkedMaze extends Maze {
+   private static final Comparator<Coordinate> ORDER = Comparator.comparingInt(Coordinate::getY).thenComparingInt(Coordinate::getX);
+   private static final Coordinate HOME = new Coordinate(0, 0);
+
+   private final long seed;
+   private final int radius;
+   private final int shift;
+   private final int mask;
+   private final int pitThreshold;
+   private final int wallThreshold;
+   private final int maxChunks;
+   /** Ordered from least to most recently accessed. */
+   private final Map<Long, Chunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+   /**
+    * The most recently accessed chunk - as consecutive lookups are usually of the same chunk. It was moved to the end of
+    * {@link #chunks} when it was looked up, so returning it without a lookup leaves the access order correct.
+    */
+   private Chunk lastChunk;
+   private long lastKey;
+   private long generated;
+
+   private ChunkedMaze(ChunkedMazeBuilder builder, Coordinate gold, Coordinate wumpus) {
+      super(HOME, gold, wumpus);
+      this.seed = builder.seed;
+      this.radius = builder.radius;
+      this.shift = Integer.numberOfTrailingZeros(builder.chunkSize);
+      this.mask = builder.chunkSize - 1;
+      // the densities as thresholds for random int values, so each location only requires one random number
+      this.pitThreshold = toThreshold(builder.pitDensity);
+      this.wallThreshold = toThreshold(builder.pitDensity + builder.wallDensity);
+      this.maxChunks = builder.maxChunks;
+   }
+
+   private static int toThreshold(double density) {
+      return (int) Math.round(density * (1 << 30));
+   }
+
+   @Override
+   boolean isPit(int x, int y) {
+      return getChunk(x, y).isSet(pitIndex(x, y));
+   }
+
+   @Override
+   boolean isWall(int x, int y) {
+      return getChunk(x, y).isSet(wallIndex(x, y));
+   }
+
+   private int pitIndex(int x, int y) {
+      return ((y & mask) << shift) + (x & mask);
+   }
+
+   /** Walls are recorded after the pits, in the same bitset. */
+   private int wallIndex(int x, int y) {
+      return (1 << (shift * 2)) + pitIndex(x, y);
+   }
+
+   private synchronized Chunk getChunk(int x, int y) {
+      int cx = x >> shift;
+      int cy = y >> shift;
+      long key = Coordinate.pack(cx, cy);
+      if (lastChunk != null && lastKey == key) {
+         return lastChunk;
+      }
+      Chunk chunk = chunks.get(key);
+      if (chunk == null) {
+         chunk = generate(cx, cy);
+         if (maxChunks > 0 && chunks.size() == maxChunks) {
+            discardFarthest(cx, cy);
+         }
+         chunks.put(key, chunk);
+         generated++;
+      }
+      lastKey = key;
+      lastChunk = chunk;
+      return chunk;
+   }
+
+   /**
+    * Discards the chunk farthest from the given chunk - which is where the maze is being accessed, e.g. around the agent.
+    * Of the chunks equally far away, the least recently accessed is discarded.
+    */
+   private void discardFarthest(int cx, int cy) {
+      long farthestKey = 0;
+      int farthestDistance = -1;
+      for (long key : chunks.keySet()) {
+         int distance = Math.max(Math.abs(Coordinate.unpackX(key) - cx), Math.abs(Coordinate.unpackY(key) - cy));
+         if (distance > farthestDistance) {
+            farthestKey = key;
+            farthestDistance = distance;
+         }
+      }
+      if (chunks.remove(farthestKey) == lastChunk) {
+         lastChunk = null;
+      }
+   }
+
+   private Chunk generate(int cx, int cy) {
+      SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + Coordinate.pack(cx, cy));
+      int size = mask + 1;
+      Chunk chunk = new Chunk(size * size * 2);
+      for (int ly = 0; ly < size; ly++) {
+         for (int lx = 0; lx < size; lx++) {
+            int r = random.nextInt(1 << 30);
+            int x = (cx << shift) + lx;
+            int y = (cy << shift) + ly;
+            if (r < wallThreshold && !isReserved(x, y)) {
+               chunk.set(r < pitThreshold ? pitIndex(x, y) : wallIndex(x, y));
+            }
+         }
+      }
+      return chunk;
+   }
+
+   /** Home, gold and the wumpus are never in the same location as a pit or wall. */
+   private boolean isReserved(int x, int y) {
+      return getHome().isLocated(x, y) || isGold(x, y) || isWumpus(x, y);
+   }
+
+   @Override
+   public int getMinX() {
+      return -radius;
+   }
+
+   @Override
+   public int getMinY() {
+      return -radius;
+   }
+
+   @Override
+   public int getMaxX() {
+      return radius;
+   }
+
+   @Override
+   public int getMaxY() {
+      return radius;
+   }
+
+   /** Returns the number of chunks currently in memory. */
+   public synchronized int getLoadedChunks() {
+      return chunks.size();
+   }
+
+   /** Returns the number of times a chunk has been generated - including chunks that were discarded and regenerated. */
+   public synchronized long getGeneratedChunks() {
+      return generated;
+   }
+
+   /** Returns the pits of the chunks currently in memory, ordered by y and then x. */
+   @Override
+   List<Coordinate> getPits() {
+      return getLoaded(false);
+   }
+
+   /** Returns the walls of the chunks currently in memory, ordered by y and then x. */
+   @Override
+   List<Coordinate> getWalls() {
+      return getLoaded(true);
+   }
+
+   private synchronized List<Coordinate> getLoaded(boolean walls) {
+      int size = mask + 1;
+      int offset = walls ? size * size : 0;
+      List<Coordinate> result = new ArrayList<>();
+      for (Map.Entry<Long, Chunk> e : chunks.entrySet()) {
+         int cx = Coordinate.unpackX(e.getKey());
+         int cy = Coordinate.unpackY(e.getKey());
+         for (int i = 0; i < size * size; i++) {
+            if (e.getValue().isSet(offset + i)) {
+               result.add(new Coordinate((cx << shift) + (i & mask), (cy << shift) + (i >> shift)));
+            }
+         }
+      }
+      result.sort(ORDER);
+      return result;
+   }
+
+   /** The pits and walls of a chunk, recorded in a single bitset. */
+   private static final class Chunk {
+      private final long[] bits;
+
+      Chunk(int size) {
+         bits = new long[(size + 63) >>> 6];
+      }
+
+      void set(int i) {
+         bits[i >>> 6] |= 1L << i;
+      }
+
+      boolean isSet(int i) {
+         return (bits[i >>> 6] & (1L << i)) != 0;
+      }
+   }
+
+   public static class ChunkedMazeBuilder {
+      private final long seed;
+      private int chunkSize = 64;
+      private double pitDensity;
+      private double wallDensity;
+      private int radius = 8;
+      private boolean gold = true;
+      private boolean wumpus = true;
+      private int maxChunks;
+
+      /** @param seed identifies the maze - the same seed, and settings, always result in the same maze */
+      public ChunkedMazeBuilder(long seed) {
+         this.seed = seed;
+      }
+
+      /** Sets the width and height of each chunk - must be a power of 2. Defaults to 64. */
+      public ChunkedMazeBuilder chunkSize(int chunkSize) {
+         if (chunkSize < 1 || chunkSize > 1 << 12 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize);
+         }
+         this.chunkSize = chunkSize;
+         return this;
+      }
+
+      /** Sets the probability, from 0 to 1, of a location containing a pit. */
+      public ChunkedMazeBuilder pitDensity(double pitDensity) {
+         this.pitDensity = checkDensity(pitDensity);
+         return this;
+      }
+
+      /** Sets the probability, from 0 to 1, of a location containing a wall. */
+      public ChunkedMazeBuilder wallDensity(double wallDensity) {
+         this.wallDensity = checkDensity(wallDensity);
+         return this;
+      }
+
+      private static double checkDensity(double density) {
+         if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("density: " + density);
+         }
+         return density;
+      }
+
+      /** Sets the maximum distance, along each axis, of gold and the wumpus from home. Defaults to 8. */
+      public ChunkedMazeBuilder radius(int radius) {
+         if (radius < 1) {
+            throw new IllegalArgumentException("radius: " + radius);
+         }
+         this.radius = radius;
+         return this;
+      }
+
+      /** Sets whether the maze contains gold. */
+      public ChunkedMazeBuilder gold(boolean gold) {
+         this.gold = gold;
+         return this;
+      }
+
+      /** Sets whether the maze contains a wumpus. */
+      public ChunkedMazeBuilder wumpus(boolean wumpus) {
+         this.wumpus = wumpus;
+         return this;
+      }
+
+      /**
+       * Sets the maximum number of chunks to keep in memory. When exceeded, the chunk farthest from the chunk being
+       * accessed is discarded - or, of those equally far, the least recently accessed. Defaults to 0, meaning chunks are
+       * never discarded.
+       */
+      public ChunkedMazeBuilder maxChunks(int maxChunks) {
+         if (maxChunks < 0) {
+            throw new IllegalArgumentException("maxChunks: " + maxChunks);
+         }
+         this.maxChunks = maxChunks;
+         return this;
+      }
+
+      public ChunkedMaze build() {
+         if (pitDensity + wallDensity > 1) {
+            throw new IllegalStateException("pitDensity: " + pitDensity + " + wallDensity: " + wallDensity + " > 1");
+         }
+         SplittableRandom random = new SplittableRandom(seed);
+         Coordinate goldLocation = randomLocation(random);
+         Coordinate wumpusLocation = randomLocation(random);
+         while (wumpusLocation.equals(HOME)) {
+            wumpusLocation = randomLocation(random);
+         }
+         return new ChunkedMaze(this, gold ? goldLocation : null, wumpus ? wumpusLocation : null);
+      }
+
+      private Coordinate randomLocation(SplittableRandom random) {
+         return new Coordinate(random.nextInt(-radius, radius + 1), random.nextInt(-radius, radius + 1));
+      }
+   }
+}
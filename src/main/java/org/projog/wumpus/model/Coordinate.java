@@ -10,6 +10,33 @@ public class Coordinate {
       this.y = y;
    }
 
+   /** Returns a single {@code long} value that uniquely represents the given x and y values. */
+   public static long pack(int x, int y) {
+      return ((long) x << 32) | (y & 0xFFFFFFFFL);
+   }
+
+   /** Returns the x value of a value returned by {@link #pack(int, int)}. */
+   public static int unpackX(long packed) {
+      return (int) (packed >> 32);
+   }
+
+   /** Returns the y value of a value returned by {@link #pack(int, int)}. */
+   public static int unpackY(long packed) {
+      return (int) packed;
+   }
+
+   public int getX() {
+      return x;
+   }
+
+   public int getY() {
+      return y;
+   }
+
+   boolean isLocated(int x, int y) {
+      return this.x == x && this.y == y;
+   }
+
    Coordinate move(Direction d) {
       return new Coordinate(x + d.getX(), y + d.getY());
    }
@@ -0,0 +1,171 @@
+package org.projog.wumpus.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A set of coordinates that does not require a {@link Coordinate} object to be created to check if it contains a
+ * location.
+ * <p>
+ * Coordinates are stored in a dense array, as packed {@code long} values, so they can be iterated over by position. An
+ * open-addressed hash table, using linear probing, maps each packed value to its position. Removing a member moves the
+ * last member into its position, so the order of iteration is only the order members were added if no members have been
+ * removed.
+ */
+public final class CoordinateSet {
+   private static final int MIN_CAPACITY = 8;
+
+   /** The members of the set, packed using {@link Coordinate#pack(int, int)}. */
+   private long[] keys = new long[MIN_CAPACITY / 2];
+   /** Each slot is either 0, if unused, or one more than the position in {@link #keys} of the key it refers to. */
+   private int[] table;
+   private int mask;
+   private int shift;
+   private int size;
+
+   public CoordinateSet() {
+      allocate(MIN_CAPACITY);
+   }
+
+   private void allocate(int capacity) {
+      table = new int[capacity];
+      mask = capacity - 1;
+      shift = Long.numberOfLeadingZeros(capacity - 1);
+   }
+
+   /** @return {@code true} if the coordinate was not already a member */
+   public boolean add(Coordinate c) {
+      return add(c.getX(), c.getY());
+   }
+
+   /** @return {@code true} if the location was not already a member */
+   public boolean add(int x, int y) {
+      long key = Coordinate.pack(x, y);
+      int i = indexOf(key);
+      if (table[i] != 0) {
+         return false;
+      }
+      if (size == keys.length) {
+         keys = Arrays.copyOf(keys, size * 2);
+      }
+      keys[size++] = key;
+      table[i] = size;
+      // keep at least half of the slots empty so probe sequences stay short
+      if (size * 2 > table.length) {
+         rehash(table.length * 2);
+      }
+      return true;
+   }
+
+   public boolean contains(Coordinate c) {
+      return contains(c.getX(), c.getY());
+   }
+
+   public boolean contains(int x, int y) {
+      return table[indexOf(Coordinate.pack(x, y))] != 0;
+   }
+
+   /** Returns the position of the location, from 0 to {@link #size()} - 1, or -1 if it is not a member. */
+   public int positionOf(int x, int y) {
+      return table[indexOf(Coordinate.pack(x, y))] - 1;
+   }
+
+   /** @return {@code true} if the location was a member */
+   public boolean remove(int x, int y) {
+      int i = indexOf(Coordinate.pack(x, y));
+      int position = table[i] - 1;
+      if (position == -1) {
+         return false;
+      }
+      deleteSlot(i);
+      size--;
+      if (position != size) {
+         // move the last member into the position of the removed member
+         long last = keys[size];
+         keys[position] = last;
+         table[indexOf(last)] = position + 1;
+      }
+      return true;
+   }
+
+   /** Empties the slot, moving later members of the same probe sequence back so they can still be found. */
+   private void deleteSlot(int i) {
+      int j = i;
+      while (true) {
+         j = (j + 1) & mask;
+         int t = table[j];
+         if (t == 0) {
+            break;
+         }
+         int home = hash(keys[t - 1]);
+         // can the member in slot j be moved to slot i without being placed before the start of its probe sequence?
+         if (((j - home) & mask) >= ((j - i) & mask)) {
+            table[i] = t;
+            i = j;
+         }
+      }
+      table[i] = 0;
+   }
+
+   public void clear() {
+      if (size > 0) {
+         Arrays.fill(table, 0);
+         size = 0;
+      }
+   }
+
+   public int size() {
+      return size;
+   }
+
+   public boolean isEmpty() {
+      return size == 0;
+   }
+
+   /** Returns the x value of the member at the given position, from 0 to {@link #size()} - 1. */
+   public int getX(int position) {
+      return Coordinate.unpackX(keys[position]);
+   }
+
+   /** Returns the y value of the member at the given position, from 0 to {@link #size()} - 1. */
+   public int getY(int position) {
+      return Coordinate.unpackY(keys[position]);
+   }
+
+   /** Returns the slot that either refers to the key or, if the key is not a member, is the slot it should use. */
+   private int indexOf(long key) {
+      int i = hash(key);
+      int t;
+      while ((t = table[i]) != 0 && keys[t - 1] != key) {
+         i = (i + 1) & mask;
+      }
+      return i;
+   }
+
+   private int hash(long key) {
+      // fibonacci hashing - multiply by 2^64 divided by the golden ratio and use the high bits
+      return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift) & mask;
+   }
+
+   private void rehash(int capacity) {
+      allocate(capacity);
+      for (int k = 0; k < size; k++) {
+         table[indexOf(keys[k])] = k + 1;
+      }
+   }
+
+   /** Returns the members of this set as {@link Coordinate} objects, added to the result in order of their position. */
+   Set<Coordinate> toCoordinates() {
+      Set<Coordinate> result = new LinkedHashSet<>();
+      for (int k = 0; k < size; k++) {
+         result.add(new Coordinate(getX(k), getY(k)));
+      }
+      return result;
+   }
+
+   @Override
+   public String toString() {
+      return toCoordinates().toString();
+   }
+}
@@ -7,6 +7,9 @@ public enum Direction {
    SOUTH(0, 1),
    WEST(-1, 0);
 
+   /** Cached copy of {@link #values()}, as each call to {@code values()} returns a new array. */
+   private static final Direction[] VALUES = values();
+
    private final int x;
    private final int y;
 
@@ -17,16 +20,16 @@ public enum Direction {
 
    Direction right() {
       int i = ordinal() + 1;
-      if (i == values().length)
+      if (i == VALUES.length)
          i = 0;
-      return values()[i];
+      return VALUES[i];
    }
 
    Direction left() {
       int i = ordinal();
       if (i == 0)
-         i = values().length;
-      return values()[i - 1];
+         i = VALUES.length;
+      return VALUES[i - 1];
    }
 
    int getX() {
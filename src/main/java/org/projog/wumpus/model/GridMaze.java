@@ -0,0 +1,179 @@
+package org.projog.wumpus.model;
+
+import static org.projog.wumpus.model.Percept.BREEZE;
+import static org.projog.wumpus.model.Percept.STENCH;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A maze whose pits and walls are recorded in bitsets covering a rectangular area.
+ * <p>
+ * Each location in the area maps to a single bit, so checking for a pit or wall is a bounds check and a bit test.
+ * Locations outside of the area never contain a pit or wall. The area can start at negative coordinates.
+ * <p>
+ * The BREEZE and STENCH percepts for every location in the area are calculated when the maze is created, so they can
+ * be retrieved with a single array lookup rather than by checking the contents of every adjacent location.
+ */
+final class GridMaze extends Maze {
+   /** The largest area supported, as each bitset requires a bit for every location in the area. */
+   static final long MAX_CELLS = 1L << 26;
+
+   private final int minX;
+   private final int minY;
+   private final int width;
+   private final int height;
+   private final long[] pits;
+   private final long[] walls;
+   /** The percept mask of every location in the area, indexed in the same way as the bitsets. */
+   private final byte[] percepts;
+
+   GridMaze(Coordinate home, Coordinate gold, Coordinate wumpus, int minX, int minY, int width, int height, Collection<Coordinate> pits,
+               Collection<Coordinate> walls) {
+      this(home, gold, wumpus, minX, minY, width, height, toBitset(minX, minY, width, height, pits), toBitset(minX, minY, width, height, walls));
+   }
+
+   /** The bitsets are used directly, rather than copied, so must not be altered after being passed to this constructor. */
+   GridMaze(Coordinate home, Coordinate gold, Coordinate wumpus, int minX, int minY, int width, int height, long[] pits, long[] walls) {
+      super(home, gold, wumpus);
+      if (width < 1 || height < 1 || (long) width * height > MAX_CELLS) {
+         throw new IllegalArgumentException("width: " + width + " height: " + height);
+      }
+      if (pits.length != bitsetLength(width, height) || walls.length != bitsetLength(width, height)) {
+         throw new IllegalArgumentException("bitsets do not match area");
+      }
+      this.minX = minX;
+      this.minY = minY;
+      this.width = width;
+      this.height = height;
+      this.pits = pits;
+      this.walls = walls;
+      this.percepts = createPerceptMasks(wumpus);
+   }
+
+   private byte[] createPerceptMasks(Coordinate wumpus) {
+      byte[] masks = new byte[width * height];
+      for (int w = 0; w < pits.length; w++) {
+         long word = pits[w];
+         while (word != 0) {
+            int i = (w << 6) + Long.numberOfTrailingZeros(word);
+            addToAdjacent(masks, minX + i % width, minY + i / width, BREEZE.mask());
+            word &= word - 1;
+         }
+      }
+      if (wumpus != null) {
+         addToAdjacent(masks, wumpus.getX(), wumpus.getY(), STENCH.mask());
+         addTo(masks, wumpus.getX(), wumpus.getY(), STENCH.mask());
+      }
+      return masks;
+   }
+
+   private void addToAdjacent(byte[] masks, int x, int y, int mask) {
+      addTo(masks, x, y - 1, mask);
+      addTo(masks, x + 1, y, mask);
+      addTo(masks, x, y + 1, mask);
+      addTo(masks, x - 1, y, mask);
+   }
+
+   private void addTo(byte[] masks, int x, int y, int mask) {
+      int i = index(x, y);
+      if (i != -1) {
+         masks[i] |= mask;
+      }
+   }
+
+   /** Returns the number of {@code long} values required for a bitset with a bit for every location in the area. */
+   static int bitsetLength(int width, int height) {
+      return (int) (((long) width * height + 63) >>> 6);
+   }
+
+   private static long[] toBitset(int minX, int minY, int width, int height, Collection<Coordinate> locations) {
+      long[] bitset = new long[bitsetLength(width, height)];
+      for (Coordinate c : locations) {
+         int i = index(minX, minY, width, height, c.getX(), c.getY());
+         if (i == -1) {
+            throw new IllegalArgumentException(c + " is outside of area");
+         }
+         bitset[i >>> 6] |= 1L << i;
+      }
+      return bitset;
+   }
+
+   /** Returns the position of the bit that represents the location, or -1 if the location is outside of the area. */
+   private int index(int x, int y) {
+      return index(minX, minY, width, height, x, y);
+   }
+
+   private static int index(int minX, int minY, int width, int height, int x, int y) {
+      int dx = x - minX;
+      int dy = y - minY;
+      if (dx < 0 || dy < 0 || dx >= width || dy >= height) {
+         return -1;
+      }
+      return dy * width + dx;
+   }
+
+   private static boolean isSet(long[] bitset, int i) {
+      return i != -1 && (bitset[i >>> 6] & (1L << i)) != 0;
+   }
+
+   @Override
+   boolean isPit(int x, int y) {
+      return isSet(pits, index(x, y));
+   }
+
+   @Override
+   boolean isWall(int x, int y) {
+      return isSet(walls, index(x, y));
+   }
+
+   @Override
+   public int getMinX() {
+      return minX;
+   }
+
+   @Override
+   public int getMinY() {
+      return minY;
+   }
+
+   @Override
+   public int getMaxX() {
+      return minX + width - 1;
+   }
+
+   @Override
+   public int getMaxY() {
+      return minY + height - 1;
+   }
+
+   @Override
+   int getPerceptMask(int x, int y) {
+      int i = index(x, y);
+      return i == -1 ? super.getPerceptMask(x, y) : percepts[i];
+   }
+
+   @Override
+   List<Coordinate> getPits() {
+      return toCoordinates(pits);
+   }
+
+   @Override
+   List<Coordinate> getWalls() {
+      return toCoordinates(walls);
+   }
+
+   private List<Coordinate> toCoordinates(long[] bitset) {
+      List<Coordinate> result = new ArrayList<>();
+      for (int w = 0; w < bitset.length; w++) {
+         long word = bitset[w];
+         while (word != 0) {
+            int i = (w << 6) + Long.numberOfTrailingZeros(word);
+            result.add(new Coordinate(minX + i % width, minY + i / width));
+            word &= word - 1;
+         }
+      }
+      return result;
+   }
+}
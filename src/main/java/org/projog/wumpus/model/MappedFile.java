@@ -0,0 +1,44 @@
+package org.projog.wumpus.model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only access to a region of a file, of any length, that has been memory-mapped.
+ * <p>
+ * As a single {@link MappedByteBuffer} cannot be larger than 2GB, the region is mapped as a number of fixed-size
+ * segments. The segments are mapped up front, but the contents of the file are only loaded as they are accessed.
+ */
+final class MappedFile {
+   private static final int SEGMENT_SHIFT = 30;
+   private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+   private final MappedByteBuffer[] segments;
+   private final long length;
+
+   /** The mappings remain valid after the channel is closed. */
+   MappedFile(FileChannel channel, long position, long length) throws IOException {
+      this.length = length;
+      this.segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+      for (int i = 0; i < segments.length; i++) {
+         long start = (long) i << SEGMENT_SHIFT;
+         segments[i] = channel.map(MapMode.READ_ONLY, position + start, Math.min(SEGMENT_MASK + 1, length - start));
+      }
+   }
+
+   long length() {
+      return length;
+   }
+
+   /** Returns the byte at the given position, relative to the start of the region. */
+   byte get(long position) {
+      return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+   }
+
+   /** Returns bit {@code i % 8} of byte {@code offset + i / 8}. */
+   boolean isSet(long offset, long i) {
+      return (get(offset + (i >>> 3)) & (1 << (i & 7))) != 0;
+   }
+}
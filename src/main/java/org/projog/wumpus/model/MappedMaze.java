@@ -0,0 +1,301 @@
+package org.projog.wumpus.model;
+
+import static org.projog.wumpus.model.MazeCorpusFormat.GOLD_FLAG;
+import static org.projog.wumpus.model.MazeCorpusFormat.HEADER_LENGTH;
+import static org.projog.wumpus.model.MazeCorpusFormat.WUMPUS_FLAG;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A maze whose contents are read, as required, from a memory-mapped file.
+ * <p>
+ * Used for single mazes that are too large to be represented by a {@link GridMaze} - e.g. 10,000x10,000 locations or
+ * more. Rather than being copied into the heap, the contents of the file are loaded by the operating system as they are
+ * accessed. Locations outside of the area covered by the file never contain a pit or wall.
+ * <p>
+ * Two file formats are supported:
+ * <ul>
+ * <li>Text, read by {@link #readAscii(Path)}, with a byte for every location.</li>
+ * <li>Binary, read by {@link #readBinary(Path)}, with a bit for every location. This is the format written by
+ * {@link MazeCorpusWriter} - if the file contains more than one maze then only the first is used.</li>
+ * </ul>
+ */
+public abstract class MappedMaze extends Maze {
+   private final int minX;
+   private final int minY;
+   private final int width;
+   private final int height;
+
+   private MappedMaze(Coordinate home, Coordinate gold, Coordinate wumpus, int minX, int minY, int width, int height) {
+      super(home, gold, wumpus);
+      this.minX = minX;
+      this.minY = minY;
+      this.width = width;
+      this.height = height;
+   }
+
+   /**
+    * Reads a maze from a text file with a line for each row and a character for each location.
+    * <p>
+    * The first character of the first line is location {@code 0,0}, and every line must be the same length. Characters
+    * are:
+    * <ul>
+    * <li>{@code .} an empty location</li>
+    * <li>{@code #} a wall</li>
+    * <li>{@code P} a pit</li>
+    * <li>{@code H} home</li>
+    * <li>{@code G} gold</li>
+    * <li>{@code W} the wumpus</li>
+    * <li>{@code h} home and gold</li>
+    * <li>{@code w} the wumpus and gold</li>
+    * </ul>
+    * The whole file is scanned once, to validate it and find the locations of home, gold and the wumpus.
+    *
+    * @throws IOException if the file cannot be read or does not contain a valid maze
+    */
+   public static Maze readAscii(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         return new AsciiParser(path, new MappedFile(channel, 0, channel.size())).parse();
+      }
+   }
+
+   /**
+    * Reads the first maze from a file in the format written by {@link MazeCorpusWriter}.
+    *
+    * @throws IOException if the file cannot be read or does not contain a maze
+    */
+   public static Maze readBinary(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         MazeCorpusFormat format = MazeCorpusFormat.read(channel, path);
+         if (channel.size() < HEADER_LENGTH + format.recordLength) {
+            throw new IOException("Incomplete record in " + path);
+         }
+         MappedFile file = new MappedFile(channel, HEADER_LENGTH, format.recordLength);
+         return new BinaryMaze(file, format);
+      }
+   }
+
+   /** Returns the position of the location within the area, or -1 if the location is outside of the area. */
+   final long index(int x, int y) {
+      long dx = (long) x - minX;
+      long dy = (long) y - minY;
+      if (dx < 0 || dy < 0 || dx >= width || dy >= height) {
+         return -1;
+      }
+      return dy * width + dx;
+   }
+
+   @Override
+   public int getMinX() {
+      return minX;
+   }
+
+   @Override
+   public int getMinY() {
+      return minY;
+   }
+
+   @Override
+   public int getMaxX() {
+      return minX + width - 1;
+   }
+
+   @Override
+   public int getMaxY() {
+      return minY + height - 1;
+   }
+
+   @Override
+   List<Coordinate> getPits() {
+      List<Coordinate> result = new ArrayList<>();
+      for (int y = minY; y < minY + height; y++) {
+         for (int x = minX; x < minX + width; x++) {
+            if (isPit(x, y)) {
+               result.add(new Coordinate(x, y));
+            }
+         }
+      }
+      return result;
+   }
+
+   @Override
+   List<Coordinate> getWalls() {
+      List<Coordinate> result = new ArrayList<>();
+      for (int y = minY; y < minY + height; y++) {
+         for (int x = minX; x < minX + width; x++) {
+            if (isWall(x, y)) {
+               result.add(new Coordinate(x, y));
+            }
+         }
+      }
+      return result;
+   }
+
+   /** A maze read from a text file, with a byte for every location. */
+   private static final class AsciiMaze extends MappedMaze {
+      private final MappedFile file;
+      /** The number of bytes in each line, including the line terminator. */
+      private final long lineLength;
+
+      AsciiMaze(MappedFile file, long lineLength, Coordinate home, Coordinate gold, Coordinate wumpus, int width, int height) {
+         super(home, gold, wumpus, 0, 0, width, height);
+         this.file = file;
+         this.lineLength = lineLength;
+      }
+
+      private byte get(int x, int y) {
+         return index(x, y) == -1 ? (byte) '.' : file.get(y * lineLength + x);
+      }
+
+      @Override
+      boolean isPit(int x, int y) {
+         return get(x, y) == 'P';
+      }
+
+      @Override
+      boolean isWall(int x, int y) {
+         return get(x, y) == '#';
+      }
+   }
+
+   /** Validates a text file and finds the locations of home, gold and the wumpus. */
+   private static final class AsciiParser {
+      private final Path path;
+      private final MappedFile file;
+      private Coordinate home;
+      private Coordinate gold;
+      private Coordinate wumpus;
+
+      AsciiParser(Path path, MappedFile file) {
+         this.path = path;
+         this.file = file;
+      }
+
+      Maze parse() throws IOException {
+         long width = 0;
+         while (width < file.length() && file.get(width) != '\n') {
+            width++;
+         }
+         int terminatorLength = width < file.length() ? 1 : 0;
+         if (width > 0 && width < file.length() && file.get(width - 1) == '\r') {
+            width--;
+            terminatorLength++;
+         }
+         if (width == 0) {
+            throw new IOException("No locations in " + path);
+         }
+         long lineLength = width + terminatorLength;
+         // the last line does not have to be terminated
+         long height = (file.length() + terminatorLength) / lineLength;
+         if (height * lineLength - terminatorLength != file.length() && height * lineLength != file.length()) {
+            throw new IOException("Lines of different lengths in " + path);
+         }
+         if (width > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+            throw new IOException("Too many locations in " + path);
+         }
+
+         for (int y = 0; y < height; y++) {
+            long start = y * lineLength;
+            for (int x = 0; x < width; x++) {
+               parse(file.get(start + x), x, y);
+            }
+            if (terminatorLength > 0 && start + lineLength <= file.length() && !isTerminator(start + width, terminatorLength)) {
+               throw new IOException("Lines of different lengths in " + path);
+            }
+         }
+         if (home == null) {
+            throw new IOException("No home in " + path);
+         }
+
+         return new AsciiMaze(file, lineLength, home, gold, wumpus, (int) width, (int) height);
+      }
+
+      private boolean isTerminator(long position, int terminatorLength) {
+         return terminatorLength == 1 ? file.get(position) == '\n' : file.get(position) == '\r' && file.get(position + 1) == '\n';
+      }
+
+      private void parse(byte b, int x, int y) throws IOException {
+         switch (b) {
+            case '.':
+            case '#':
+            case 'P':
+               break;
+            case 'H':
+               home = setOnce(home, x, y, "home");
+               break;
+            case 'G':
+               gold = setOnce(gold, x, y, "gold");
+               break;
+            case 'W':
+               wumpus = setOnce(wumpus, x, y, "wumpus");
+               break;
+            case 'h':
+               home = setOnce(home, x, y, "home");
+               gold = setOnce(gold, x, y, "gold");
+               break;
+            case 'w':
+               wumpus = setOnce(wumpus, x, y, "wumpus");
+               gold = setOnce(gold, x, y, "gold");
+               break;
+            case '\r':
+            case '\n':
+               throw new IOException("Lines of different lengths in " + path);
+            default:
+               throw new IOException("Unexpected character: " + (char) b + " at " + x + "," + y + " in " + path);
+         }
+      }
+
+      private Coordinate setOnce(Coordinate current, int x, int y, String name) throws IOException {
+         if (current != null) {
+            throw new IOException("More than one " + name + " in " + path);
+         }
+         return new Coordinate(x, y);
+      }
+   }
+
+   /** A maze read from a binary file, with a bit for every location. */
+   private static final class BinaryMaze extends MappedMaze {
+      private final MappedFile file;
+      private final long pitsOffset;
+      private final long wallsOffset;
+
+      BinaryMaze(MappedFile file, MazeCorpusFormat format) {
+         super(readLocation(file, format, 0), hasFlag(file, GOLD_FLAG) ? readLocation(file, format, 1) : null,
+                     hasFlag(file, WUMPUS_FLAG) ? readLocation(file, format, 2) : null, format.minX, format.minY, format.width, format.height);
+         this.file = file;
+         this.pitsOffset = 1 + 3 * format.indexWidth;
+         this.wallsOffset = pitsOffset + format.bitmapLength;
+      }
+
+      private static boolean hasFlag(MappedFile file, int flag) {
+         return (file.get(0) & flag) != 0;
+      }
+
+      /** Reads the location of home (0), gold (1) or the wumpus (2). */
+      private static Coordinate readLocation(MappedFile file, MazeCorpusFormat format, int position) {
+         long offset = 1 + position * format.indexWidth;
+         int index = 0;
+         for (int i = 0; i < format.indexWidth; i++) {
+            index = (index << 8) | (file.get(offset + i) & 0xFF);
+         }
+         return format.toCoordinate(index);
+      }
+
+      @Override
+      boolean isPit(int x, int y) {
+         long i = index(x, y);
+         return i != -1 && file.isSet(pitsOffset, i);
+      }
+
+      @Override
+      boolean isWall(int x, int y) {
+         long i = index(x, y);
+         return i != -1 && file.isSet(wallsOffset, i);
+      }
+   }
+}
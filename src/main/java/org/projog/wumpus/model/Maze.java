@@ -1,84 +1,125 @@
 package org.projog.wumpus.model;
 
 import static java.util.Objects.requireNonNull;
+import static org.projog.wumpus.model.Percept.BREEZE;
+import static org.projog.wumpus.model.Percept.STENCH;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-/** Immutable object representing the initial state of a maze to be explored by the agent. */
-public class Maze {
+/**
+ * Immutable object representing the initial state of a maze to be explored by the agent.
+ * <p>
+ * Mazes are created using {@link MazeBuilder}, which chooses the most suitable representation for the contents of the
+ * maze.
+ */
+public abstract class Maze {
    private final Coordinate home;
    private final Coordinate gold;
    private final Coordinate wumpus;
-   private final Set<Coordinate> pits;
-   private final Set<Coordinate> walls;
-
-   private Maze(MazeBuilder builder) {
-      this.home = requireNonNull(builder.home);
-      this.gold = builder.gold;
-      this.wumpus = builder.wumpus;
-      this.pits = requireNonNull(builder.pits);
-      this.walls = requireNonNull(builder.walls);
+
+   Maze(Coordinate home, Coordinate gold, Coordinate wumpus) {
+      this.home = requireNonNull(home);
+      this.gold = gold;
+      this.wumpus = wumpus;
    }
 
    Coordinate getHome() {
       return home;
    }
 
+   /** Returns the location of the gold, or {@code null} if the maze does not contain gold. */
+   public Coordinate getGold() {
+      return gold;
+   }
+
+   /** Returns the location of the wumpus, or {@code null} if the maze does not contain a wumpus. */
+   public Coordinate getWumpus() {
+      return wumpus;
+   }
+
    boolean isGold(Coordinate c) {
       return c.equals(gold);
    }
 
+   boolean isGold(int x, int y) {
+      return gold != null && gold.isLocated(x, y);
+   }
+
    boolean isWumpus(Coordinate c) {
       return c.equals(wumpus);
    }
 
+   boolean isWumpus(int x, int y) {
+      return wumpus != null && wumpus.isLocated(x, y);
+   }
+
    boolean isPit(Coordinate c) {
-      return pits.contains(c);
+      return isPit(c.getX(), c.getY());
    }
 
+   abstract boolean isPit(int x, int y);
+
    boolean isWall(Coordinate c) {
-      return walls.contains(c);
+      return isWall(c.getX(), c.getY());
+   }
+
+   abstract boolean isWall(int x, int y);
+
+   /**
+    * Returns the percepts, as a mask, caused by the contents of the maze at and around the given location.
+    * <p>
+    * These are the BREEZE and STENCH percepts - which, unlike the GLITTER, SCREAM and BUMP percepts, do not depend on
+    * the actions of the agent.
+    */
+   int getPerceptMask(int x, int y) {
+      int mask = 0;
+      if (isPit(x, y - 1) || isPit(x + 1, y) || isPit(x, y + 1) || isPit(x - 1, y)) {
+         mask |= BREEZE.mask();
+      }
+      if (isWumpus(x, y) || isWumpus(x, y - 1) || isWumpus(x + 1, y) || isWumpus(x, y + 1) || isWumpus(x - 1, y)) {
+         mask |= STENCH.mask();
+      }
+      return mask;
    }
 
+   /**
+    * Returns the smallest x value of the area that contains everything in the maze.
+    * <p>
+    * The area contains home, gold, the wumpus and all the pits and walls - or, for a maze without boundaries, the part of
+    * the maze that contains home, gold and the wumpus. The agent may be able to move outside of the area.
+    */
+   public abstract int getMinX();
+
+   /** Returns the smallest y value of the area that contains everything in the maze. */
+   public abstract int getMinY();
+
+   /** Returns the largest x value of the area that contains everything in the maze. */
+   public abstract int getMaxX();
+
+   /** Returns the largest y value of the area that contains everything in the maze. */
+   public abstract int getMaxY();
+
+   /** Returns the locations of all pits, ordered by y and then x. */
+   abstract List<Coordinate> getPits();
+
+   /** Returns the locations of all walls, ordered by y and then x. */
+   abstract List<Coordinate> getWalls();
+
    @Override
    public String toString() {
-      return "Maze [home=" + home + ", gold=" + gold + ", wumpus=" + wumpus + ", pits=" + pits + ", walls=" + walls + "]";
+      return "Maze [home=" + home + ", gold=" + gold + ", wumpus=" + wumpus + ", pits=" + getPits() + ", walls=" + getWalls() + "]";
    }
 
+   /** Returns a random 4x4 maze, surrounded by walls, containing gold, a wumpus, 2 pits and 1 other wall. */
    public static Maze buildRandom() {
-      MazeBuilder builder = new MazeBuilder();
-
-      int width = 4;
-      builder.boundary(0, width - 1, 0, width - 1);
-      List<Coordinate> cells = new ArrayList<>();
-      for (int x = 0; x < width; x++) {
-         for (int y = 0; y < width; y++) {
-            cells.add(new Coordinate(x, y));
-         }
-      }
-
-      // gold can be in same cell as wumpus or home but not pit or wall
-      // wumpus can be in same cell as gold but not home, pit or wall
-      // home can be in same cell as gold but not wumpus, pit or wall
-      Collections.shuffle(cells);
-      Coordinate gold = cells.get(0);
-      builder.gold(gold);
-      Collections.shuffle(cells);
-      builder.home(cells.remove(0));
-      builder.wumpus(cells.remove(0));
-      cells.remove(gold);
-
-      for (int i = 0; i < 2; i++) {
-         builder.pit(cells.remove(0));
-      }
-
-      builder.wall(cells.remove(0));
+      return new MazeGenerator(4, 4).pits(2).walls(1).generate();
+   }
 
-      return new Maze(builder);
+   /** Returns the 4x4 maze, as generated by {@link #buildRandom()}, identified by the given seed. */
+   public static Maze buildRandom(long seed) {
+      return new MazeGenerator(4, 4).pits(2).walls(1).generate(seed);
    }
 
    public static class MazeBuilder {
@@ -87,6 +128,18 @@ public class Maze {
       private Coordinate home;
       private Coordinate gold;
       private Coordinate wumpus;
+      // the bounds of every location that has been specified, so the size of the maze is known when it is built
+      private int minX = Integer.MAX_VALUE;
+      private int minY = Integer.MAX_VALUE;
+      private int maxX = Integer.MIN_VALUE;
+      private int maxY = Integer.MIN_VALUE;
+
+      private void include(Coordinate c) {
+         minX = Math.min(minX, c.getX());
+         minY = Math.min(minY, c.getY());
+         maxX = Math.max(maxX, c.getX());
+         maxY = Math.max(maxY, c.getY());
+      }
 
       public MazeBuilder home(int x, int y) {
          return home(new Coordinate(x, y));
@@ -94,6 +147,7 @@ public class Maze {
 
       public MazeBuilder home(Coordinate home) {
          this.home = home;
+         include(home);
          return this;
       }
 
@@ -103,6 +157,7 @@ public class Maze {
 
       public MazeBuilder gold(Coordinate gold) {
          this.gold = gold;
+         include(gold);
          return this;
       }
 
@@ -112,6 +167,7 @@ public class Maze {
 
       public MazeBuilder wumpus(Coordinate wumpus) {
          this.wumpus = wumpus;
+         include(wumpus);
          return this;
       }
 
@@ -121,6 +177,7 @@ public class Maze {
 
       public MazeBuilder pit(Coordinate pit) {
          this.pits.add(pit);
+         include(pit);
          return this;
       }
 
@@ -130,6 +187,7 @@ public class Maze {
 
       public MazeBuilder wall(Coordinate wall) {
          this.walls.add(wall);
+         include(wall);
          return this;
       }
 
@@ -146,7 +204,14 @@ public class Maze {
       }
 
       public Maze build() {
-         return new Maze(this);
+         requireNonNull(home);
+         long width = (long) maxX - minX + 1;
+         long height = (long) maxY - minY + 1;
+         if (width * height <= GridMaze.MAX_CELLS) {
+            return new GridMaze(home, gold, wumpus, minX, minY, (int) width, (int) height, pits, walls);
+         } else {
+            return new SparseMaze(home, gold, wumpus, pits, walls);
+         }
       }
    }
 }
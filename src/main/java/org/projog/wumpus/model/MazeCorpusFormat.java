@@ -0,0 +1,107 @@
+package org.projog.wumpus.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * The layout of the files written by {@link MazeCorpusWriter} and read by {@link MazeCorpusReader}.
+ * <p>
+ * A file starts with a header of six big-endian {@code int} values: {@link #MAGIC}, {@link #VERSION}, and the minimum
+ * x, minimum y, width and height of the area that all the mazes in the file are contained in. The header is followed by
+ * a fixed-size record for each maze, consisting of:
+ * <ol>
+ * <li>a byte of flags - {@link #GOLD_FLAG} and {@link #WUMPUS_FLAG} indicate if the maze contains gold and a wumpus</li>
+ * <li>the position of home, gold and the wumpus within the area - each big-endian and of {@link #indexWidth(int)}
+ * bytes, with gold and the wumpus being 0 if the maze does not contain them</li>
+ * <li>a bitmap of the pits, followed by a bitmap of the walls - each with a bit for every location in the area, the
+ * location at position {@code i} being represented by bit {@code i % 8} of byte {@code i / 8}</li>
+ * </ol>
+ * The position of the location {@code x,y} within the area is {@code (y - minY) * width + (x - minX)}.
+ */
+final class MazeCorpusFormat {
+   /** "WMZC" */
+   static final int MAGIC = 0x574D5A43;
+   static final int VERSION = 1;
+   static final int HEADER_LENGTH = 6 * Integer.BYTES;
+   static final int GOLD_FLAG = 1;
+   static final int WUMPUS_FLAG = 2;
+
+   final int minX;
+   final int minY;
+   final int width;
+   final int height;
+   final int indexWidth;
+   final int bitmapLength;
+   final int recordLength;
+
+   MazeCorpusFormat(int minX, int minY, int width, int height) {
+      if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE) {
+         throw new IllegalArgumentException("width: " + width + " height: " + height);
+      }
+      this.minX = minX;
+      this.minY = minY;
+      this.width = width;
+      this.height = height;
+      this.indexWidth = indexWidth(width * height);
+      this.bitmapLength = (int) (((long) width * height + 7) / 8);
+      this.recordLength = 1 + 3 * indexWidth + 2 * bitmapLength;
+   }
+
+   /**
+    * Reads the header at the start of the file.
+    *
+    * @throws IOException if the file does not start with a valid header
+    */
+   static MazeCorpusFormat read(FileChannel channel, Path path) throws IOException {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      while (header.hasRemaining()) {
+         if (channel.read(header, header.position()) == -1) {
+            throw new IOException("Not a maze corpus: " + path);
+         }
+      }
+      header.flip();
+      if (header.getInt() != MAGIC) {
+         throw new IOException("Not a maze corpus: " + path);
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+         throw new IOException("Unsupported version: " + version + " of maze corpus: " + path);
+      }
+      try {
+         return new MazeCorpusFormat(header.getInt(), header.getInt(), header.getInt(), header.getInt());
+      } catch (IllegalArgumentException e) {
+         throw new IOException("Invalid header of maze corpus: " + path, e);
+      }
+   }
+
+   long cells() {
+      return (long) width * height;
+   }
+
+   /** Returns the number of bytes required to store the position of a location in an area of the given size. */
+   static int indexWidth(int cells) {
+      if (cells <= 1 << 8) {
+         return 1;
+      } else if (cells <= 1 << 16) {
+         return 2;
+      } else {
+         return 4;
+      }
+   }
+
+   /** Returns the position of the location within the area, or -1 if the location is outside of the area. */
+   int index(Coordinate c) {
+      int dx = c.getX() - minX;
+      int dy = c.getY() - minY;
+      if (dx < 0 || dy < 0 || dx >= width || dy >= height) {
+         return -1;
+      }
+      return dy * width + dx;
+   }
+
+   Coordinate toCoordinate(int index) {
+      return new Coordinate(minX + index % width, minY + index / width);
+   }
+}
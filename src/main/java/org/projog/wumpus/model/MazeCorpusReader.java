@@ -0,0 +1,125 @@
+package org.projog.wumpus.model;
+
+import static org.projog.wumpus.model.MazeCorpusFormat.GOLD_FLAG;
+import static org.projog.wumpus.model.MazeCorpusFormat.HEADER_LENGTH;
+import static org.projog.wumpus.model.MazeCorpusFormat.WUMPUS_FLAG;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Reads mazes from a file created by {@link MazeCorpusWriter}.
+ * <p>
+ * The file is memory-mapped rather than read into the heap, so only the parts of the file that are accessed are
+ * loaded, and a maze is only created when it is requested. As the file can be larger than a single mapping allows, it
+ * is mapped as a number of segments, each containing a whole number of records.
+ * <p>
+ * A reader can be used by multiple threads at once. As mappings remain valid until garbage collected, closing the
+ * reader does not immediately release the memory used by the mappings.
+ */
+public class MazeCorpusReader implements Closeable {
+   private final FileChannel channel;
+   private final MazeCorpusFormat format;
+   private final MappedByteBuffer[] segments;
+   private final int recordsPerSegment;
+   private final long size;
+
+   /**
+    * Opens the file at the given path.
+    *
+    * @throws IOException if the file cannot be read or is not a maze corpus
+    */
+   public MazeCorpusReader(Path path) throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+         format = MazeCorpusFormat.read(channel, path);
+         if (format.cells() > GridMaze.MAX_CELLS) {
+            throw new IOException("Area of " + format.width + "x" + format.height + " too large for maze corpus: " + path);
+         }
+         long dataLength = channel.size() - HEADER_LENGTH;
+         if (dataLength % format.recordLength != 0) {
+            throw new IOException("Incomplete record in " + path);
+         }
+         size = dataLength / format.recordLength;
+         recordsPerSegment = Integer.MAX_VALUE / format.recordLength;
+         segments = new MappedByteBuffer[(int) ((size + recordsPerSegment - 1) / recordsPerSegment)];
+         for (int i = 0; i < segments.length; i++) {
+            long first = (long) i * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, size - first);
+            segments[i] = channel.map(MapMode.READ_ONLY, HEADER_LENGTH + first * format.recordLength, records * format.recordLength);
+         }
+      } catch (IOException | RuntimeException e) {
+         channel.close();
+         throw e;
+      }
+   }
+
+   /** Returns the number of mazes in the file. */
+   public long size() {
+      return size;
+   }
+
+   /**
+    * Returns the maze at the given position in the file.
+    *
+    * @param index the position of the maze in the file, the first maze being at position 0
+    */
+   public Maze get(long index) {
+      if (index < 0 || index >= size) {
+         throw new IndexOutOfBoundsException("index: " + index + " size: " + size);
+      }
+      ByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+      int offset = (int) (index % recordsPerSegment) * format.recordLength;
+
+      int flags = segment.get(offset++);
+      Coordinate home = format.toCoordinate(readIndex(segment, offset));
+      offset += format.indexWidth;
+      Coordinate gold = (flags & GOLD_FLAG) == 0 ? null : format.toCoordinate(readIndex(segment, offset));
+      offset += format.indexWidth;
+      Coordinate wumpus = (flags & WUMPUS_FLAG) == 0 ? null : format.toCoordinate(readIndex(segment, offset));
+      offset += format.indexWidth;
+      long[] pits = readBitmap(segment, offset);
+      offset += format.bitmapLength;
+      long[] walls = readBitmap(segment, offset);
+
+      return new GridMaze(home, gold, wumpus, format.minX, format.minY, format.width, format.height, pits, walls);
+   }
+
+   private int readIndex(ByteBuffer segment, int offset) {
+      int index = 0;
+      for (int i = 0; i < format.indexWidth; i++) {
+         index = (index << 8) | (segment.get(offset + i) & 0xFF);
+      }
+      return index;
+   }
+
+   private long[] readBitmap(ByteBuffer segment, int offset) {
+      long[] bitset = new long[GridMaze.bitsetLength(format.width, format.height)];
+      for (int i = 0; i < format.bitmapLength; i++) {
+         bitset[i >>> 3] |= (segment.get(offset + i) & 0xFFL) << ((i & 7) * 8);
+      }
+      return bitset;
+   }
+
+   /**
+    * Returns a stream of the mazes in the file, in the order they were written.
+    * <p>
+    * Mazes are read as they are consumed. The stream can be processed in parallel.
+    */
+   public Stream<Maze> stream() {
+      return LongStream.range(0, size).mapToObj(this::get);
+   }
+
+   @Override
+   public void close() throws IOException {
+      channel.close();
+   }
+}
@@ -0,0 +1,138 @@
+package org.projog.wumpus.model;
+
+import static org.projog.wumpus.model.MazeCorpusFormat.GOLD_FLAG;
+import static org.projog.wumpus.model.MazeCorpusFormat.MAGIC;
+import static org.projog.wumpus.model.MazeCorpusFormat.VERSION;
+import static org.projog.wumpus.model.MazeCorpusFormat.WUMPUS_FLAG;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes mazes, one at a time, to a compact binary file that can be read by {@link MazeCorpusReader}.
+ * <p>
+ * Every maze written must be contained within the area specified when the writer is created. Each maze is written as
+ * a record of the same size - e.g. 14 bytes for a 4x4 maze surrounded by walls. See {@link MazeCorpusFormat} for the
+ * layout of the file.
+ */
+public class MazeCorpusWriter implements Closeable {
+   private final DataOutputStream out;
+   private final MazeCorpusFormat format;
+   private final byte[] record;
+   private long count;
+
+   /**
+    * Creates, or replaces, the file at the given path.
+    * <p>
+    * The area is checked before the file is created, so an invalid area leaves any existing file unchanged. If the
+    * header cannot be written then the file is closed and deleted.
+    *
+    * @see #MazeCorpusWriter(OutputStream, int, int, int, int)
+    */
+   public MazeCorpusWriter(Path path, int minX, int minY, int width, int height) throws IOException {
+      this.format = new MazeCorpusFormat(minX, minY, width, height);
+      this.record = new byte[format.recordLength];
+      OutputStream stream = Files.newOutputStream(path);
+      try {
+         this.out = writeHeader(stream, format);
+      } catch (IOException | RuntimeException e) {
+         try {
+            stream.close();
+            Files.deleteIfExists(path);
+         } catch (IOException suppressed) {
+            e.addSuppressed(suppressed);
+         }
+         throw e;
+      }
+   }
+
+   /**
+    * Writes the header to the given stream.
+    *
+    * @param out where to write the mazes to - closed when this writer is closed
+    * @param minX the minimum x value of the area that all mazes written will be contained in
+    * @param minY the minimum y value of the area that all mazes written will be contained in
+    * @param width the width of the area that all mazes written will be contained in
+    * @param height the height of the area that all mazes written will be contained in
+    */
+   public MazeCorpusWriter(OutputStream out, int minX, int minY, int width, int height) throws IOException {
+      this.format = new MazeCorpusFormat(minX, minY, width, height);
+      this.record = new byte[format.recordLength];
+      this.out = writeHeader(out, format);
+   }
+
+   private static DataOutputStream writeHeader(OutputStream stream, MazeCorpusFormat format) throws IOException {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(format.minX);
+      out.writeInt(format.minY);
+      out.writeInt(format.width);
+      out.writeInt(format.height);
+      return out;
+   }
+
+   /**
+    * Appends the maze to the file.
+    *
+    * @throws IllegalArgumentException if the maze is not contained within the area of this corpus
+    */
+   public void write(Maze maze) throws IOException {
+      Arrays.fill(record, (byte) 0);
+
+      Coordinate gold = maze.getGold();
+      Coordinate wumpus = maze.getWumpus();
+      record[0] = (byte) ((gold == null ? 0 : GOLD_FLAG) | (wumpus == null ? 0 : WUMPUS_FLAG));
+      int offset = 1;
+      offset = writeIndex(maze.getHome(), offset);
+      offset = writeIndex(gold, offset);
+      offset = writeIndex(wumpus, offset);
+      for (Coordinate pit : maze.getPits()) {
+         setBit(offset, pit);
+      }
+      offset += format.bitmapLength;
+      for (Coordinate wall : maze.getWalls()) {
+         setBit(offset, wall);
+      }
+
+      out.write(record);
+      count++;
+   }
+
+   private int writeIndex(Coordinate c, int offset) {
+      int index = c == null ? 0 : indexOf(c);
+      for (int i = format.indexWidth - 1; i >= 0; i--) {
+         record[offset++] = (byte) (index >>> (i * 8));
+      }
+      return offset;
+   }
+
+   private void setBit(int offset, Coordinate c) {
+      int index = indexOf(c);
+      record[offset + (index >>> 3)] |= 1 << (index & 7);
+   }
+
+   private int indexOf(Coordinate c) {
+      int index = format.index(c);
+      if (index == -1) {
+         throw new IllegalArgumentException(c + " is outside of area");
+      }
+      return index;
+   }
+
+   /** Returns the number of mazes written. */
+   public long getCount() {
+      return count;
+   }
+
+   @Override
+   public void close() throws IOException {
+      out.close();
+   }
+}
@@ -0,0 +1,253 @@
+package org.projog.wumpus.model;
+
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates random mazes of a given size.
+ * <p>
+ * Locations are chosen by random sampling, rather than by shuffling a list of every location, so mazes of 1000x1000
+ * locations and larger can be generated. The generated mazes follow the same rules as {@link Maze#buildRandom()}:
+ * <ul>
+ * <li>gold can be in same location as wumpus or home but not pit or wall</li>
+ * <li>wumpus can be in same location as gold but not home, pit or wall</li>
+ * <li>home can be in same location as gold but not wumpus, pit or wall</li>
+ * </ul>
+ * The locations are from {@code 0,0} to {@code width-1,height-1}. By default the maze is surrounded by walls and
+ * contains gold and a wumpus but no pits or other walls.
+ * <p>
+ * Generating a maze from a seed, using {@link #generate(long)} or {@link #stream(long, long)}, always produces the same
+ * maze for the same seed and settings - so the same set of mazes can be used to compare different versions of the
+ * agent. A generator can be used by multiple threads at once, as long as its settings are not changed.
+ */
+public class MazeGenerator {
+   private final int width;
+   private final int height;
+   private int pits;
+   private int walls;
+   private boolean wumpus = true;
+   private boolean gold = true;
+   private boolean boundary = true;
+
+   public MazeGenerator(int width, int height) {
+      if (width < 1 || height < 1 || ((long) width + 2) * ((long) height + 2) > GridMaze.MAX_CELLS) {
+         throw new IllegalArgumentException("width: " + width + " height: " + height);
+      }
+      this.width = width;
+      this.height = height;
+   }
+
+   /** Sets the number of pits. */
+   public MazeGenerator pits(int pits) {
+      if (pits < 0) {
+         throw new IllegalArgumentException("pits: " + pits);
+      }
+      this.pits = pits;
+      return this;
+   }
+
+   /** Sets the number of pits as a proportion, from 0 to 1, of the number of locations in the maze. */
+   public MazeGenerator pitDensity(double density) {
+      return pits(toCount(density));
+   }
+
+   /** Sets the number of walls, not including the walls surrounding the maze. */
+   public MazeGenerator walls(int walls) {
+      if (walls < 0) {
+         throw new IllegalArgumentException("walls: " + walls);
+      }
+      this.walls = walls;
+      return this;
+   }
+
+   /** Sets the number of walls as a proportion, from 0 to 1, of the number of locations in the maze. */
+   public MazeGenerator wallDensity(double density) {
+      return walls(toCount(density));
+   }
+
+   private int toCount(double density) {
+      if (!(density >= 0 && density <= 1)) {
+         throw new IllegalArgumentException("density: " + density);
+      }
+      return (int) Math.round(density * width * height);
+   }
+
+   /** Sets whether the maze contains a wumpus. */
+   public MazeGenerator wumpus(boolean wumpus) {
+      this.wumpus = wumpus;
+      return this;
+   }
+
+   /** Sets whether the maze contains gold. */
+   public MazeGenerator gold(boolean gold) {
+      this.gold = gold;
+      return this;
+   }
+
+   /** Sets whether the maze is surrounded by walls. */
+   public MazeGenerator boundary(boolean boundary) {
+      this.boundary = boundary;
+      return this;
+   }
+
+   public Maze generate() {
+      return generate(new SplittableRandom());
+   }
+
+   /** Generates the maze identified by the given seed. */
+   public Maze generate(long seed) {
+      return generate(new SplittableRandom(seed));
+   }
+
+   /**
+    * Returns a stream of the mazes identified by a range of seeds.
+    * <p>
+    * As each maze is generated from its own seed, rather than from a shared source of randomness, the stream can be
+    * split by seed range and generated in parallel without contention. The mazes of a parallel stream are the same,
+    * and in the same order, as those of a sequential stream.
+    *
+    * @param firstSeed the seed of the first maze
+    * @param count the number of mazes
+    */
+   public Stream<Maze> stream(long firstSeed, long count) {
+      if (count < 0) {
+         throw new IllegalArgumentException("count: " + count);
+      }
+      return LongStream.range(0, count).mapToObj(i -> generate(firstSeed + i));
+   }
+
+   /**
+    * Generates a maze using the given source of randomness.
+    *
+    * @throws IllegalStateException if the maze is not large enough for the number of pits and walls
+    */
+   public Maze generate(SplittableRandom random) {
+      // home, gold and wumpus could all be in different locations
+      long required = (long) pits + walls + 1 + (gold ? 1 : 0) + (wumpus ? 1 : 0);
+      if (required > (long) width * height) {
+         throw new IllegalStateException("Cannot fit " + pits + " pits and " + walls + " walls in " + width + "x" + height + " maze");
+      }
+      return new Generation(random).generate();
+   }
+
+   /** The state of a single call to {@link MazeGenerator#generate(SplittableRandom)}. */
+   private final class Generation {
+      private final SplittableRandom random;
+      /** The offset of the maze within the area, which is larger than the maze when it includes the boundary walls. */
+      private final int border = boundary ? 1 : 0;
+      private final int areaWidth = width + border * 2;
+      private final int areaHeight = height + border * 2;
+      private final long[] pitBits = new long[GridMaze.bitsetLength(areaWidth, areaHeight)];
+      private final long[] wallBits = new long[pitBits.length];
+      /** The locations that cannot contain a pit or wall. */
+      private final long[] occupied = new long[pitBits.length];
+      /** The number of locations in the maze that are not occupied. */
+      private int free = width * height;
+
+      Generation(SplittableRandom random) {
+         this.random = random;
+      }
+
+      Maze generate() {
+         int goldIdx = randomLocation();
+         int homeIdx = randomLocation();
+         int wumpusIdx = homeIdx;
+         while (wumpus && wumpusIdx == homeIdx) {
+            wumpusIdx = randomLocation();
+         }
+
+         occupy(homeIdx);
+         if (gold) {
+            occupy(goldIdx);
+         }
+         if (wumpus) {
+            occupy(wumpusIdx);
+         }
+         select(pitBits, pits);
+         select(wallBits, walls);
+         if (boundary) {
+            addBoundary();
+         }
+
+         return new GridMaze(toCoordinate(homeIdx), gold ? toCoordinate(goldIdx) : null, wumpus ? toCoordinate(wumpusIdx) : null, -border, -border, areaWidth,
+                     areaHeight, pitBits, wallBits);
+      }
+
+      private int randomLocation() {
+         return index(random.nextInt(width), random.nextInt(height));
+      }
+
+      private int index(int x, int y) {
+         return (y + border) * areaWidth + x + border;
+      }
+
+      private Coordinate toCoordinate(int i) {
+         return new Coordinate(i % areaWidth - border, i / areaWidth - border);
+      }
+
+      private void occupy(int i) {
+         if (!isSet(occupied, i)) {
+            set(occupied, i);
+            free--;
+         }
+      }
+
+      /** Adds {@code count} locations, that are not already occupied, to the bitset. */
+      private void select(long[] bitset, int count) {
+         if (count * 2 <= free) {
+            // at least half of the free locations will remain free, so a random location is likely to be free
+            int remaining = count;
+            while (remaining > 0) {
+               int i = randomLocation();
+               if (!isSet(occupied, i)) {
+                  set(bitset, i);
+                  occupy(i);
+                  remaining--;
+               }
+            }
+         } else {
+            // most free locations are required, so visit each free location and select it with a probability of:
+            // number of locations still required / number of free locations not yet visited
+            int remaining = count;
+            int unvisited = free;
+            for (int y = 0; y < height && remaining > 0; y++) {
+               for (int x = 0; x < width && remaining > 0; x++) {
+                  int i = index(x, y);
+                  if (!isSet(occupied, i)) {
+                     if (random.nextInt(unvisited) < remaining) {
+                        set(bitset, i);
+                        remaining--;
+                     }
+                     unvisited--;
+                  }
+               }
+            }
+            for (int w = 0; w < bitset.length; w++) {
+               occupied[w] |= bitset[w];
+            }
+            free -= count;
+         }
+      }
+
+      /** Adds walls around the maze - in the same locations as {@link Maze.MazeBuilder#boundary(int, int, int, int)}. */
+      private void addBoundary() {
+         for (int x = 0; x < width; x++) {
+            set(wallBits, index(x, -1));
+            set(wallBits, index(x, height));
+         }
+         for (int y = 0; y < height; y++) {
+            set(wallBits, index(-1, y));
+            set(wallBits, index(width, y));
+         }
+      }
+   }
+
+   private static boolean isSet(long[] bitset, int i) {
+      return (bitset[i >>> 6] & (1L << i)) != 0;
+   }
+
+   private static void set(long[] bitset, int i) {
+      bitset[i >>> 6] |= 1L << i;
+   }
+}
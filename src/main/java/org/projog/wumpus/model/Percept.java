@@ -1,5 +1,11 @@
 package org.projog.wumpus.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
 /** An input that the agent is perceiving at any given moment. */
 public enum Percept {
    /** Indicates that the agent is next to a pit. */
@@ -11,5 +17,52 @@ public enum Percept {
    /** Indicates that the wumpus has been killed. */
    SCREAM,
    /** Indicates that the agent has hit a wall. */
-   BUMP
+   BUMP;
+
+   /**
+    * An immutable set for every possible combination of percepts, indexed by mask.
+    * <p>
+    * As there are so few possible combinations, all are created up front so that percepts can be provided without
+    * having to create a new set for every move.
+    */
+   private static final List<Set<Percept>> SETS = createSets();
+
+   private static List<Set<Percept>> createSets() {
+      Percept[] values = values();
+      List<Set<Percept>> sets = new ArrayList<>(1 << values.length);
+      for (int mask = 0; mask < 1 << values.length; mask++) {
+         EnumSet<Percept> set = EnumSet.noneOf(Percept.class);
+         for (Percept p : values) {
+            if ((mask & p.mask()) != 0) {
+               set.add(p);
+            }
+         }
+         sets.add(Collections.unmodifiableSet(set));
+      }
+      return sets;
+   }
+
+   /**
+    * Returns the bit used to represent this percept in a percept mask.
+    * <p>
+    * A percept mask is an {@code int} that represents a set of percepts. A percept is a member of the set if its bit is
+    * set.
+    */
+   public int mask() {
+      return 1 << ordinal();
+   }
+
+   /** Returns an immutable set of the percepts represented by the given mask. */
+   public static Set<Percept> toSet(int mask) {
+      return SETS.get(mask);
+   }
+
+   /** Returns a mask representing the given percepts. */
+   public static int toMask(Set<Percept> percepts) {
+      int mask = 0;
+      for (Percept p : percepts) {
+         mask |= p.mask();
+      }
+      return mask;
+   }
 }
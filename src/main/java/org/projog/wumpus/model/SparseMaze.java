@@ -0,0 +1,90 @@
+package org.projog.wumpus.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A maze whose pits and walls are recorded in hash tables.
+ * <p>
+ * Used for mazes whose contents are spread over an area too large to be represented by a {@link GridMaze}.
+ */
+final class SparseMaze extends Maze {
+   private static final Comparator<Coordinate> ORDER = Comparator.comparingInt(Coordinate::getY).thenComparingInt(Coordinate::getX);
+
+   private final CoordinateSet pits = new CoordinateSet();
+   private final CoordinateSet walls = new CoordinateSet();
+   private int minX;
+   private int minY;
+   private int maxX;
+   private int maxY;
+
+   SparseMaze(Coordinate home, Coordinate gold, Coordinate wumpus, Collection<Coordinate> pits, Collection<Coordinate> walls) {
+      super(home, gold, wumpus);
+      pits.forEach(this.pits::add);
+      walls.forEach(this.walls::add);
+
+      minX = maxX = home.getX();
+      minY = maxY = home.getY();
+      include(gold);
+      include(wumpus);
+      pits.forEach(this::include);
+      walls.forEach(this::include);
+   }
+
+   private void include(Coordinate c) {
+      if (c != null) {
+         minX = Math.min(minX, c.getX());
+         minY = Math.min(minY, c.getY());
+         maxX = Math.max(maxX, c.getX());
+         maxY = Math.max(maxY, c.getY());
+      }
+   }
+
+   @Override
+   boolean isPit(int x, int y) {
+      return pits.contains(x, y);
+   }
+
+   @Override
+   boolean isWall(int x, int y) {
+      return walls.contains(x, y);
+   }
+
+   @Override
+   public int getMinX() {
+      return minX;
+   }
+
+   @Override
+   public int getMinY() {
+      return minY;
+   }
+
+   @Override
+   public int getMaxX() {
+      return maxX;
+   }
+
+   @Override
+   public int getMaxY() {
+      return maxY;
+   }
+
+   @Override
+   List<Coordinate> getPits() {
+      return sort(pits);
+   }
+
+   @Override
+   List<Coordinate> getWalls() {
+      return sort(walls);
+   }
+
+   private static List<Coordinate> sort(CoordinateSet set) {
+      List<Coordinate> result = new ArrayList<>(set.toCoordinates());
+      result.sort(ORDER);
+      return result;
+   }
+}
@@ -1,13 +1,9 @@
 package org.projog.wumpus.model;
 
-import static org.projog.wumpus.model.Percept.BREEZE;
 import static org.projog.wumpus.model.Percept.BUMP;
 import static org.projog.wumpus.model.Percept.GLITTER;
 import static org.projog.wumpus.model.Percept.SCREAM;
-import static org.projog.wumpus.model.Percept.STENCH;
 
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
 /** Mutable object representing the state of a wumpus world game. */
@@ -18,6 +14,9 @@ public class World {
    private boolean isBumpedIntoWall;
    /** Did the last action cause the wumpus to die? */
    private boolean isScream;
+   /** The packed locations whose appearance was changed by the last update or reset. */
+   private final long[] changed = new long[4];
+   private int changedCount;
 
    public World() {
       this(Maze.buildRandom());
@@ -28,12 +27,83 @@ public class World {
       this.agent = new Agent(maze.getHome());
    }
 
+   private World(World world) {
+      this.maze = world.maze;
+      this.agent = new Agent(world.agent);
+      this.isBumpedIntoWall = world.isBumpedIntoWall;
+      this.isScream = world.isScream;
+      System.arraycopy(world.changed, 0, this.changed, 0, world.changedCount);
+      this.changedCount = world.changedCount;
+   }
+
+   /**
+    * Returns a copy of this world, which is unaffected by later updates to this world.
+    * <p>
+    * The maze is shared, rather than copied, so creating a copy does not depend on the size of the maze. Used to pass
+    * the state of a game from the thread playing it to the thread displaying it.
+    */
+   public World copy() {
+      return new World(this);
+   }
+
    public void reset() {
+      changedCount = 0;
+      addChanged(agent.getX(), agent.getY());
+      addChanged(maze.getHome());
+      addChanged(maze.getGold());
+      addChanged(maze.getWumpus());
+
       agent = new Agent(maze.getHome());
       isBumpedIntoWall = false;
       isScream = false;
    }
 
+   private void addChanged(Coordinate c) {
+      if (c != null) {
+         addChanged(c.getX(), c.getY());
+      }
+   }
+
+   private void addChanged(int x, int y) {
+      long packed = Coordinate.pack(x, y);
+      for (int i = 0; i < changedCount; i++) {
+         if (changed[i] == packed) {
+            return;
+         }
+      }
+      changed[changedCount++] = packed;
+   }
+
+   /**
+    * Returns the number of locations whose appearance may have been changed by the last call to {@link #update(Action)}
+    * or {@link #reset()}.
+    * <p>
+    * e.g. moving forward changes the location the agent moved from and the location it moved to, turning only changes
+    * the location of the agent and killing the wumpus changes the location of the wumpus. Used so that displays of the
+    * world only need to repaint the locations that have changed, rather than the whole maze. The locations are returned
+    * as x and y values, by {@link #getChangedX(int)} and {@link #getChangedY(int)}, so no objects are created per move.
+    */
+   public int getChangedCount() {
+      return changedCount;
+   }
+
+   /** Returns the x value of a location changed by the last update or reset, from 0 to {@link #getChangedCount()} - 1. */
+   public int getChangedX(int index) {
+      return Coordinate.unpackX(getChanged(index));
+   }
+
+   /** Returns the y value of a location changed by the last update or reset, from 0 to {@link #getChangedCount()} - 1. */
+   public int getChangedY(int index) {
+      return Coordinate.unpackY(getChanged(index));
+   }
+
+   private long getChanged(int index) {
+      if (index < 0 || index >= changedCount) {
+         throw new IndexOutOfBoundsException("index: " + index + " count: " + changedCount);
+      }
+      return changed[index];
+   }
+
    /**
     * Perform the given action to update the world.
     * 
@@ -48,20 +118,25 @@ public class World {
 
       isBumpedIntoWall = false;
       isScream = false;
+      changedCount = 0;
 
-      Coordinate location = getAgentLocation();
+      int x = agent.getX();
+      int y = agent.getY();
       Direction direction = getAgentDirection();
       switch (action) {
          case FORWARD:
-            Coordinate nextLocation = location.move(getAgentDirection());
-            if (isWall(nextLocation)) {
+            int nextX = x + direction.getX();
+            int nextY = y + direction.getY();
+            if (maze.isWall(nextX, nextY)) {
                isBumpedIntoWall = true;
             } else {
-               agent.setLocation(nextLocation);
-               if (isWumpus(nextLocation) && isWumpusAlive()) {
+               addChanged(x, y);
+               addChanged(nextX, nextY);
+               agent.setLocation(nextX, nextY);
+               if (maze.isWumpus(nextX, nextY) && isWumpusAlive()) {
                   // agent has been eaten by the wumpus
                   agent.setState(AgentState.DEAD);
-               } else if (isPit(nextLocation)) {
+               } else if (maze.isPit(nextX, nextY)) {
                   // agent has fallen into a pit
                   agent.setState(AgentState.DEAD);
                }
@@ -69,23 +144,26 @@ public class World {
             break;
          case RIGHT:
             agent.turnRight();
+            addChanged(x, y);
             break;
          case LEFT:
             agent.turnLeft();
+            addChanged(x, y);
             break;
          case TAKE:
-            if (isGold(location)) {
+            if (isGold(x, y)) {
                agent.setHasGold(true);
+               addChanged(x, y);
             } else {
                throw new IllegalStateException("no gold to take");
             }
             break;
          case FIRE:
             if (haveArrow()) {
-               Coordinate targetLocation = location.move(direction);
-               if (isWumpus(targetLocation)) {
+               if (maze.isWumpus(x + direction.getX(), y + direction.getY())) {
                   agent.setHasKilledWumpus();
                   isScream = true;
+                  addChanged(maze.getWumpus());
                } else {
                   agent.setHasMissed();
                }
@@ -94,8 +172,9 @@ public class World {
             }
             break;
          case CLIMB:
-            if (isHome(location)) {
+            if (maze.getHome().isLocated(x, y)) {
                agent.setState(AgentState.ESCAPED);
+               addChanged(x, y);
             } else {
                throw new IllegalStateException("cannot climb as not home");
             }
@@ -113,35 +192,35 @@ public class World {
     * The percepts available to the agent will depend on the agent's current location (e.g. STENCH, GLITTER or BREEZE)
     * and the result of the agent's previous action (e.g. SCREAM or BUMP).
     * 
-    * @return percepts available to the agent
+    * @return an immutable set of the percepts available to the agent
     */
    public Set<Percept> getPercepts() {
+      return Percept.toSet(getPerceptMask());
+   }
+
+   /**
+    * Returns the percepts that are currently available to the agent, as a mask.
+    * 
+    * @return mask of the percepts available to the agent
+    * @see #getPercepts()
+    * @see Percept#mask()
+    */
+   public int getPerceptMask() {
       if (isFinished()) {
-         return Collections.emptySet();
+         return 0;
       }
 
-      Coordinate location = agent.getLocation();
-      Set<Percept> percepts = new HashSet<>();
+      int x = agent.getX();
+      int y = agent.getY();
+      int percepts = maze.getPerceptMask(x, y);
       if (isBumpedIntoWall) {
-         percepts.add(BUMP);
+         percepts |= BUMP.mask();
       }
       if (isScream) {
-         percepts.add(SCREAM);
-      }
-      if (isGold(location)) {
-         percepts.add(GLITTER);
+         percepts |= SCREAM.mask();
       }
-      if (isWumpus(location)) {
-         percepts.add(STENCH);
-      }
-      for (Direction d : Direction.values()) {
-         Coordinate adjacent = location.move(d);
-         if (isPit(adjacent)) {
-            percepts.add(BREEZE);
-         }
-         if (isWumpus(adjacent)) {
-            percepts.add(STENCH);
-         }
+      if (isGold(x, y)) {
+         percepts |= GLITTER.mask();
       }
       return percepts;
    }
@@ -150,10 +229,18 @@ public class World {
       return agent.getState() != AgentState.ACTIVE;
    }
 
+   public AgentState getAgentState() {
+      return agent.getState();
+   }
+
    public Direction getAgentDirection() {
       return agent.getDirection();
    }
 
+   public Maze getMaze() {
+      return maze;
+   }
+
    public Coordinate getHome() {
       return maze.getHome();
    }
@@ -162,12 +249,20 @@ public class World {
       return getHome().equals(coordinate);
    }
 
+   public boolean isHome(int x, int y) {
+      return getHome().isLocated(x, y);
+   }
+
    public Coordinate getAgentLocation() {
       return agent.getLocation();
    }
 
    public boolean isAgentLocated(Coordinate coordinate) {
-      return agent.getLocation().equals(coordinate);
+      return coordinate.isLocated(agent.getX(), agent.getY());
+   }
+
+   public boolean isAgentLocated(int x, int y) {
+      return agent.getX() == x && agent.getY() == y;
    }
 
    public boolean haveGold() {
@@ -187,18 +282,34 @@ public class World {
    }
 
    public boolean isWall(Coordinate c) {
-      return maze.isWall(c);
+      return isWall(c.getX(), c.getY());
+   }
+
+   public boolean isWall(int x, int y) {
+      return maze.isWall(x, y);
    }
 
    public boolean isGold(Coordinate c) {
-      return !agent.isHasGold() && maze.isGold(c);
+      return isGold(c.getX(), c.getY());
+   }
+
+   public boolean isGold(int x, int y) {
+      return !agent.isHasGold() && maze.isGold(x, y);
    }
 
    public boolean isWumpus(Coordinate c) {
-      return maze.isWumpus(c);
+      return isWumpus(c.getX(), c.getY());
+   }
+
+   public boolean isWumpus(int x, int y) {
+      return maze.isWumpus(x, y);
    }
 
    public boolean isPit(Coordinate c) {
-      return maze.isPit(c);
+      return isPit(c.getX(), c.getY());
+   }
+
+   public boolean isPit(int x, int y) {
+      return maze.isPit(x, y);
    }
 }
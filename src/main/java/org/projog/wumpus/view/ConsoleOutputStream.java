@@ -0,0 +1,157 @@
+package org.projog.wumpus.view;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+/**
+ * Directs UTF-8 encoded output, written by any thread, to a text area.
+ * <p>
+ * Rather than updating the text area for every byte written, bytes are decoded into lines that are held until the text
+ * area is next updated. The text area is only updated by the event dispatch thread, at most once every
+ * {@code flushDelay} milliseconds, with all the lines written since it was last updated. Only the last
+ * {@code maxLines} lines are kept - both while waiting to update the text area and in the text area itself. Text is
+ * not displayed until the line containing it is complete.
+ */
+class ConsoleOutputStream extends OutputStream {
+   private final JTextArea textArea;
+   private final int maxLines;
+   private final Timer timer;
+   private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+               .onUnmappableCharacter(CodingErrorAction.REPLACE);
+   /** Bytes that have been written but not yet decoded - e.g. the start of a multi-byte character. */
+   private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+   private final CharBuffer chars = CharBuffer.allocate(8192);
+   /** Complete lines waiting to be added to the text area, with the oldest discarded once there are {@link #maxLines}. */
+   private final ArrayDeque<String> lines = new ArrayDeque<>();
+   /** The line currently being written. */
+   private final StringBuilder line = new StringBuilder();
+   /** Has the text area to be cleared before the waiting lines are added to it? */
+   private boolean cleared;
+
+   ConsoleOutputStream(JTextArea textArea, int maxLines, int flushDelay) {
+      if (maxLines < 1) {
+         throw new IllegalArgumentException("maxLines: " + maxLines);
+      }
+      this.textArea = textArea;
+      this.maxLines = maxLines;
+      this.timer = new Timer(flushDelay, e -> updateTextArea());
+      this.timer.setRepeats(false);
+   }
+
+   @Override
+   public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+   }
+
+   @Override
+   public synchronized void write(byte[] b, int off, int len) {
+      while (len > 0) {
+         int n = Math.min(len, bytes.remaining());
+         bytes.put(b, off, n);
+         off += n;
+         len -= n;
+         decode();
+      }
+      scheduleUpdate();
+   }
+
+   private void decode() {
+      bytes.flip();
+      while (decoder.decode(bytes, chars, false).isOverflow()) {
+         addChars();
+      }
+      addChars();
+      // keep any incomplete character until the rest of its bytes are written
+      bytes.compact();
+   }
+
+   private void addChars() {
+      chars.flip();
+      while (chars.hasRemaining()) {
+         char c = chars.get();
+         if (c == '\n') {
+            addLine(line.toString());
+            line.setLength(0);
+         } else if (c != '\r') {
+            line.append(c);
+         }
+      }
+      chars.clear();
+   }
+
+   private void addLine(String s) {
+      if (lines.size() == maxLines) {
+         lines.removeFirst();
+      }
+      lines.addLast(s);
+   }
+
+   private void scheduleUpdate() {
+      if (!timer.isRunning()) {
+         timer.start();
+      }
+   }
+
+   /** Removes all output - both from the text area and output that is yet to be added to it. */
+   synchronized void clear() {
+      lines.clear();
+      line.setLength(0);
+      bytes.clear();
+      decoder.reset();
+      cleared = true;
+      scheduleUpdate();
+   }
+
+   /** Adds the lines written since the last update to the text area. Must be called by the event dispatch thread. */
+   void updateTextArea() {
+      if (!SwingUtilities.isEventDispatchThread()) {
+         throw new IllegalStateException("not event dispatch thread");
+      }
+
+      StringBuilder text = new StringBuilder();
+      boolean clear;
+      synchronized (this) {
+         clear = cleared;
+         cleared = false;
+         for (String s : lines) {
+            text.append(s).append('\n');
+         }
+         lines.clear();
+      }
+
+      if (clear) {
+         textArea.setText("");
+      }
+      if (text.length() > 0) {
+         textArea.append(text.toString());
+         removeExcessLines();
+         textArea.setCaretPosition(textArea.getDocument().getLength());
+      }
+   }
+
+   private void removeExcessLines() {
+      Document document = textArea.getDocument();
+      Element root = document.getDefaultRootElement();
+      // the text always ends with a new line, so the last element is an empty line
+      int excess = root.getElementCount() - 1 - maxLines;
+      if (excess > 0) {
+         try {
+            document.remove(0, root.getElement(excess - 1).getEndOffset());
+         } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+         }
+      }
+   }
+}
@@ -0,0 +1,264 @@
+package org.projog.wumpus.view;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import org.projog.wumpus.GameController;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.World;
+
+/**
+ * Plays a game on a background thread, publishing snapshots of its state to be displayed by the event dispatch thread.
+ * <p>
+ * The world is only ever accessed by the background thread - the event dispatch thread is only given copies of it. This
+ * means the controller can be determining the next move while the previous move is being displayed.
+ * <p>
+ * Only the latest snapshot is displayed. If moves are made faster than they can be displayed then snapshots that are
+ * not displayed before the next one is published are skipped. When playing as fast as possible, snapshots are published
+ * at most once every {@link #FRAME_INTERVAL} milliseconds.
+ * <p>
+ * If a move cannot be made - because the controller throws an exception, or chooses an action the world does not allow -
+ * playing stops and the next snapshot reports why.
+ */
+class PlaybackEngine {
+   /** The minimum number of milliseconds between snapshots when playing with no delay between moves. */
+   static final int FRAME_INTERVAL = 16;
+
+   private final GameController controller;
+   private final Runnable beforeMove;
+   private final Consumer<Snapshot> listener;
+   private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "playback");
+      t.setDaemon(true);
+      return t;
+   });
+
+   /** The following are only accessed by the background thread. */
+   private World world;
+   private int move;
+   private Action action;
+   private long lastPublished;
+   /** Why the last move could not be made, or {@code null} if it was made or has already been published. */
+   private String failure;
+
+   private volatile boolean playing;
+   private volatile int delay;
+   /** Waited on between moves, and notified when playing stops, so a stop does not have to wait for the delay to end. */
+   private final Object pause = new Object();
+
+   /** The following are guarded by {@code this} as they are accessed by both threads. */
+   private Snapshot latest;
+   /** The x and y values of the locations changed since the last snapshot was published. */
+   private int[] changed = new int[16];
+   private int changedCount;
+   private boolean allChanged = true;
+
+   /**
+    * @param beforeMove run by the background thread before each move
+    * @param listener given each snapshot to display, by the event dispatch thread
+    */
+   PlaybackEngine(GameController controller, World world, Runnable beforeMove, Consumer<Snapshot> listener) {
+      this.controller = controller;
+      this.world = world;
+      this.beforeMove = beforeMove;
+      this.listener = listener;
+   }
+
+   /** Sets the number of milliseconds to wait between moves when playing - or 0 to play as fast as possible. */
+   void setDelay(int delay) {
+      if (delay < 0) {
+         throw new IllegalArgumentException("delay: " + delay);
+      }
+      this.delay = delay;
+   }
+
+   boolean isPlaying() {
+      return playing;
+   }
+
+   /** Publishes a snapshot of the current state of the game, so the whole game is displayed. */
+   void refresh() {
+      executor.execute(() -> {
+         markAllChanged();
+         publish();
+      });
+   }
+
+   /** Makes a single move. */
+   void step() {
+      executor.execute(() -> {
+         if (!world.isFinished()) {
+            tryMove();
+         }
+         publish();
+      });
+   }
+
+   /** Makes moves until the game is finished or {@link #stop()} is called. */
+   void play() {
+      if (playing) {
+         return;
+      }
+      playing = true;
+      executor.execute(() -> {
+         try {
+            while (playing && !world.isFinished() && tryMove()) {
+               int delay = this.delay;
+               if (delay > 0 || System.nanoTime() - lastPublished >= TimeUnit.MILLISECONDS.toNanos(FRAME_INTERVAL)) {
+                  publish();
+               }
+               if (delay > 0) {
+                  pause(delay);
+               }
+            }
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } finally {
+            playing = false;
+            publish();
+         }
+      });
+   }
+
+   /** Stops making moves after the current move. */
+   void stop() {
+      playing = false;
+      endPause();
+   }
+
+   /** Waits for the given number of milliseconds, or until playing stops. */
+   private void pause(int delay) throws InterruptedException {
+      long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+      synchronized (pause) {
+         long remaining;
+         while (playing && (remaining = end - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(pause, remaining);
+         }
+      }
+   }
+
+   private void endPause() {
+      synchronized (pause) {
+         pause.notifyAll();
+      }
+   }
+
+   /** Restarts the current game. */
+   void reset() {
+      restart(null);
+   }
+
+   /** Starts a new game in the given world. */
+   void newWorld(World world) {
+      restart(world);
+   }
+
+   private void restart(World newWorld) {
+      playing = false;
+      endPause();
+      executor.execute(() -> {
+         move = 0;
+         action = null;
+         failure = null;
+         controller.reset();
+         if (newWorld == null) {
+            world.reset();
+         } else {
+            world = newWorld;
+         }
+         markAllChanged();
+         publish();
+      });
+   }
+
+   /** Makes a move, returning {@code false} - and recording why - if it could not be made. */
+   private boolean tryMove() {
+      try {
+         move();
+         return true;
+      } catch (RuntimeException e) {
+         failure = e.getMessage() == null ? e.toString() : e.getMessage();
+         return false;
+      }
+   }
+
+   private void move() {
+      beforeMove.run();
+      action = controller.process(world.getPerceptMask());
+      world.update(action);
+      move++;
+      synchronized (this) {
+         for (int i = 0; i < world.getChangedCount(); i++) {
+            addChanged(world.getChangedX(i), world.getChangedY(i));
+         }
+      }
+   }
+
+   private synchronized void markAllChanged() {
+      allChanged = true;
+      changedCount = 0;
+   }
+
+   private void addChanged(int x, int y) {
+      if (allChanged) {
+         return;
+      }
+      if (changedCount == Snapshot.MAX_CHANGED) {
+         markAllChanged();
+         return;
+      }
+      for (int i = 0; i < changedCount; i++) {
+         if (changed[i * 2] == x && changed[i * 2 + 1] == y) {
+            return;
+         }
+      }
+      if (changedCount * 2 == changed.length) {
+         changed = Arrays.copyOf(changed, changed.length * 2);
+      }
+      changed[changedCount * 2] = x;
+      changed[changedCount * 2 + 1] = y;
+      changedCount++;
+   }
+
+   /** Publishes a snapshot of the current state of the game, replacing any previous snapshot not yet displayed. */
+   private void publish() {
+      lastPublished = System.nanoTime();
+      synchronized (this) {
+         Snapshot skipped = latest;
+         if (skipped != null) {
+            // the skipped snapshot will not be displayed, so include its changes in the new snapshot
+            if (failure == null) {
+               failure = skipped.getFailure();
+            }
+            if (skipped.isAllChanged()) {
+               markAllChanged();
+            } else {
+               for (int i = 0; i < skipped.getChangedCount(); i++) {
+                  addChanged(skipped.getChangedX(i), skipped.getChangedY(i));
+               }
+            }
+         }
+         latest = new Snapshot(world, move, action, playing, allChanged ? null : Arrays.copyOf(changed, changedCount * 2), changedCount, failure);
+         failure = null;
+         changedCount = 0;
+         allChanged = false;
+         if (skipped == null) {
+            SwingUtilities.invokeLater(this::display);
+         }
+      }
+   }
+
+   private void display() {
+      Snapshot snapshot;
+      synchronized (this) {
+         snapshot = latest;
+         latest = null;
+      }
+      listener.accept(snapshot);
+   }
+}
@@ -0,0 +1,91 @@
+package org.projog.wumpus.view;
+
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.World;
+
+/**
+ * The state of a game at a point in time, as published by {@link PlaybackEngine} to be displayed.
+ * <p>
+ * As moves can be made faster than they are displayed, a snapshot records all of the locations changed since the
+ * previous snapshot that was displayed - not just those changed by the last move.
+ */
+final class Snapshot {
+   /** The maximum number of changed locations to record before treating every location as changed. */
+   static final int MAX_CHANGED = 256;
+
+   /** A copy of the world, that is never updated. */
+   private final World world;
+   private final int move;
+   private final Action action;
+   private final int perceptMask;
+   private final boolean playing;
+   /**
+    * The x and y values of the locations changed since the previous displayed snapshot, or {@code null} if every location
+    * may have changed.
+    */
+   private final int[] changed;
+   private final int changedCount;
+   /** Why the last move could not be made, or {@code null} if it was made. */
+   private final String failure;
+
+   Snapshot(World world, int move, Action action, boolean playing, int[] changed, int changedCount, String failure) {
+      this.world = world.copy();
+      this.move = move;
+      this.action = action;
+      this.perceptMask = world.getPerceptMask();
+      this.playing = playing;
+      this.changed = changed;
+      this.changedCount = changedCount;
+      this.failure = failure;
+   }
+
+   World getWorld() {
+      return world;
+   }
+
+   int getMove() {
+      return move;
+   }
+
+   /** Returns the last action performed, or {@code null} if no action has been performed. */
+   Action getAction() {
+      return action;
+   }
+
+   int getPerceptMask() {
+      return perceptMask;
+   }
+
+   boolean isPlaying() {
+      return playing;
+   }
+
+   boolean isFinished() {
+      return world.isFinished();
+   }
+
+   /**
+    * Returns why a move could not be made - e.g. because the controller could not decide on an action - or {@code null}
+    * if every move since the previous displayed snapshot was made.
+    */
+   String getFailure() {
+      return failure;
+   }
+
+   boolean isAllChanged() {
+      return changed == null;
+   }
+
+   /** Returns the number of locations changed since the previous displayed snapshot - see {@link #isAllChanged()}. */
+   int getChangedCount() {
+      return changedCount;
+   }
+
+   int getChangedX(int index) {
+      return changed[index * 2];
+   }
+
+   int getChangedY(int index) {
+      return changed[index * 2 + 1];
+   }
+}
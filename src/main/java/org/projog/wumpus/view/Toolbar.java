@@ -1,86 +1,58 @@
 package org.projog.wumpus.view;
 
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
-import java.util.Timer;
-import java.util.TimerTask;
-
 import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
 
 class Toolbar extends JPanel {
    private static final long serialVersionUID = 1L;
 
-   private static final int TIMER_DELAY = 1000;
+   /** The names of the speeds the game can be played at, and the corresponding delays, in milliseconds, between moves. */
+   private static final String[] SPEED_NAMES = {"1/s", "2/s", "5/s", "10/s", "50/s", "Max"};
+   private static final int[] SPEED_DELAYS = {1000, 500, 200, 100, 20, 0};
 
    private final JButton newMaze = new JButton("New");
    private final JButton reset = new JButton("Reset");
    private final JButton step = new JButton("Step");
    private final JButton play = new JButton("Play");
    private final JButton stop = new JButton("Stop");
-
-   private Timer timer = new Timer();
+   private final JComboBox<String> speed = new JComboBox<>(SPEED_NAMES);
 
    Toolbar(UserInterface userInterface) {
-      newMaze.addMouseListener(new MouseAdapter() {
-         @Override
-         public void mouseClicked(MouseEvent e) {
-            userInterface.createNew();
-            setEnabled(false, true, true, false);
-         }
-      });
-      reset.addMouseListener(new MouseAdapter() {
-         @Override
-         public void mouseClicked(MouseEvent e) {
-            userInterface.reset();
-            setEnabled(false, true, true, false);
-         }
-      });
-      step.addMouseListener(new MouseAdapter() {
-         @Override
-         public void mouseClicked(MouseEvent e) {
-            boolean isFinished = userInterface.play();
-            setEnabled(true, !isFinished, !isFinished, false);
-         }
-      });
-      play.addMouseListener(new MouseAdapter() {
-         @Override
-         public void mouseClicked(MouseEvent e) {
-            setEnabled(false, false, false, true);
-            timer = new Timer();
-            timer.scheduleAtFixedRate(new TimerTask() {
-               @Override
-               public void run() {
-                  boolean isFinished = userInterface.play();
-                  if (isFinished) {
-                     cancel();
-                     setEnabled(true, false, false, false);
-                  }
-               }
-            }, 0, TIMER_DELAY);
-         }
-      });
-      stop.addMouseListener(new MouseAdapter() {
-         @Override
-         public void mouseClicked(MouseEvent e) {
-            timer.cancel();
-            setEnabled(true, true, true, false);
-         }
+      newMaze.addActionListener(e -> userInterface.createNew());
+      reset.addActionListener(e -> userInterface.reset());
+      step.addActionListener(e -> userInterface.step());
+      play.addActionListener(e -> {
+         // disable the buttons now, rather than waiting for the first move to be displayed
+         setEnabled(false, false, false, false, true);
+         userInterface.play();
       });
+      stop.addActionListener(e -> userInterface.stop());
+      speed.addActionListener(e -> userInterface.setDelay(SPEED_DELAYS[speed.getSelectedIndex()]));
+      speed.setSelectedIndex(0);
 
-      setEnabled(false, true, true, false);
+      update(false, false, false);
 
       add(newMaze);
       add(reset);
       add(step);
       add(play);
       add(stop);
+      add(new JLabel("Speed:"));
+      add(speed);
+   }
+
+   /** Enables the buttons that are appropriate for the displayed state of the game. */
+   void update(boolean isPlaying, boolean isStarted, boolean isFinished) {
+      setEnabled(!isPlaying, !isPlaying && isStarted, !isPlaying && !isFinished, !isPlaying && !isFinished, isPlaying);
    }
 
-   private void setEnabled(boolean resetEnabled, boolean playEnabled, boolean stepEnabled, boolean stopEnabled) {
+   private void setEnabled(boolean newEnabled, boolean resetEnabled, boolean stepEnabled, boolean playEnabled, boolean stopEnabled) {
+      newMaze.setEnabled(newEnabled);
       reset.setEnabled(resetEnabled);
-      play.setEnabled(playEnabled);
       step.setEnabled(stepEnabled);
+      play.setEnabled(playEnabled);
       stop.setEnabled(stopEnabled);
    }
 }
@@ -2,9 +2,9 @@ package org.projog.wumpus.view;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
-import java.io.IOException;
-import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
 import javax.swing.JFrame;
@@ -15,7 +15,6 @@ import javax.swing.JTextArea;
 
 import org.projog.wumpus.GameController;
 import org.projog.wumpus.model.Action;
-import org.projog.wumpus.model.AgentState;
 import org.projog.wumpus.model.Percept;
 import org.projog.wumpus.model.World;
 
@@ -23,19 +22,21 @@ public class UserInterface {
    private static final int MAZE_SIZE = 400;
    private static final int STATUS_WIDTH = 150;
    private static final int FEEDBACK_HEIGHT = 300;
+   /** The maximum number of lines of controller output to display. */
+   private static final int FEEDBACK_MAX_LINES = 1000;
+   /** The minimum number of milliseconds between updates to the displayed controller output. */
+   private static final int FEEDBACK_DELAY = 100;
 
    private final JFrame frame;
    private final WorldPanel mazePanel;
    private final JTextArea statusTextArea;
-   private final JTextArea feedback;
-   private World world;
-   private final GameController controller;
-   private int moveCtr;
+   private final ConsoleOutputStream feedback;
+   private final PlaybackEngine engine;
+   private final Toolbar toolbar;
+   /** Was the game finished in the last snapshot displayed? */
+   private boolean finished;
 
    public UserInterface(GameController controller, World world) {
-      this.controller = controller;
-      this.world = world;
-
       mazePanel = new WorldPanel();
 
       statusTextArea = new JTextArea();
@@ -47,74 +48,71 @@ public class UserInterface {
       statusPanel.add(statusTextArea);
 
       // create scroll pane where debug from the controller will be directed
-      feedback = new JTextArea();
-      feedback.setEditable(false);
-      JScrollPane feedbackPane = new JScrollPane(feedback);
+      JTextArea feedbackTextArea = new JTextArea();
+      feedbackTextArea.setEditable(false);
+      JScrollPane feedbackPane = new JScrollPane(feedbackTextArea);
       feedbackPane.setPreferredSize(new Dimension(MAZE_SIZE + STATUS_WIDTH, FEEDBACK_HEIGHT));
-      OutputStream os = new OutputStream() {
-         @Override
-         public void write(int b) throws IOException {
-            feedback.append(String.valueOf((char) b));
-         }
-      };
-      controller.setOut(new PrintStream(os));
+      feedback = new ConsoleOutputStream(feedbackTextArea, FEEDBACK_MAX_LINES, FEEDBACK_DELAY);
+      try {
+         controller.setOut(new PrintStream(feedback, false, StandardCharsets.UTF_8.name()));
+      } catch (UnsupportedEncodingException e) {
+         throw new IllegalStateException(e);
+      }
 
-      update(world, null);
+      // only show the output of the controller for the current move
+      engine = new PlaybackEngine(controller, world, feedback::clear, this::update);
+      toolbar = new Toolbar(this);
 
       frame = new JFrame();
       frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
       frame.pack();
-      frame.add(new Toolbar(this), BorderLayout.NORTH);
+      frame.add(toolbar, BorderLayout.NORTH);
       frame.add(mazePanel, BorderLayout.CENTER);
       frame.add(statusPanel, BorderLayout.EAST);
       frame.add(feedbackPane, BorderLayout.SOUTH);
       frame.setSize(MAZE_SIZE + STATUS_WIDTH, MAZE_SIZE + FEEDBACK_HEIGHT);
       frame.setVisible(true);
+
+      engine.refresh();
    }
 
-   synchronized void createNew() {
-      resetAgentState();
-      world = new World();
-      update(world, null);
+   void createNew() {
+      feedback.clear();
+      engine.newWorld(new World());
    }
 
-   synchronized void reset() {
-      resetAgentState();
-      world.reset();
-      update(world, null);
+   void reset() {
+      feedback.clear();
+      engine.reset();
    }
 
-   private void resetAgentState() {
-      moveCtr = 0;
-      clearFeedback();
-      controller.reset();
+   void step() {
+      engine.step();
    }
 
-   synchronized boolean play() {
-      clearFeedback();
-      Action action = controller.process(world.getPercepts());
-      AgentState agentState = world.update(action);
-      moveCtr++;
-      update(world, action);
-      if (agentState == AgentState.ACTIVE) {
-         return false;
-      } else {
-         JOptionPane.showMessageDialog(frame, "game over", "bye", JOptionPane.INFORMATION_MESSAGE);
-         return true;
-      }
+   void play() {
+      engine.play();
    }
 
-   private void clearFeedback() {
-      feedback.setText("");
+   void stop() {
+      engine.stop();
    }
 
-   private void update(World world, Action action) {
-      mazePanel.update(world);
+   void setDelay(int delay) {
+      engine.setDelay(delay);
+   }
+
+   /** Displays the given snapshot. Called by the event dispatch thread. */
+   private void update(Snapshot snapshot) {
+      World world = snapshot.getWorld();
+      Action action = snapshot.getAction();
+      mazePanel.update(snapshot);
+      toolbar.update(snapshot.isPlaying(), snapshot.getMove() > 0, snapshot.isFinished());
 
       StringBuilder status = new StringBuilder();
 
       status.append("Move: ");
-      status.append(moveCtr);
+      status.append(snapshot.getMove());
 
       status.append("\n\nLocation: ");
       status.append(world.getAgentLocation().minus(world.getHome()));
@@ -145,7 +143,7 @@ public class UserInterface {
          status.append(action);
       }
 
-      Set<Percept> percepts = world.getPercepts();
+      Set<Percept> percepts = Percept.toSet(snapshot.getPerceptMask());
       if (percepts.isEmpty()) {
          status.append("\n\nNo percepts.");
       } else {
@@ -157,5 +155,13 @@ public class UserInterface {
       }
 
       statusTextArea.setText(status.toString());
+
+      if (snapshot.getFailure() != null) {
+         JOptionPane.showMessageDialog(frame, snapshot.getFailure(), "cannot continue", JOptionPane.ERROR_MESSAGE);
+      }
+      if (snapshot.isFinished() && !finished) {
+         JOptionPane.showMessageDialog(frame, "game over", "bye", JOptionPane.INFORMATION_MESSAGE);
+      }
+      finished = snapshot.isFinished();
    }
 }
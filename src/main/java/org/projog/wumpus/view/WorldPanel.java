@@ -1,133 +1,503 @@
 package org.projog.wumpus.view;
 
 import java.awt.Color;
-import java.awt.GridLayout;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import javax.swing.ImageIcon;
-import javax.swing.JPanel;
+import javax.imageio.ImageIO;
+import javax.swing.JComponent;
 
 import org.projog.wumpus.model.Coordinate;
+import org.projog.wumpus.model.Maze;
 import org.projog.wumpus.model.World;
 
 /**
  * Provides a graphical representation of a wumpus world.
  * <p>
- * The world is represented as a 4x4 grid.
+ * Every location of the maze is painted by this single component, rather than each location having its own component,
+ * so large mazes can be displayed. The images are scaled once, each time the size of the locations changes, rather
+ * than every time they are painted.
+ * <p>
+ * If the whole maze fits in the component, with locations of at least {@link #MIN_FIT_SIZE} pixels, then it is
+ * displayed in full. Otherwise, only the part of the maze visible in the component's viewport is painted. The viewport
+ * follows the agent until the user drags it elsewhere. Double-clicking makes the viewport follow the agent again and the
+ * mouse wheel zooms in and out.
+ * <p>
+ * The static contents of the maze - walls, pits and home - are painted to tiles, each covering a square of locations,
+ * that are cached and reused. Only the locations of things that can change - the agent, the wumpus and the gold - are
+ * painted individually.
  */
-class WorldPanel extends JPanel {
+class WorldPanel extends JComponent {
    private static final long serialVersionUID = 1L;
 
-   private static final int WIDTH = 4;
+   /** Locations smaller than this, in pixels, are too small for their coordinates and description to be displayed. */
+   private static final int MIN_TEXT_SIZE = 60;
+   /** Images smaller than this, in pixels, are not displayed. */
+   private static final int MIN_IMAGE_SIZE = 6;
+   /** The size of the images, relative to the size of a location. */
+   private static final double IMAGE_SCALE = 0.36;
+   /** The smallest size, in pixels, of locations when displaying the whole maze. */
+   static final int MIN_FIT_SIZE = 2;
+   /** The size, in pixels, of locations when the whole maze cannot be displayed. */
+   static final int DEFAULT_SIZE = 24;
+   private static final int MIN_SIZE = 2;
+   private static final int MAX_SIZE = 200;
+   /** The number of locations, from the edge of the viewport, the agent must be within for the viewport to move. */
+   private static final int FOLLOW_MARGIN = 2;
+   /** The approximate width and height, in pixels, of a tile. */
+   private static final int TILE_PIXELS = 256;
+   static final int MAX_TILES = 64;
+
+   private enum Sprite {
+      AGENT_NORTH("box-arrow-up.png"),
+      AGENT_EAST("box-arrow-right.png"),
+      AGENT_SOUTH("box-arrow-down.png"),
+      AGENT_WEST("box-arrow-left.png"),
+      WUMPUS_ALIVE("emoji-angry.png"),
+      WUMPUS_DEAD("emoji-dizzy.png"),
+      HOME("house.png"),
+      GOLD("trophy.png"),
+      PIT("exclamation-octagon.png");
+
+      private final BufferedImage image;
+
+      Sprite(String imageName) {
+         image = loadImage("images/" + imageName);
+      }
+   }
 
-   private final LocationPanel[][] cells;
+   private World world;
+   /** The images scaled to {@link #scaledSize}, indexed by the ordinal of their {@link Sprite}. */
+   private final Image[] scaled = new Image[Sprite.values().length];
+   private int scaledSize = -1;
 
-   private final ImageIcon agentNorthImage;
-   private final ImageIcon agentEastImage;
-   private final ImageIcon agentSouthImage;
-   private final ImageIcon agentWestImage;
-   private final ImageIcon wumpusAliveImage;
-   private final ImageIcon wumpusDeadImage;
-   private final ImageIcon homeImage;
-   private final ImageIcon goldImage;
-   private final ImageIcon pitImage;
+   /** Is the whole maze being displayed? */
+   private boolean fit = true;
+   /** Should the viewport move to keep the agent visible? */
+   private boolean follow = true;
+   /** The size, in pixels, of each location - when not displaying the whole maze. */
+   private int size = DEFAULT_SIZE;
+   /** The position, in pixels, of the top left corner of the viewport, where location {@code 0,0} is at pixel 0,0. */
+   private long viewX;
+   private long viewY;
+
+   /** Tiles of static content, keyed by tile position, with the least recently used discarded when full. */
+   private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+         return size() > MAX_TILES;
+      }
+   };
+   /** The maze and location size that the cached tiles were painted for. */
+   private Maze tileMaze;
+   private int tileSize;
+   /** The number of locations along each side of a tile. */
+   private int tileLocations;
 
    WorldPanel() {
-      setLayout(new GridLayout(WIDTH, WIDTH));
+      setPreferredSize(new Dimension(400, 400));
+      setOpaque(true);
 
-      cells = new LocationPanel[WIDTH][WIDTH];
-      for (int y = 0; y < WIDTH; y++) {
-         for (int x = 0; x < WIDTH; x++) {
-            cells[x][y] = new LocationPanel();
-            add(cells[x][y]);
+      MouseAdapter mouseAdapter = new MouseAdapter() {
+         private int dragX;
+         private int dragY;
+
+         @Override
+         public void mousePressed(MouseEvent e) {
+            dragX = e.getX();
+            dragY = e.getY();
+         }
+
+         @Override
+         public void mouseDragged(MouseEvent e) {
+            scroll(dragX - e.getX(), dragY - e.getY());
+            dragX = e.getX();
+            dragY = e.getY();
          }
-      }
 
-      agentNorthImage = loadImage("images/box-arrow-up.png");
-      agentEastImage = loadImage("images/box-arrow-right.png");
-      agentSouthImage = loadImage("images/box-arrow-down.png");
-      agentWestImage = loadImage("images/box-arrow-left.png");
-      wumpusAliveImage = loadImage("images/emoji-angry.png");
-      wumpusDeadImage = loadImage("images/emoji-dizzy.png");
-      homeImage = loadImage("images/house.png");
-      goldImage = loadImage("images/trophy.png");
-      pitImage = loadImage("images/exclamation-octagon.png");
-   }
-
-   void update(World world) {
-      for (int y = 0; y < WIDTH; y++) {
-         for (int x = 0; x < WIDTH; x++) {
-            Coordinate coordinate = new Coordinate(x, y);
-            LocationPanel cell = cells[x][y];
-
-            // set colours
-            Color background;
-            String description;
-            if (world.isWall(coordinate)) {
-               background = Color.BLACK;
-               description = "wall";
-            } else if (world.isPit(coordinate)) {
-               background = Color.RED;
-               description = "pit";
-            } else if (world.isWumpus(coordinate) && world.isWumpusAlive()) {
-               background = Color.RED;
-               description = "wumpus";
-            } else if (world.isGold(coordinate)) {
-               background = Color.YELLOW;
-               description = "gold";
-            } else if (world.isHome(coordinate)) {
-               background = Color.GREEN;
-               description = "home";
-            } else {
-               background = Color.WHITE;
-               description = "";
+         @Override
+         public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2) {
+               followAgent();
             }
+         }
+
+         @Override
+         public void mouseWheelMoved(MouseWheelEvent e) {
+            zoom(-e.getWheelRotation(), e.getX(), e.getY());
+         }
+      };
+      addMouseListener(mouseAdapter);
+      addMouseMotionListener(mouseAdapter);
+      addMouseWheelListener(mouseAdapter);
+   }
+
+   /**
+    * Displays the world of the given snapshot.
+    * <p>
+    * If the snapshot is of the same maze as already displayed, and the viewport does not need to move, then only the
+    * locations changed since the previous snapshot are repainted.
+    */
+   void update(Snapshot snapshot) {
+      World world = snapshot.getWorld();
+      if (show(world, this.world != null && this.world.getMaze() == world.getMaze() && !snapshot.isAllChanged())) {
+         for (int i = 0; i < snapshot.getChangedCount(); i++) {
+            repaintLocation(snapshot.getChangedX(i), snapshot.getChangedY(i));
+         }
+      }
+   }
+
+   /**
+    * Starts displaying the given world.
+    *
+    * @param incremental {@code true} if only some locations have changed since the last update
+    * @return {@code true} if the caller must repaint the changed locations, or {@code false} if the whole component will
+    * be repainted
+    */
+   private boolean show(World world, boolean incremental) {
+      if (this.world == null || this.world.getMaze() != world.getMaze()) {
+         fit = true;
+         follow = true;
+      }
+      this.world = world;
+      if (getWidth() == 0 || getHeight() == 0) {
+         repaint();
+         return false;
+      }
+
+      long oldViewX = viewX;
+      long oldViewY = viewY;
+      int oldSize = size;
+      updateViewport();
+      if (incremental && viewX == oldViewX && viewY == oldViewY && size == oldSize) {
+         return true;
+      } else {
+         repaint();
+         return false;
+      }
+   }
+
+   private void repaintLocation(int x, int y) {
+      long px = (long) x * size - viewX;
+      long py = (long) y * size - viewY;
+      if (px + size > 0 && py + size > 0 && px < getWidth() && py < getHeight()) {
+         repaint((int) px, (int) py, size, size);
+      }
+   }
+
+   /** Moves the viewport by the given number of pixels, and stops it following the agent. */
+   void scroll(int dx, int dy) {
+      if (world == null) {
+         return;
+      }
+      if (fit) {
+         fit = false;
+      }
+      follow = false;
+      viewX += dx;
+      viewY += dy;
+      repaint();
+   }
+
+   /**
+    * Increases, or decreases, the size of the locations while keeping the location at the given pixel in the same place.
+    *
+    * @param steps positive to zoom in, negative to zoom out
+    */
+   void zoom(int steps, int px, int py) {
+      if (world == null || steps == 0) {
+         return;
+      }
+      int oldSize = fit ? getFitSize() : size;
+      int newSize = oldSize;
+      for (int i = 0; i < Math.abs(steps); i++) {
+         newSize = steps > 0 ? Math.max(newSize + 1, newSize * 5 / 4) : newSize * 4 / 5;
+      }
+      newSize = Math.max(MIN_SIZE, Math.min(MAX_SIZE, newSize));
+      long oldViewX = fit ? (long) world.getMaze().getMinX() * oldSize : viewX;
+      long oldViewY = fit ? (long) world.getMaze().getMinY() * oldSize : viewY;
+      fit = false;
+      size = newSize;
+      viewX = Math.floorDiv((oldViewX + px) * newSize, oldSize) - px;
+      viewY = Math.floorDiv((oldViewY + py) * newSize, oldSize) - py;
+      repaint();
+   }
+
+   /** Centres the viewport on the agent and makes it follow the agent as it moves. */
+   void followAgent() {
+      if (world == null) {
+         return;
+      }
+      follow = true;
+      if (!fit) {
+         centreOn(world.getAgentLocation());
+      }
+      repaint();
+   }
+
+   boolean isFollowing() {
+      return follow;
+   }
+
+   private void centreOn(Coordinate c) {
+      viewX = (long) c.getX() * size + size / 2 - getWidth() / 2;
+      viewY = (long) c.getY() * size + size / 2 - getHeight() / 2;
+   }
+
+   private int getFitSize() {
+      Maze maze = world.getMaze();
+      long columns = (long) maze.getMaxX() - maze.getMinX() + 1;
+      long rows = (long) maze.getMaxY() - maze.getMinY() + 1;
+      return (int) Math.max(0, Math.min(getWidth() / columns, getHeight() / rows));
+   }
+
+   /** Decides which part of the maze to display, based on the current size of the component and location of the agent. */
+   private void updateViewport() {
+      Maze maze = world.getMaze();
+      Coordinate agent = world.getAgentLocation();
+      boolean agentInMaze = agent.getX() >= maze.getMinX() && agent.getX() <= maze.getMaxX() && agent.getY() >= maze.getMinY() && agent.getY() <= maze.getMaxY();
+      if (fit) {
+         int fitSize = getFitSize();
+         if (fitSize >= MIN_FIT_SIZE && agentInMaze) {
+            size = fitSize;
+            viewX = (long) maze.getMinX() * size;
+            viewY = (long) maze.getMinY() * size;
+            return;
+         }
+         fit = false;
+         size = Math.max(fitSize, DEFAULT_SIZE);
+         centreOn(agent);
+      }
+      if (follow) {
+         long agentX = (long) agent.getX() * size;
+         long agentY = (long) agent.getY() * size;
+         long margin = (long) FOLLOW_MARGIN * size;
+         if (agentX < viewX + margin || agentX + size > viewX + getWidth() - margin || agentY < viewY + margin
+             || agentY + size > viewY + getHeight() - margin) {
+            centreOn(agent);
+         }
+      }
+   }
+
+   @Override
+   protected void paintComponent(Graphics g) {
+      g.setColor(getBackground());
+      g.fillRect(0, 0, getWidth(), getHeight());
+
+      World world = this.world;
+      if (world == null || getWidth() == 0 || getHeight() == 0) {
+         return;
+      }
+
+      updateViewport();
+      scaleImages(size);
+      if (tileMaze != world.getMaze() || tileSize != size) {
+         tiles.clear();
+         tileMaze = world.getMaze();
+         tileSize = size;
+         tileLocations = Math.max(1, TILE_PIXELS / size);
+      }
+
+      Rectangle clip = g.getClipBounds();
+      if (clip == null) {
+         clip = new Rectangle(0, 0, getWidth(), getHeight());
+      }
+      Graphics clipped = g.create();
+      if (fit) {
+         // when displaying the whole maze, do not paint anything outside of it
+         Maze maze = world.getMaze();
+         clipped.clipRect(0, 0, (maze.getMaxX() - maze.getMinX() + 1) * size, (maze.getMaxY() - maze.getMinY() + 1) * size);
+      }
 
-            ImageIcon image;
-            if (world.isAgentLocated(coordinate)) {
-               switch (world.getAgentDirection()) {
-                  case NORTH:
-                     image = agentNorthImage;
-                     break;
-                  case EAST:
-                     image = agentEastImage;
-                     break;
-                  case SOUTH:
-                     image = agentSouthImage;
-                     break;
-                  case WEST:
-                     image = agentWestImage;
-                     break;
-                  default:
-                     throw new IllegalArgumentException();
-               }
-            } else if (world.isWumpus(coordinate) && world.isWumpusAlive()) {
-               image = wumpusAliveImage;
-            } else if (world.isGold(coordinate)) {
-               image = goldImage;
-            } else if (world.isHome(coordinate)) {
-               image = homeImage;
-            } else if (world.isPit(coordinate)) {
-               image = pitImage;
-            } else if (world.isWumpus(coordinate)) {
-               image = wumpusDeadImage;
-            } else {
-               image = null;
+      long tilePixels = (long) tileLocations * size;
+      long firstTileX = Math.floorDiv(viewX + clip.x, tilePixels);
+      long lastTileX = Math.floorDiv(viewX + clip.x + clip.width - 1, tilePixels);
+      long firstTileY = Math.floorDiv(viewY + clip.y, tilePixels);
+      long lastTileY = Math.floorDiv(viewY + clip.y + clip.height - 1, tilePixels);
+      for (long ty = firstTileY; ty <= lastTileY; ty++) {
+         for (long tx = firstTileX; tx <= lastTileX; tx++) {
+            clipped.drawImage(getTile((int) tx, (int) ty), (int) (tx * tilePixels - viewX), (int) (ty * tilePixels - viewY), null);
+         }
+      }
+
+      // paint the locations whose contents can change on top of the tiles
+      Maze maze = world.getMaze();
+      paintDynamicLocation(clipped, world, maze.getWumpus());
+      paintDynamicLocation(clipped, world, maze.getGold());
+      paintDynamicLocation(clipped, world, world.getAgentLocation());
+      clipped.dispose();
+   }
+
+   private BufferedImage getTile(int tx, int ty) {
+      Long key = ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+      BufferedImage tile = tiles.get(key);
+      if (tile == null) {
+         tile = new BufferedImage(tileLocations * size, tileLocations * size, BufferedImage.TYPE_INT_RGB);
+         Graphics g = tile.getGraphics();
+         for (int row = 0; row < tileLocations; row++) {
+            for (int column = 0; column < tileLocations; column++) {
+               int x = tx * tileLocations + column;
+               int y = ty * tileLocations + row;
+               paintStaticLocation(g, world, x, y, column * size, row * size);
             }
+         }
+         g.dispose();
+         tiles.put(key, tile);
+      }
+      return tile;
+   }
+
+   /** Returns the number of tiles currently cached. */
+   int getCachedTiles() {
+      return tiles.size();
+   }
 
-            cell.setBackground(background);
-            cell.setImage(image);
-            cell.setText(coordinate.minus(world.getHome()) + " " + description);
+   private void paintDynamicLocation(Graphics g, World world, Coordinate c) {
+      if (c == null) {
+         return;
+      }
+      int px = (int) ((long) c.getX() * size - viewX);
+      int py = (int) ((long) c.getY() * size - viewY);
+      if (px + size > 0 && py + size > 0 && px < getWidth() && py < getHeight()) {
+         paintLocation(g, world, c.getX(), c.getY(), px, py);
+      }
+   }
+
+   /** Paints the location as it would appear without the agent, the wumpus or the gold. */
+   private void paintStaticLocation(Graphics g, World world, int x, int y, int px, int py) {
+      if (world.isWall(x, y)) {
+         paintLocation(g, x, y, px, py, Color.BLACK, "wall", null);
+      } else if (world.isPit(x, y)) {
+         paintLocation(g, x, y, px, py, Color.RED, "pit", Sprite.PIT);
+      } else if (world.isHome(x, y)) {
+         paintLocation(g, x, y, px, py, Color.GREEN, "home", Sprite.HOME);
+      } else {
+         paintLocation(g, x, y, px, py, Color.WHITE, "", null);
+      }
+   }
+
+   private void paintLocation(Graphics g, World world, int x, int y, int px, int py) {
+      Color background;
+      String description;
+      if (world.isWall(x, y)) {
+         background = Color.BLACK;
+         description = "wall";
+      } else if (world.isPit(x, y)) {
+         background = Color.RED;
+         description = "pit";
+      } else if (world.isWumpus(x, y) && world.isWumpusAlive()) {
+         background = Color.RED;
+         description = "wumpus";
+      } else if (world.isGold(x, y)) {
+         background = Color.YELLOW;
+         description = "gold";
+      } else if (world.isHome(x, y)) {
+         background = Color.GREEN;
+         description = "home";
+      } else {
+         background = Color.WHITE;
+         description = "";
+      }
+      paintLocation(g, x, y, px, py, background, description, getSprite(world, x, y));
+   }
+
+   private void paintLocation(Graphics g, int x, int y, int px, int py, Color background, String description, Sprite sprite) {
+      g.setColor(background);
+      g.fillRect(px, py, size, size);
+      if (size > 2) {
+         g.setColor(Color.BLACK);
+         g.drawRect(px, py, size - 1, size - 1);
+      }
+
+      Image image = sprite == null ? null : scaled[sprite.ordinal()];
+      if (image != null) {
+         g.drawImage(image, px + (size - image.getWidth(null)) / 2, py + (size - image.getHeight(null)) / 2, null);
+      }
+
+      if (size >= MIN_TEXT_SIZE) {
+         Coordinate home = world.getHome();
+         String text = (x - home.getX()) + "," + (y - home.getY()) + " " + description;
+         FontMetrics metrics = g.getFontMetrics();
+         g.setColor(background == Color.BLACK ? Color.WHITE : Color.BLACK);
+         g.drawString(text, px + (size - metrics.stringWidth(text)) / 2, py + metrics.getAscent() + 2);
+      }
+   }
+
+   private static Sprite getSprite(World world, int x, int y) {
+      if (world.isAgentLocated(x, y)) {
+         switch (world.getAgentDirection()) {
+            case NORTH:
+               return Sprite.AGENT_NORTH;
+            case EAST:
+               return Sprite.AGENT_EAST;
+            case SOUTH:
+               return Sprite.AGENT_SOUTH;
+            case WEST:
+               return Sprite.AGENT_WEST;
+            default:
+               throw new IllegalArgumentException();
          }
+      } else if (world.isWumpus(x, y) && world.isWumpusAlive()) {
+         return Sprite.WUMPUS_ALIVE;
+      } else if (world.isGold(x, y)) {
+         return Sprite.GOLD;
+      } else if (world.isHome(x, y)) {
+         return Sprite.HOME;
+      } else if (world.isPit(x, y)) {
+         return Sprite.PIT;
+      } else if (world.isWumpus(x, y)) {
+         return Sprite.WUMPUS_DEAD;
+      } else {
+         return null;
+      }
+   }
+
+   /** Scales the images, if not already scaled, for locations of the given size. */
+   private void scaleImages(int size) {
+      if (size == scaledSize) {
+         return;
+      }
+      scaledSize = size;
+      int imageSize = (int) (size * IMAGE_SCALE);
+      for (Sprite sprite : Sprite.values()) {
+         scaled[sprite.ordinal()] = imageSize < MIN_IMAGE_SIZE ? null : scale(sprite.image, imageSize);
       }
    }
 
-   private static ImageIcon loadImage(String imageName) {
+   private static Image scale(BufferedImage image, int imageSize) {
+      BufferedImage result = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g = result.createGraphics();
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.drawImage(image, 0, 0, imageSize, imageSize, null);
+      g.dispose();
+      return result;
+   }
+
+   private static BufferedImage loadImage(String imageName) {
       URL url = ClassLoader.getSystemClassLoader().getResource(imageName);
-      if (url != null) {
-         return new ImageIcon(url);
-      } else {
+      if (url == null) {
          throw new IllegalArgumentException("cannot find resource: " + imageName);
       }
+      try {
+         return ImageIO.read(url);
+      } catch (IOException e) {
+         throw new UncheckedIOException("cannot read resource: " + imageName, e);
+      }
    }
 }
@@ -0,0 +1,150 @@
+% This file contains a Prolog implementation of find_route/4 - the predicate wumpus.pl uses to find routes.
+% It finds the same routes as the Java implementation, org.projog.wumpus.FindRoute, and is used instead of it when
+% PrologGameController is created with nativeRouteFinder set to false.
+% It uses the direction logic of wumpus.pl, so must be consulted after wumpus.pl.
+
+% find_route(state(X:Y,Direction),Safe,Targets,Route)
+% Route is the lowest cost route, through the locations in Safe, from state(X:Y,Direction) to one of Targets.
+% Moving forward costs 1, turning left or right and moving forward costs 2 and turning around and moving forward costs 3.
+% The search is A* using a pairing heap as the open set. Each state is expanded at most once - expanded/1 is the closed
+% set - and a route is only added to the open set if no cheaper route to its last state has been added.
+% The heuristic is the number of moves, through safe locations, to the nearest target - as calculated by a breadth-first
+% search from the targets before the A* search starts. Locations from which no target can be reached are not considered.
+% (The Java implementation keeps these distances between calls, and only recalculates the ones that have changed. It
+% also keeps the exact cost of reaching the nearest target from each state, and uses it to skip the states that are not
+% on any of the cheapest routes - which does not change the route that is found.)
+% Routes with the same estimated cost are considered in the reverse of the order they were added.
+% After each search expanded_states/1 contains the number of states that were expanded.
+find_route(state(Coord,Direction),Safe,Targets,Route) :-
+  retractall(safe_square(_)),
+  retractall(target_square(_)),
+  retractall(expanded(_)),
+  retractall(route_cost(_,_)),
+  retractall(expanded_states(_)),
+  maplist(add_safe_square,Safe),
+  maplist(add_target_square,Targets),
+  assert(expanded_states(0)),
+  calculate_distances(Targets),
+  initial_open_set(state(Coord,Direction),OpenSet,Sequence),
+  search_open_set(OpenSet,Sequence,Path),
+  reverse(Path,[_CurrentLocation|Route]).
+
+add_safe_square(Coord) :- assert(safe_square(Coord)).
+
+add_target_square(Coord) :- assert(target_square(Coord)).
+
+initial_open_set(FirstStep,OpenSet,Sequence) :-
+  FirstStep = state(Coord,Direction),
+  assert(route_cost(FirstStep,0)),
+  estimate_cost(FirstStep,FirstStepEstimate),
+  turn_right(Direction,RightDirection),
+  turn_right(RightDirection,OppositeDirection),
+  ReverseStep1 = state(Coord,OppositeDirection),
+  assert(expanded(ReverseStep1)), % is part of the route that reverses, so is not a state to be expanded
+  forward_state(ReverseStep1,ReverseStep2),
+  ReverseStep2 = state(ReverseCoord,_),
+  (distance(ReverseCoord,ReverseStepEstimate) ->
+    ReverseCost = 3, % 3 = cost of reverse (2*right or 2*left, + 1 forward)
+    assert(route_cost(ReverseStep2,ReverseCost)),
+    ReverseEstimate is ReverseCost + ReverseStepEstimate,
+    heap_insert(ReverseEstimate-0,route([ReverseStep2,ReverseStep1],ReverseCost),nil,ReverseOpenSet),
+    % if estimates are equal then moving forward is considered before reversing
+    heap_insert(FirstStepEstimate-(-1),route([FirstStep],0),ReverseOpenSet,OpenSet),
+    Sequence = 2;
+    heap_insert(FirstStepEstimate-0,route([FirstStep],0),nil,OpenSet),
+    Sequence = 1).
+
+search_open_set(OpenSet,Sequence,Result) :-
+  heap_delete_min(OpenSet,_,route(Path,Cost),Remaining),
+  Path = [State|_],
+  (expanded(State) ->
+    search_open_set(Remaining,Sequence,Result);
+    assert(expanded(State)),
+    State = state(Coord,_),
+    (target_square(Coord) ->
+      Result = Path;
+      retract(expanded_states(Expanded)),
+      NewExpanded is Expanded + 1,
+      assert(expanded_states(NewExpanded)),
+      findall(Step-StepCost,next_step(State,Step,StepCost),Steps),
+      add_steps(Steps,Path,Cost,Remaining,Sequence,NewOpenSet,NewSequence),
+      search_open_set(NewOpenSet,NewSequence,Result))).
+
+% forward, then turn right and move forward, then turn left and move forward
+next_step(State,Neighbour,1) :-
+  forward_state(State,Neighbour).
+next_step(state(Coord,Direction),Neighbour,2) :-
+  adjacent_direction(Direction,NewDirection,_),
+  forward_state(state(Coord,NewDirection),Neighbour).
+
+% Routes to locations that are not safe, or from which no target can be reached, are not added.
+add_steps([],_,_,OpenSet,Sequence,OpenSet,Sequence).
+add_steps([Step-StepCost|Steps],Path,Cost,OpenSet,Sequence,Result,ResultSequence) :-
+  Step = state(Coord,_),
+  NewCost is Cost + StepCost,
+  (distance(Coord,StepEstimate), \+ expanded(Step), \+ cheaper_route(Step,NewCost) ->
+    retractall(route_cost(Step,_)),
+    assert(route_cost(Step,NewCost)),
+    Estimate is NewCost + StepEstimate,
+    Order is -Sequence, % most recently added first
+    heap_insert(Estimate-Order,route([Step|Path],NewCost),OpenSet,NewOpenSet),
+    NewSequence is Sequence + 1;
+    NewOpenSet = OpenSet,
+    NewSequence = Sequence),
+  add_steps(Steps,Path,Cost,NewOpenSet,NewSequence,Result,ResultSequence).
+
+cheaper_route(State,Cost) :-
+  route_cost(State,BestCost),
+  BestCost < Cost.
+
+estimate_cost(state(Coord,_),Cost) :-
+  distance(Coord,Cost).
+
+% distance(Coord,Distance) records the number of moves from each safe location to the nearest target.
+calculate_distances(Targets) :-
+  retractall(distance(_,_)),
+  add_distances(Targets,0,Frontier),
+  calculate_distances(Frontier,0).
+
+calculate_distances([],_) :- !.
+calculate_distances(Frontier,Distance) :-
+  NextDistance is Distance + 1,
+  findall(Adjacent,(member(Coord,Frontier),adjacent_location(Coord,Adjacent)),Adjacents),
+  add_distances(Adjacents,NextDistance,NextFrontier),
+  calculate_distances(NextFrontier,NextDistance).
+
+% Records the distance of each safe location that does not already have one, returning those locations.
+add_distances([],_,[]).
+add_distances([Coord|Coords],Distance,Added) :-
+  safe_square(Coord),
+  \+ distance(Coord,_),
+  !,
+  assert(distance(Coord,Distance)),
+  Added = [Coord|Remaining],
+  add_distances(Coords,Distance,Remaining).
+add_distances([_|Coords],Distance,Added) :-
+  add_distances(Coords,Distance,Added).
+
+% pairing heap
+% ***********************************************************
+% A heap is either nil or heap(Key,Value,SubHeaps). Keys are compared using the standard order of terms.
+heap_insert(Key,Value,Heap,Result) :-
+  heap_merge(heap(Key,Value,[]),Heap,Result).
+
+heap_delete_min(heap(Key,Value,SubHeaps),Key,Value,Result) :-
+  heap_merge_pairs(SubHeaps,Result).
+
+heap_merge(nil,Heap,Heap) :- !.
+heap_merge(Heap,nil,Heap) :- !.
+heap_merge(heap(Key1,Value1,SubHeaps1),heap(Key2,Value2,SubHeaps2),Result) :-
+  Key1 @=< Key2,
+  !,
+  Result = heap(Key1,Value1,[heap(Key2,Value2,SubHeaps2)|SubHeaps1]).
+heap_merge(Heap1,heap(Key2,Value2,SubHeaps2),heap(Key2,Value2,[Heap1|SubHeaps2])).
+
+heap_merge_pairs([],nil).
+heap_merge_pairs([Heap],Heap) :- !.
+heap_merge_pairs([Heap1,Heap2|Heaps],Result) :-
+  heap_merge(Heap1,Heap2,Merged),
+  heap_merge_pairs(Heaps,Remaining),
+  heap_merge(Merged,Remaining,Result).
@@ -1,7 +1,10 @@
 % This file contains logic to navigate an agent around a Wumpus World.
 % The entry points - called from the PrologGameController Java class - are reset_agent_state/0 process/2.
-
-?- arithmetic_function(estimate_cost/2).
+% Routes are found by find_route/4, which is implemented in Java by the FindRoute class.
+% The facts recorded about locations - visited, to_visit, wall, stench, possible_wumpus and possibly_wumpus - are stored
+% in Java, by the LocationFacts class. location(Name,X:Y) is true if X:Y is recorded for the fact Name. Facts are
+% changed using add_location/2, remove_location/2 and clear_locations/1.
+% direction_offset/3, forward_state/2 and adjacent_location/2 are implemented in Java by the Geometry class.
 
 % The agents home location.
 % This is the location where the agent starts and where they must return in order to climb out of the maze.
@@ -13,11 +16,12 @@ reset_agent_state :-
   writeln('Reset agent state'),
   retractall(agent_state(_,_)),
   retractall(arrow_state(_)),
-  retractall(visited(_)),
-  retractall(to_visit(_)),
-  retractall(possible_wumpus(_)),
-  retractall(stench(_)),
-  retractall(wall(_)),
+  clear_locations(visited),
+  clear_locations(to_visit),
+  clear_locations(possible_wumpus),
+  clear_locations(possibly_wumpus),
+  clear_locations(stench),
+  clear_locations(wall),
   retractall(have_gold),
   retractall(route(_)),
   home(HomeCoord),
@@ -26,15 +30,8 @@ reset_agent_state :-
 
 % direction logic
 % ***********************************************************
-direction(north,0,-1).
-direction(east,1,0).
-direction(south,0,1).
-direction(west,-1,0).
-
-opposite_direction(north,south).
-opposite_direction(south,north).
-opposite_direction(east,west).
-opposite_direction(west,east).
+% direction_offset(Direction,IncX,IncY) - implemented in Java - gives the values to add to the x and y of a location to
+% move one location in Direction: north is 0,-1, east is 1,0, south is 0,1 and west is -1,0.
 
 turn_right(north,east).
 turn_right(east,south).
@@ -48,16 +45,8 @@ adjacent_direction(X,Y,left) :- turn_left(X,Y).
 
 % state handling logic
 % ***********************************************************
-create_state(state(X:Y,Direction),state(NextX:NextY,Direction)) :-
-  number(X),
-  !,
-  direction(Direction,IncX,IncY),
-  NextX is X+IncX,
-  NextY is Y+IncY.
-create_state(state(PreviousX:PreviousY,Direction),state(X:Y,Direction)) :-
-  direction(Direction,IncX,IncY),
-  PreviousX is X-IncX,
-  PreviousY is Y-IncY.
+% forward_state(state(X:Y,Direction),state(NextX:NextY,Direction)) - implemented in Java - is true if moving forward
+% from the first state results in the second. The location of at least one of the states must be bound.
 
 update_agent_state(Coord,Direction) :-
   retractall(agent_state(_:_,_)),
@@ -67,55 +56,55 @@ update_arrow_state(State) :-
   retractall(arrow_state(_)),
   assert(arrow_state(State)).
 
-adjacent_to_square(X:Y, Output) :-
-  direction(_,IncX,IncY),
-  NewX is X + IncX,
-  NewY is Y + IncY,
-  Output = NewX:NewY.
+% adjacent_location(X:Y,Adjacent) - implemented in Java - is true if Adjacent is next to X:Y.
 
 unknown(Coord) :-
-  \+ visited(Coord),
-  \+ wall(Coord),
-  \+ to_visit(Coord).
+  \+ location(visited,Coord),
+  \+ location(wall,Coord),
+  \+ location(to_visit,Coord).
 
 add_adjacent_to_visit(Coord) :-
-  adjacent_to_square(Coord,Adjacent),
+  adjacent_location(Coord,Adjacent),
   unknown(Adjacent),
-  \+ ((wumpus_alive,possible_wumpus(Adjacent))), % TODO should not have to use double brackets
-  assert(to_visit(Adjacent)),
-  retractall(possible_wumpus(Adjacent)).
+  \+ ((wumpus_alive,location(possible_wumpus,Adjacent))), % TODO should not have to use double brackets
+  add_location(to_visit,Adjacent),
+  remove_location(possible_wumpus,Adjacent).
 
 add_adjacent_to_stench(Coord) :-
-  findall(Adjacent,adjacent_to_square(Coord,Adjacent),Adjacents),
-  possible_wumpus(Possible),
+  findall(Adjacent,adjacent_location(Coord,Adjacent),Adjacents),
+  location(possible_wumpus,Possible),
   \+ member(Possible, Adjacents),
-  retract(possible_wumpus(Possible)).
+  remove_location(possible_wumpus,Possible).
 add_adjacent_to_stench(Coord) :-
-  \+ possible_wumpus(_),
-  adjacent_to_square(Coord,Adjacent),
+  \+ location(possible_wumpus,_),
+  adjacent_location(Coord,Adjacent),
   unknown(Adjacent),
-  assert(possible_wumpus(Adjacent)).
+  add_location(possible_wumpus,Adjacent).
 
 % Maintain a record of where we have visited and where we have detected a stench percept.
 add_visited(Coord,Percepts) :-
   is_stench(Percepts),
-  \+ stench(Coord),
-  assert(stench(Coord)),
+  \+ location(stench,Coord),
+  add_location(stench,Coord),
+  add_stench_to_possibly_wumpus(Coord),
   add_adjacent_to_stench(Coord),
   fail.
 add_visited(Coord,Percepts) :-
-  \+ visited(Coord),
-  assert(visited(Coord)),
-  retractall(to_visit(Coord)),
-  retractall(possible_wumpus(Coord)),
+  \+ location(visited,Coord),
+  add_location(visited,Coord),
+  remove_location(to_visit,Coord),
+  remove_location(possible_wumpus,Coord),
+  remove_location(possibly_wumpus,Coord),
+  remove_adjacent_possibly_wumpus(Coord),
   \+ is_breeze(Percepts),
   add_adjacent_to_visit(Coord).
 
 add_wall(Coord) :-
-  \+ wall(Coord),
-  assert(wall(Coord)),
-  retractall(to_visit(Coord)),
-  retractall(possible_wumpus(Coord)).
+  \+ location(wall,Coord),
+  add_location(wall,Coord),
+  remove_location(to_visit,Coord),
+  remove_location(possible_wumpus,Coord),
+  remove_location(possibly_wumpus,Coord).
 
 is_glitter(Percepts) :- member(glitter, Percepts).
 
@@ -135,39 +124,62 @@ wumpus_alive :-
 
 can_hunt :-
   arrow_state(have),
-  stench(_),
+  location(stench,_),
   !.
 
 should_hunt :-
   can_hunt,
   \+ have_gold,      % if have gold then do not need to kill wumpus, should head home instead
-  \+ to_visit(_).  % should visit all safe squares before attempting to kill the wumpus  
-
-not_adjacent_to_every_stench(Coord) :-
-  stench(StenchCoord),
-  \+ create_state(state(StenchCoord,_),state(Coord,_)).
+  \+ location(to_visit,_).  % should visit all safe squares before attempting to kill the wumpus  
+
+% location(possibly_wumpus,Coord) is true if the wumpus is alive and could be at Coord - a square that is adjacent to
+% every stench, that we have not visited, that is not a wall and that is not next to any visited square without a stench.
+% Rather than being derived each time it is queried, it is recorded as each fact it depends on is added.
+
+% The wumpus must be adjacent to every stench. For the first stench, record each adjacent square that has not already been
+% ruled out. For later stenches, discard any square that is not adjacent to the new stench.
+add_stench_to_possibly_wumpus(Coord) :-
+  other_stench(Coord),
+  location(possibly_wumpus,Possible),
+  \+ adjacent_location(Coord,Possible),
+  remove_location(possibly_wumpus,Possible),
+  fail.
+add_stench_to_possibly_wumpus(Coord) :-
+  \+ other_stench(Coord),
+  wumpus_alive, % only worry about stench if wumpus alive
+  adjacent_location(Coord,Adjacent),
+  \+ location(visited,Adjacent),
+  \+ location(wall,Adjacent),
+  \+ adjacent_to_no_stench(Adjacent),
+  add_location(possibly_wumpus,Adjacent),
+  fail.
+add_stench_to_possibly_wumpus(_).
 
-adjacent_to_every_stench(Coord) :-
-  \+ not_adjacent_to_every_stench(Coord).
+other_stench(Coord) :-
+  location(stench,StenchCoord),
+  StenchCoord \= Coord,
+  !.
 
 adjacent_to_no_stench(Coord) :-
-  create_state(state(Coord,_),state(AdjacentCoord,_)),
-  visited(AdjacentCoord),
-  \+ stench(AdjacentCoord).
+  adjacent_location(Coord,AdjacentCoord),
+  location(visited,AdjacentCoord),
+  \+ location(stench,AdjacentCoord).
 
-possibly_wumpus(Coord) :-
-  wumpus_alive, % only worry about stench if wumpus alive
-  % find first stench and check all cells adjacent to it
-  stench(StenchCoord),
-  !,
-  create_state(state(StenchCoord,_),state(Coord,_)),
-  \+ visited(Coord), % if we have already visited the square then it cannot be the location of the wumpus
-  \+ wall(Coord),    % if we know square contains a wall then it cannot be the location of the wumpus
-  \+ adjacent_to_no_stench(Coord), % if next to any visited square without a stench then cannot be the location of the wumpus
-  adjacent_to_every_stench(Coord).
+% If a visited square has no stench then the wumpus cannot be in any square next to it.
+remove_adjacent_possibly_wumpus(Coord) :-
+  location(stench,Coord),
+  !.
+remove_adjacent_possibly_wumpus(Coord) :-
+  adjacent_location(Coord,Adjacent),
+  remove_location(possibly_wumpus,Adjacent),
+  fail.
+remove_adjacent_possibly_wumpus(_).
 
 % a square is safe if we have already visited it or know it is safe to visit
-safe(state(Coord,_)) :- once((visited(Coord);to_visit(Coord))).
+safe_squares(Safe) :-
+  findall(Coord,location(visited,Coord),Visited),
+  findall(Coord,location(to_visit,Coord),ToVisit),
+  append(Visited,ToVisit,Safe).
 
 % should exit if have gold or no where left to visit
 should_exit :-
@@ -175,14 +187,14 @@ should_exit :-
   !.
 should_exit :-
   \+ can_hunt, 
-  \+ to_visit(_).
+  \+ location(to_visit,_).
 
 should_fire :-
   should_hunt,
   agent_state(Coord,Direction),
-  stench(Coord),
-  create_state(state(Coord,Direction),state(TargetCoord,Direction)),
-  possibly_wumpus(TargetCoord).
+  location(stench,Coord),
+  forward_state(state(Coord,Direction),state(TargetCoord,Direction)),
+  location(possibly_wumpus,TargetCoord).
   
 % path finding code
 % ***********************************************************
@@ -192,89 +204,25 @@ set_route(Path) :-
 
 find_path(find_gold,Targets) :-
   \+ have_gold,
-  findall(Coord,to_visit(Coord),Targets).
+  findall(Coord,location(to_visit,Coord),Targets).
 find_path(hunt_wumpus,Targets) :-
   should_hunt,
-  findall(Coord,stench(Coord),Targets).
+  findall(Coord,location(stench,Coord),Targets).
 find_path(go_home,Targets) :-
   home(HomeCoord),
   Targets=[HomeCoord].
 
-manhattan_distance(state(FromX:FromY,_),ToX:ToY,Cost) :-
-  Cost is abs(FromX-ToX) + abs(FromY-ToY).
-
-estimate_cost(State,Targets,Cost) :- 
-  maplist(manhattan_distance(State),Targets,Costs),
-  min_list(Costs,Cost).
-
-% dont allow 180 degree turn, would just be returning to an already visited state
-next_step(state(X:Y,Direction),Neighbour,1) :-
-  create_state(state(X:Y,Direction), Neighbour).
-next_step(state(X:Y,Direction),Neighbour,2) :-
-  adjacent_direction(Direction,NewDirection,_),
-  create_state(state(X:Y,NewDirection), Neighbour).
-
-next_path(route(Path,Cost,_),Child,Targets) :-
-  [Head|_] = Path,
-  next_step(Head,Neighbour,StepCost),
-  safe(Head),
-  \+ member(Neighbour,Path), % avoid returning to already visited cell
-  NewPath = [Neighbour|Path],
-  NewCost is Cost+StepCost,
-  Estimate is NewCost+estimate_cost(Neighbour,Targets),
-  Child = route([Neighbour|Path],NewCost,Estimate).
-
-insert_into_sorted_list(Element, [], Result) :-
-  Result = [Element].
-insert_into_sorted_list(Element,[Head|Tail],Result) :-
-  Element = route(_,_,ElementCost),
-  Head = route(_,_,HeadCost),
-  ElementCost =< HeadCost,
-  Result = [Element,Head|Tail],
-  !.
-insert_into_sorted_list(Element,[Head|Tail],Result) :-
-  Result = [Head|SubResult],
-  insert_into_sorted_list(Element,Tail,SubResult).
-
-add_new_paths([],Paths,Paths).
-add_new_paths([Head|Tail],Paths,Sorted) :-
-  once(insert_into_sorted_list(Head,Paths,UpdatedPaths)), % shouldnt need to wrap in once
-  add_new_paths(Tail,UpdatedPaths,Sorted).
-
-search([BestPath|_],Targets,BestPath) :-
-  BestPath=route([state(Coord,_)|_],_,_),
-  once(member(Coord,Targets)).
-search([Path|Tail],Targets,BestPath) :-
-  findall(Child,next_path(Path,Child,Targets),Children),
-  add_new_paths(Children,Tail,Sorted),
-  search(Sorted,Targets,BestPath).
-
-initial_search_tree(Targets,InitialSearch) :-
-  agent_state(Coord,Direction),
-  FirstStep = state(Coord,Direction),
-  FirstStepEstimate is estimate_cost(FirstStep,Targets),
-  FirstRoute=route([FirstStep],0,FirstStepEstimate),
-  opposite_direction(Direction,OppositeDirection),
-  ReverseStep1 = state(Coord,OppositeDirection),
-  create_state(ReverseStep1,ReverseStep2),
-  ReverseCost = 3, % 3 = cost of reverse (2*right or 2*left, + 1 forward)
-  ReverseStepEstimate is ReverseCost + estimate_cost(ReverseStep2,Targets),
-  (safe(ReverseStep2) ->
-    ReverseRoute=route([ReverseStep2,ReverseStep1],ReverseCost,ReverseStepEstimate),
-    (FirstStepEstimate>ReverseStepEstimate ->
-      InitialSearch=[ReverseRoute,FirstRoute];
-      InitialSearch=[FirstRoute,ReverseRoute]);
-    InitialSearch=[FirstRoute]).
-
+% find_route/4 finds the lowest cost route, through safe squares, to the nearest target.
+% Moving forward costs 1, turning left or right and moving forward costs 2 and turning around and moving forward costs 3.
 set_path :-
   find_path(Goal,Targets),
   Targets \= [], % need to have at least one target to aim for
-  initial_search_tree(Targets,Paths),
-  once(search(Paths,Targets,route(Best,_,_))),
-  reverse(Best,[_CurrentLocation|Reversed]),
+  agent_state(Coord,Direction),
+  safe_squares(Safe),
+  find_route(state(Coord,Direction),Safe,Targets,Route),
   write('Goal: '), % TODO move to log_state
   writeln(Goal), % TODO move to log_state
-  set_route(Reversed),
+  set_route(Route),
   !.
 
 % update/2, log_state and process/2 predicates
@@ -283,9 +231,10 @@ set_path :-
 update(Percepts, Action) :-
   is_scream(Percepts),
   update_arrow_state(hit),
+  clear_locations(possibly_wumpus),
   agent_state(Coord,Direction),
   % As the wumpus is dead then we know it is safe to move to the square into which we fired the arrow.
-  create_state(state(Coord,Direction),NewState),
+  forward_state(state(Coord,Direction),NewState),
   set_route([NewState]),
   fail.
 % If we detect a buknow that our last move caused us to bump into a wall.
@@ -293,10 +242,13 @@ update(Percepts, Action) :-
   is_bump(Percepts),
   % Revert location to previous value prior to the forward action that caused the bump.
   agent_state(Coord,Direction),
-  create_state(state(NewCoord,_),state(Coord,Direction)),
+  forward_state(state(NewCoord,_),state(Coord,Direction)),
   update_agent_state(NewCoord,Direction),
   add_wall(Coord),
-  retractall(route(_)), % retract any planned route as has been invalidated by hitting a wall
+  % Retract any planned route, as it passes through the wall. The wall is not necessarily the last square of the route - a
+  % route home passes through squares still to be visited, any of which may be a wall - but rather than repairing the
+  % route, a new one is found from the current location.
+  retractall(route(_)),
   fail.
 % Record that we have visited the current location.
 update(Percepts, Action) :-
@@ -326,7 +278,7 @@ update(Percepts, Action) :-
   (is_breeze(Percepts) -> 
     true; 
     agent_state(Coord,Direction),
-    create_state(state(Coord,Direction),NewState),
+    forward_state(state(Coord,Direction),NewState),
     set_route([NewState])),
   Action=fire,
   !.
@@ -334,10 +286,10 @@ update(Percepts, Action) :-
 update(Percepts,Action) :-
   should_hunt,
   agent_state(Coord,Direction),
-  stench(Coord),
+  location(stench,Coord),
   turn_right(Direction,NewDirection),
-  create_state(state(Coord,NewDirection),state(NewCoord,_)),
-  (possibly_wumpus(NewCoord) ->
+  forward_state(state(Coord,NewDirection),state(NewCoord,_)),
+  (location(possibly_wumpus,NewCoord) ->
     update_agent_state(Coord,NewDirection),Action=right;
     turn_left(Direction,LeftDirection),update_agent_state(Coord,LeftDirection),Action=left),
   !.
@@ -375,10 +327,10 @@ update(Percepts, Action) :-
   writeln('Stuck!'),
   Action = stuck.
 
-log_state :- findall(X,visited(X),Result), write('Have visited: '), writeln(Result), fail.
-log_state :- findall(X,to_visit(X),Result), write('Safe to visit: '), writeln(Result), fail.
-log_state :- findall(X,wall(X),Result), write('Walls: '), writeln(Result), fail.
-log_state :- findall(X,possible_wumpus(X),Result), length(Result,Length), Length>0, write('Possible wumpus: '), writeln(Result), fail.
+log_state :- findall(X,location(visited,X),Result), write('Have visited: '), writeln(Result), fail.
+log_state :- findall(X,location(to_visit,X),Result), write('Safe to visit: '), writeln(Result), fail.
+log_state :- findall(X,location(wall,X),Result), write('Walls: '), writeln(Result), fail.
+log_state :- findall(X,location(possible_wumpus,X),Result), length(Result,Length), Length>0, write('Possible wumpus: '), writeln(Result), fail.
 log_state :- route(Result), length(Result,Length), Length>0, write('Follwing path: '), writeln(Result), fail.
 log_state.
 
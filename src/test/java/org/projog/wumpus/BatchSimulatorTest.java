@@ -0,0 +1,124 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.Maze;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+import org.projog.wumpus.model.MazeGenerator;
+import org.projog.wumpus.model.Percept;
+
+public class BatchSimulatorTest {
+   @Test
+   public void random_mazes() {
+      List<Maze> mazes = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         mazes.add(Maze.buildRandom());
+      }
+
+      BatchResult result = new BatchSimulator(PrologGameController::new, 4, 100).run(mazes);
+
+      assertEquals(20, result.getEpisodes());
+      assertEquals(20, result.getEscaped());
+      assertEquals(0, result.getDead());
+      assertEquals(0, result.getStuck());
+   }
+
+   /** Generating each maze from its seed as it is played gives the same outcomes as playing the mazes generated up front. */
+   @Test
+   public void generated_mazes() {
+      MazeGenerator generator = new MazeGenerator(5, 5).pits(3).walls(2);
+      List<Maze> mazes = new ArrayList<>();
+      generator.stream(7, 30).forEach(mazes::add);
+      BatchSimulator simulator = new BatchSimulator(JavaGameController::new, 4, 100);
+
+      BatchResult expected = simulator.run(mazes);
+      BatchResult actual = simulator.run(generator, 7, 30);
+
+      assertEquals(30, actual.getEpisodes());
+      assertEquals(expected.getEscaped(), actual.getEscaped());
+      assertEquals(expected.getDead(), actual.getDead());
+      assertEquals(expected.getStuck(), actual.getStuck());
+      assertEquals(expected.getTotalActions(), actual.getTotalActions());
+      assertEquals(expected.getMinActions(), actual.getMinActions());
+      assertEquals(expected.getMaxActions(), actual.getMaxActions());
+   }
+
+   @Test
+   public void outcomes() {
+      Maze open = new MazeBuilder().home(0, 0).build();
+      Maze pit = new MazeBuilder().home(0, 0).pit(0, -1).build();
+      Maze wall = new MazeBuilder().home(0, 0).wall(0, -1).build();
+
+      // controller that always moves forward and then climbs out, if it is still alive, after bumping into a wall
+      GameController controller = createController(percepts -> percepts.contains(Percept.BUMP) ? Action.CLIMB : Action.FORWARD);
+
+      BatchResult result = new BatchSimulator(() -> controller, 1, 10).run(Arrays.asList(open, pit, wall, wall));
+
+      assertEquals(4, result.getEpisodes());
+      assertEquals(2, result.getEscaped());
+      assertEquals(1, result.getDead());
+      // agent never bumps into a wall in the open maze, so keeps moving forward until the action limit is reached
+      assertEquals(1, result.getStuck());
+      assertEquals(1, result.getMinActions());
+      assertEquals(10, result.getMaxActions());
+      assertEquals(15, result.getTotalActions());
+   }
+
+   @Test
+   public void stuck() {
+      Maze open = new MazeBuilder().home(0, 0).build();
+      GameController controller = createController(percepts -> {
+         throw new StuckException();
+      });
+
+      BatchResult result = new BatchSimulator(() -> controller, 1, 10).run(Arrays.asList(open, open));
+
+      assertEquals(2, result.getEpisodes());
+      assertEquals(2, result.getStuck());
+      assertEquals(0, result.getTotalActions());
+   }
+
+   /** An exception that does not indicate the agent is stuck is a fault in the controller, so is not counted as an outcome. */
+   @Test
+   public void controller_error() {
+      Maze open = new MazeBuilder().home(0, 0).build();
+      GameController controller = createController(percepts -> {
+         throw new NullPointerException();
+      });
+
+      try {
+         new BatchSimulator(() -> controller, 1, 10).run(Arrays.asList(open));
+         fail();
+      } catch (IllegalStateException e) {
+         assertSame(NullPointerException.class, e.getCause().getClass());
+      }
+   }
+
+   private static GameController createController(Function<Set<Percept>, Action> logic) {
+      return new GameController() {
+         @Override
+         public void setOut(PrintStream out) {
+         }
+
+         @Override
+         public void reset() {
+         }
+
+         @Override
+         public Action process(Set<Percept> percepts) {
+            return logic.apply(percepts);
+         }
+      };
+   }
+}
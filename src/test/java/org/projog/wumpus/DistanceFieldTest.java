@@ -0,0 +1,183 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.projog.wumpus.DistanceField.UNREACHABLE;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.projog.wumpus.model.Coordinate;
+
+public class DistanceFieldTest {
+   @Test
+   public void distances() {
+      DistanceField field = new DistanceField();
+      field.addTarget(2, 0);
+      assertEquals(UNREACHABLE, field.getDistance(2, 0));
+
+      field.addSafe(0, 0);
+      field.addSafe(1, 0);
+      assertEquals(UNREACHABLE, field.getDistance(0, 0));
+      assertEquals(UNREACHABLE, field.getDistance(1, 0));
+
+      field.addSafe(2, 0);
+      assertEquals(2, field.getDistance(0, 0));
+      assertEquals(1, field.getDistance(1, 0));
+      assertEquals(0, field.getDistance(2, 0));
+
+      // a shorter route to a new target
+      field.addSafe(0, 1);
+      field.addTarget(0, 1);
+      assertEquals(1, field.getDistance(0, 0));
+      assertEquals(1, field.getDistance(1, 0));
+
+      // no longer a target, so the distance of the locations that relied on it increase
+      field.removeTarget(0, 1);
+      assertEquals(2, field.getDistance(0, 0));
+      assertEquals(3, field.getDistance(0, 1));
+
+      // no longer safe, so the locations on the other side of it cannot reach a target
+      field.removeSafe(1, 0);
+      assertEquals(UNREACHABLE, field.getDistance(1, 0));
+      assertEquals(UNREACHABLE, field.getDistance(0, 0));
+      assertEquals(UNREACHABLE, field.getDistance(0, 1));
+      assertEquals(0, field.getDistance(2, 0));
+
+      field.clear();
+      assertEquals(UNREACHABLE, field.getDistance(2, 0));
+      assertEquals(UNREACHABLE, field.getCost(2, 0, RouteFinder.NORTH));
+      assertEquals(0, field.getSafe().size());
+      assertEquals(0, field.getTargets().size());
+   }
+
+   @Test
+   public void costs() {
+      DistanceField field = new DistanceField();
+      field.addSafe(0, 0);
+      field.addSafe(1, 0);
+      field.addSafe(1, 1);
+      field.addTarget(1, 1);
+      assertEquals(0, field.getCost(1, 1, RouteFinder.WEST));
+      // turn right, then move forward, then turn right again
+      assertEquals(4, field.getCost(0, 0, RouteFinder.NORTH));
+      assertEquals(3, field.getCost(0, 0, RouteFinder.EAST));
+      // turning around is not considered
+      assertEquals(UNREACHABLE, field.getCost(0, 0, RouteFinder.WEST));
+      assertEquals(UNREACHABLE, field.getCost(1, 0, RouteFinder.NORTH));
+
+      field.removeSafe(1, 0);
+      assertEquals(UNREACHABLE, field.getCost(0, 0, RouteFinder.EAST));
+      field.addSafe(0, 1);
+      assertEquals(4, field.getCost(0, 0, RouteFinder.EAST));
+      assertEquals(3, field.getCost(0, 0, RouteFinder.SOUTH));
+   }
+
+   /**
+    * Compare the distances and costs after each of a random sequence of changes to those calculated by a breadth-first
+    * search and a search in order of cost.
+    */
+   @Test
+   public void compare_to_breadth_first_search() {
+      Random random = new Random(3);
+      DistanceField field = new DistanceField();
+      Set<Long> safe = new HashSet<>();
+      Set<Long> targets = new HashSet<>();
+      int size = 12;
+      for (int i = 0; i < 5000; i++) {
+         int x = random.nextInt(size);
+         int y = random.nextInt(size);
+         long location = Coordinate.pack(x, y);
+         switch (random.nextInt(4)) {
+            case 0:
+            case 1:
+               // add more safe locations than are removed, so there are long routes through them
+               field.addSafe(x, y);
+               safe.add(location);
+               break;
+            case 2:
+               if (random.nextInt(4) == 0) {
+                  field.addTarget(x, y);
+                  targets.add(location);
+               } else {
+                  field.removeTarget(x, y);
+                  targets.remove(location);
+               }
+               break;
+            default:
+               field.removeSafe(x, y);
+               safe.remove(location);
+         }
+
+         Map<Long, Integer> expected = breadthFirstSearch(safe, targets);
+         Map<Long, Integer> expectedCosts = cheapestCosts(safe, targets);
+         for (int ex = -1; ex <= size; ex++) {
+            for (int ey = -1; ey <= size; ey++) {
+               Integer distance = expected.get(Coordinate.pack(ex, ey));
+               assertEquals(i + " " + ex + ":" + ey, distance == null ? UNREACHABLE : distance, field.getDistance(ex, ey));
+               for (int d = RouteFinder.NORTH; d <= RouteFinder.WEST; d++) {
+                  Integer cost = expectedCosts.get(Coordinate.pack(ex, ey) * 4 + d);
+                  assertEquals(i + " " + ex + ":" + ey + ":" + d, cost == null ? UNREACHABLE : cost, field.getCost(ex, ey, d));
+               }
+            }
+         }
+      }
+   }
+
+   private static Map<Long, Integer> breadthFirstSearch(Set<Long> safe, Set<Long> targets) {
+      Map<Long, Integer> distances = new HashMap<>();
+      ArrayDeque<Long> queue = new ArrayDeque<>();
+      for (Long target : targets) {
+         if (safe.contains(target)) {
+            distances.put(target, 0);
+            queue.add(target);
+         }
+      }
+      while (!queue.isEmpty()) {
+         long location = queue.remove();
+         int distance = distances.get(location) + 1;
+         for (int d = RouteFinder.NORTH; d <= RouteFinder.WEST; d++) {
+            long neighbour = Coordinate.pack(Coordinate.unpackX(location) + RouteFinder.DX[d], Coordinate.unpackY(location) + RouteFinder.DY[d]);
+            if (safe.contains(neighbour) && !distances.containsKey(neighbour)) {
+               distances.put(neighbour, distance);
+               queue.add(neighbour);
+            }
+         }
+      }
+      return distances;
+   }
+
+   /** Returns the cost of each state, keyed by its packed location multiplied by 4 plus its direction. */
+   private static Map<Long, Integer> cheapestCosts(Set<Long> safe, Set<Long> targets) {
+      Map<Long, Integer> costs = new HashMap<>();
+      PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+      for (Long target : targets) {
+         if (safe.contains(target)) {
+            for (int d = RouteFinder.NORTH; d <= RouteFinder.WEST; d++) {
+               queue.add(new long[] {0, target, d});
+            }
+         }
+      }
+      long[] next;
+      while ((next = queue.poll()) != null) {
+         long location = next[1];
+         int direction = (int) next[2];
+         if (costs.putIfAbsent(location * 4 + direction, (int) next[0]) != null) {
+            continue;
+         }
+         // the states that can move forward, or turn left or right and move forward, into this state
+         long previous = Coordinate.pack(Coordinate.unpackX(location) - RouteFinder.DX[direction], Coordinate.unpackY(location) - RouteFinder.DY[direction]);
+         if (safe.contains(previous)) {
+            queue.add(new long[] {next[0] + 1, previous, direction});
+            queue.add(new long[] {next[0] + 2, previous, RouteFinder.turnLeft(direction)});
+            queue.add(new long[] {next[0] + 2, previous, RouteFinder.turnRight(direction)});
+         }
+      }
+      return costs;
+   }
+}
@@ -0,0 +1,225 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+import org.projog.api.Projog;
+import org.projog.api.QueryResult;
+
+/** Tests {@link FindRoute} and the Prolog implementation of {@code find_route/4} in {@code find_route.pl}. */
+public class FindRouteTest {
+   private static final String[] DIRECTIONS = {"north", "east", "south", "west"};
+
+   private final Projog nativeRouteFinder = createProjog(true);
+   private final Projog prologRouteFinder = createProjog(false);
+
+   private static Projog createProjog(boolean nativeRouteFinder) {
+      Projog projog = new Projog();
+      Geometry.register(projog);
+      if (nativeRouteFinder) {
+         projog.addPredicateFactory(FindRoute.KEY, new FindRoute());
+      }
+      projog.consultResource("prolog/wumpus.pl");
+      if (!nativeRouteFinder) {
+         projog.consultResource("prolog/find_route.pl");
+      }
+      return projog;
+   }
+
+   @Test
+   public void find_route() {
+      String query = "find_route(state(0:0,east),[0:0,1:0,1: -1,1: -2,0: -2,-1:0],[0: -2],Route).";
+      String expected = "[state(1 : 0, east),state(1 : -1, north),state(1 : -2, north),state(0 : -2, west)]";
+      assertEquals(expected, findRoute(nativeRouteFinder, query));
+      assertEquals(expected, findRoute(prologRouteFinder, query));
+   }
+
+   @Test
+   public void reverse() {
+      String query = "find_route(state(0:0,north),[0:0,0:1,0:2],[0:2],Route).";
+      String expected = "[state(0 : 1, south),state(0 : 2, south)]";
+      assertEquals(expected, findRoute(nativeRouteFinder, query));
+      assertEquals(expected, findRoute(prologRouteFinder, query));
+   }
+
+   @Test
+   public void already_at_target() {
+      String query = "find_route(state(3:4,west),[3:4],[3:4],Route).";
+      assertEquals("[]", findRoute(nativeRouteFinder, query));
+      assertEquals("[]", findRoute(prologRouteFinder, query));
+   }
+
+   @Test
+   public void unreachable() {
+      String query = "find_route(state(0:0,north),[0:0,0: -1],[0: -3],Route).";
+      assertFalse(nativeRouteFinder.executeQuery(query).next());
+      assertFalse(prologRouteFinder.executeQuery(query).next());
+   }
+
+   /** Confirms both implementations find the same routes through randomly generated sets of safe locations. */
+   @Test
+   public void same_routes() {
+      Random random = new Random(7);
+      for (int i = 0; i < 100; i++) {
+         int size = 3 + random.nextInt(6);
+         StringBuilder safe = new StringBuilder("[0:0");
+         StringBuilder targets = new StringBuilder("[");
+         for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+               if ((x != 0 || y != 0) && random.nextInt(4) != 0) {
+                  safe.append(',').append(x).append(':').append(y);
+                  if (random.nextInt(8) == 0) {
+                     targets.append(targets.length() == 1 ? "" : ",").append(x).append(':').append(y);
+                  }
+               }
+            }
+         }
+         if (targets.length() == 1) {
+            targets.append(size - 1).append(':').append(size - 1);
+         }
+         String query = "find_route(state(0:0," + DIRECTIONS[random.nextInt(4)] + ")," + safe + "]," + targets + "],Route).";
+
+         QueryResult expected = nativeRouteFinder.executeQuery(query);
+         QueryResult actual = prologRouteFinder.executeQuery(query);
+         boolean found = expected.next();
+         assertEquals(query, found, actual.next());
+         if (found) {
+            assertEquals(query, nativeRouteFinder.formatTerm(expected.getTerm("Route")), prologRouteFinder.formatTerm(actual.getTerm("Route")));
+         }
+      }
+   }
+
+   /**
+    * As the heuristic is consistent and each state is expanded at most once, the states expanded are those whose lowest
+    * cost from the start plus their distance from the target is less than the cost of the route found - plus some of
+    * those for which it is equal.
+    */
+   @Test
+   public void bounded_expansions() {
+      int size = 16;
+      boolean[][] safe = new boolean[size][size];
+      StringBuilder safeList = new StringBuilder("[");
+      for (int x = 0; x < size; x++) {
+         for (int y = 0; y < size; y++) {
+            // a wall across most of the maze, so the route has to go around it
+            if (y != size / 2 || x == size - 1) {
+               safe[x][y] = true;
+               safeList.append(safeList.length() == 1 ? "" : ",").append(x).append(':').append(y);
+            }
+         }
+      }
+      String query = "find_route(state(0:0,south)," + safeList + "],[0:" + (size - 1) + "],Route), length(Route,Length), expanded_states(Expanded).";
+
+      QueryResult result = prologRouteFinder.executeQuery(query);
+      assertTrue(result.next());
+      // south to the wall, east along it, south past it to the far edge and then west along that edge to the target
+      long length = result.getLong("Length");
+      assertEquals(3 * (size - 1), length);
+      long expanded = result.getLong("Expanded");
+      int lowerBound = countStatesWithinCost(safe, 0, 0, 2, 0, size - 1, false);
+      int upperBound = countStatesWithinCost(safe, 0, 0, 2, 0, size - 1, true);
+      assertTrue(expanded + " < " + lowerBound, expanded >= lowerBound);
+      assertTrue(expanded + " > " + upperBound, expanded <= upperBound);
+   }
+
+   /**
+    * Returns the number of states, excluding those at the target, whose lowest cost from the starting state plus the
+    * number of moves from the target is less than - or, if {@code inclusive}, equal to - the lowest cost of reaching the
+    * target.
+    */
+   private static int countStatesWithinCost(boolean[][] safe, int startX, int startY, int startDirection, int targetX, int targetY, boolean inclusive) {
+      int width = safe.length;
+      int height = safe[0].length;
+      int[] dx = {0, 1, 0, -1};
+      int[] dy = {-1, 0, 1, 0};
+
+      // the number of moves from each location to the target
+      int[][] distances = new int[width][height];
+      for (int[] column : distances) {
+         Arrays.fill(column, Integer.MAX_VALUE);
+      }
+      distances[targetX][targetY] = 0;
+      Deque<int[]> queue = new ArrayDeque<>();
+      queue.add(new int[] {targetX, targetY});
+      while (!queue.isEmpty()) {
+         int[] location = queue.poll();
+         for (int d = 0; d < 4; d++) {
+            int x = location[0] + dx[d];
+            int y = location[1] + dy[d];
+            if (x >= 0 && y >= 0 && x < width && y < height && safe[x][y] && distances[x][y] == Integer.MAX_VALUE) {
+               distances[x][y] = distances[location[0]][location[1]] + 1;
+               queue.add(new int[] {x, y});
+            }
+         }
+      }
+
+      // the lowest cost of reaching each state from the starting state
+      int[][][] costs = new int[width][height][4];
+      for (int[][] column : costs) {
+         for (int[] location : column) {
+            Arrays.fill(location, Integer.MAX_VALUE);
+         }
+      }
+      PriorityQueue<int[]> open = new PriorityQueue<>(Comparator.comparingInt((int[] state) -> state[3]));
+      open.add(new int[] {startX, startY, startDirection, 0});
+      int opposite = (startDirection + 2) % 4;
+      int reverseX = startX + dx[opposite];
+      int reverseY = startY + dy[opposite];
+      if (reverseX >= 0 && reverseY >= 0 && reverseX < width && reverseY < height && safe[reverseX][reverseY]) {
+         open.add(new int[] {reverseX, reverseY, opposite, 3});
+      }
+      int lowestCost = Integer.MAX_VALUE;
+      int[] state;
+      while ((state = open.poll()) != null) {
+         int x = state[0];
+         int y = state[1];
+         int cost = state[3];
+         if (costs[x][y][state[2]] <= cost) {
+            continue;
+         }
+         costs[x][y][state[2]] = cost;
+         if (x == targetX && y == targetY) {
+            lowestCost = Math.min(lowestCost, cost);
+            continue;
+         }
+         for (int turn = 0; turn < 3; turn++) {
+            int d = (state[2] + (turn == 0 ? 0 : turn == 1 ? 1 : 3)) % 4;
+            int nx = x + dx[d];
+            int ny = y + dy[d];
+            if (nx >= 0 && ny >= 0 && nx < width && ny < height && safe[nx][ny]) {
+               open.add(new int[] {nx, ny, d, cost + (turn == 0 ? 1 : 2)});
+            }
+         }
+      }
+
+      int count = 0;
+      for (int x = 0; x < width; x++) {
+         for (int y = 0; y < height; y++) {
+            for (int d = 0; d < 4; d++) {
+               if ((x != targetX || y != targetY) && costs[x][y][d] != Integer.MAX_VALUE) {
+                  int estimate = costs[x][y][d] + distances[x][y];
+                  if (estimate < lowestCost || (inclusive && estimate == lowestCost)) {
+                     count++;
+                  }
+               }
+            }
+         }
+      }
+      return count;
+   }
+
+   private static String findRoute(Projog projog, String query) {
+      QueryResult result = projog.executeQuery(query);
+      assertTrue(result.next());
+      return projog.formatTerm(result.getTerm("Route"));
+   }
+}
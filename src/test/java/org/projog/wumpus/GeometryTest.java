@@ -0,0 +1,86 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.projog.api.Projog;
+import org.projog.api.QueryResult;
+import org.projog.core.ProjogException;
+
+public class GeometryTest {
+   private final Projog projog = createProjog();
+
+   private static Projog createProjog() {
+      Projog projog = new Projog();
+      Geometry.register(projog);
+      return projog;
+   }
+
+   @Test
+   public void direction() {
+      assertEquals("[north / 0 / -1,east / 1 / 0,south / 0 / 1,west / -1 / 0]", findAll("findall(D/X/Y,direction_offset(D,X,Y),L)."));
+      assertEquals("[0 / 1]", findAll("findall(X/Y,direction_offset(south,X,Y),L)."));
+      assertEquals("[east]", findAll("findall(D,direction_offset(D,1,_),L)."));
+      assertFalse(succeeds("direction_offset(north,0,1)."));
+      // no choice point is left when the direction is known
+      QueryResult result = projog.executeQuery("direction_offset(west,X,Y).");
+      assertTrue(result.next());
+      assertTrue(result.isExhausted());
+   }
+
+   @Test
+   public void forward_state() {
+      assertEquals("[state(3 : 4, east)]", findAll("findall(S,forward_state(state(2:4,east),S),L)."));
+      assertEquals("[state(2 : 3, north),state(3 : 4, east),state(2 : 5, south),state(1 : 4, west)]",
+                   findAll("findall(S,forward_state(state(2:4,_),S),L)."));
+      // moving backwards from the second state
+      assertEquals("[state(2 : 5, north),state(1 : 4, east),state(2 : 3, south),state(3 : 4, west)]",
+                   findAll("findall(S,forward_state(S,state(2:4,_)),L)."));
+      assertEquals("[east]", findAll("findall(D,forward_state(state(2:4,D),state(3:4,_)),L)."));
+      assertFalse(succeeds("forward_state(state(2:4,north),state(3:4,_))."));
+      assertFalse(succeeds("forward_state(state(2:4,_),state(4:4,_))."));
+   }
+
+   /** As with the Prolog clauses these predicates replace, a term that is not a direction fails rather than throwing. */
+   @Test
+   public void not_a_direction() {
+      assertFalse(succeeds("direction_offset(up,X,Y)."));
+      assertFalse(succeeds("direction_offset(1,X,Y)."));
+      assertFalse(succeeds("forward_state(state(0:0,up),S)."));
+      assertFalse(succeeds("forward_state(S,state(0:0,up))."));
+   }
+
+   @Test(expected = ProjogException.class)
+   public void forward_state_unbound() {
+      succeeds("forward_state(state(_,north),state(_,north)).");
+   }
+
+   @Test
+   public void adjacent_location() {
+      assertEquals("[0 : -1,1 : 0,0 : 1,-1 : 0]", findAll("findall(A,adjacent_location(0:0,A),L)."));
+      assertEquals("[3,5]", findAll("findall(Y,adjacent_location(1:4,1:Y),L)."));
+      assertTrue(succeeds("adjacent_location(1:4,0:4)."));
+      assertFalse(succeeds("adjacent_location(1:4,0:5)."));
+      assertFalse(succeeds("adjacent_location(1:4,1:4)."));
+   }
+
+   /** The predicates do not use the names of the clauses they replace, so a consulted program can still define them. */
+   @Test
+   public void same_name_as_replaced_clauses() {
+      assertTrue(succeeds("assert(direction(up,0,-1)), assert(adjacent_to_square(0:0,5:5))."));
+      assertTrue(succeeds("direction(up,0,-1)."));
+      assertEquals("[5 : 5]", findAll("findall(A,adjacent_to_square(0:0,A),L)."));
+   }
+
+   private boolean succeeds(String query) {
+      return projog.executeQuery(query).next();
+   }
+
+   private String findAll(String query) {
+      QueryResult result = projog.executeQuery(query);
+      assertTrue(result.next());
+      return projog.formatTerm(result.getTerm("L"));
+   }
+}
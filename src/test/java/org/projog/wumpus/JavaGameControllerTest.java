@@ -0,0 +1,57 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.Maze;
+import org.projog.wumpus.model.MazeGenerator;
+import org.projog.wumpus.model.World;
+
+public class JavaGameControllerTest {
+   private static final int MAX_ACTIONS = 500;
+   private static final PrintStream NO_OUTPUT = new PrintStream(new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+   });
+
+   /** Confirms the same actions are performed as by {@link PrologGameController} for many randomly generated mazes. */
+   @Test
+   public void same_actions_as_prolog() {
+      GameController prolog = new PrologGameController();
+      GameController java = new JavaGameController();
+      prolog.setOut(NO_OUTPUT);
+      java.setOut(NO_OUTPUT);
+
+      for (int size = 4; size <= 6; size++) {
+         MazeGenerator generator = new MazeGenerator(size, size).pitDensity(2 / 16d).wallDensity(1 / 16d);
+         for (long seed = 0; seed < 100; seed++) {
+            Maze maze = generator.generate(seed);
+            assertEquals(maze.toString(), play(prolog, maze), play(java, maze));
+         }
+      }
+   }
+
+   /** Returns the actions performed - ending with {@code stuck} if the controller could not decide on an action. */
+   private static List<String> play(GameController controller, Maze maze) {
+      World world = new World(maze);
+      controller.reset();
+      List<String> actions = new ArrayList<>();
+      try {
+         while (!world.isFinished() && actions.size() < MAX_ACTIONS) {
+            Action action = controller.process(world.getPerceptMask());
+            actions.add(action.toString());
+            world.update(action);
+         }
+      } catch (StuckException e) {
+         actions.add("stuck");
+      }
+      return actions;
+   }
+}
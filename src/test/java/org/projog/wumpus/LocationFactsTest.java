@@ -0,0 +1,120 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.projog.api.Projog;
+import org.projog.api.QueryResult;
+import org.projog.core.ProjogException;
+
+public class LocationFactsTest {
+   private final LocationFacts facts = new LocationFacts();
+   private final Projog projog = createProjog(facts);
+
+   private static Projog createProjog(LocationFacts facts) {
+      Projog projog = new Projog();
+      facts.register(projog);
+      return projog;
+   }
+
+   @Test
+   public void add_and_remove() {
+      assertTrue(succeeds("add_location(visited,1:2), add_location(visited,0: -3), add_location(visited,1:2)."));
+      assertEquals("[1,2, 0,-3]", facts.get("visited").toString());
+      assertTrue(succeeds("location(visited,1:2)."));
+      assertFalse(succeeds("location(visited,2:1)."));
+      // each fact has its own set of locations
+      assertFalse(succeeds("location(to_visit,1:2)."));
+
+      assertTrue(succeeds("remove_location(visited,1:2)."));
+      // succeeds even when the location is not a member
+      assertTrue(succeeds("remove_location(visited,1:2)."));
+      assertFalse(succeeds("location(visited,1:2)."));
+      assertTrue(succeeds("location(visited,0: -3)."));
+
+      assertTrue(succeeds("add_location(wall,5:5), clear_locations(wall)."));
+      assertFalse(succeeds("location(wall,_)."));
+      assertTrue(succeeds("location(visited,_)."));
+   }
+
+   @Test
+   public void iterate() {
+      assertTrue(succeeds("add_location(stench,1:2), add_location(stench,3:4), add_location(stench,1:5)."));
+      assertEquals("[1 : 2,3 : 4,1 : 5]", findAll("findall(X,location(stench,X),L)."));
+      assertEquals("[2,5]", findAll("findall(Y,location(stench,1:Y),L)."));
+      assertEquals("[]", findAll("findall(X,location(possible_wumpus,X),L)."));
+   }
+
+   /** As with dynamic facts, removing locations while iterating over them does not change the locations iterated over. */
+   @Test
+   public void remove_while_iterating() {
+      assertTrue(succeeds("add_location(to_visit,0:0), add_location(to_visit,0:1), add_location(to_visit,0:2)."));
+      assertEquals("[0 : 0,0 : 1,0 : 2]", findAll("findall(X,(location(to_visit,X), remove_location(to_visit,X)),L)."));
+      assertTrue(facts.get("to_visit").isEmpty());
+   }
+
+   /** Locations added while iterating are not iterated over, even when the iteration has not had to copy the members. */
+   @Test
+   public void add_while_iterating() {
+      assertTrue(succeeds("add_location(wall,1:1), add_location(wall,2:2)."));
+      assertEquals("[1 : 1,2 : 2]", findAll("findall(X,(location(wall,X), X = A:B, C is A + 10, add_location(wall,C:B)),L)."));
+      assertEquals("[1 : 1,2 : 2,11 : 1,12 : 2]", findAll("findall(X,location(wall,X),L)."));
+      // after the first removal the members still to be iterated over are read from a copy
+      assertEquals("[1 : 1,11 : 1]", findAll("findall(X,(location(wall,X), X = _:1, remove_location(wall,X)),L)."));
+      assertEquals("[12 : 2,2 : 2]", findAll("findall(X,location(wall,X),L)."));
+   }
+
+   /** Finished iterations are not kept until the set next changes. */
+   @Test
+   public void finished_iterations_not_kept() {
+      assertTrue(succeeds("add_location(visited,0:0), add_location(visited,1:1)."));
+      for (int i = 0; i < 3; i++) {
+         assertEquals("[0 : 0,1 : 1]", findAll("findall(X,location(visited,X),L)."));
+         assertEquals("[0]", findAll("findall(Y,location(visited,0:Y),L)."));
+      }
+      assertEquals(0, facts.countOpenIterations("visited"));
+
+      // an iteration that has not finished is kept until the set changes
+      assertTrue(succeeds("location(visited,X)."));
+      assertEquals(1, facts.countOpenIterations("visited"));
+      assertTrue(succeeds("add_location(visited,0:2)."));
+      assertEquals(0, facts.countOpenIterations("visited"));
+   }
+
+   /** As every solution would be the same, a query with the anonymous variable as its argument succeeds at most once. */
+   @Test
+   public void anonymous_variable() {
+      assertFalse(succeeds("location(to_visit,_)."));
+      assertTrue(succeeds("\\+ location(to_visit,_)."));
+      assertTrue(succeeds("add_location(to_visit,0:0), add_location(to_visit,0:1)."));
+      assertTrue(succeeds("location(to_visit,_)."));
+      assertEquals("[x]", findAll("findall(x,location(to_visit,_),L)."));
+      assertEquals("[x,x]", findAll("findall(x,location(to_visit,_:_),L)."));
+   }
+
+   /** The names of the facts are not the names of predicates, so a consulted program can define predicates of the same name. */
+   @Test
+   public void same_name_as_fact() {
+      assertTrue(succeeds("add_location(visited,1:2), assert(visited(3:4))."));
+      assertTrue(succeeds("visited(3:4)."));
+      assertFalse(succeeds("visited(1:2)."));
+      assertFalse(succeeds("location(visited,3:4)."));
+   }
+
+   @Test(expected = ProjogException.class)
+   public void unknown_fact() {
+      succeeds("add_location(unknown,0:0).");
+   }
+
+   private boolean succeeds(String query) {
+      return projog.executeQuery(query).next();
+   }
+
+   private String findAll(String query) {
+      QueryResult result = projog.executeQuery(query);
+      assertTrue(result.next());
+      return projog.formatTerm(result.getTerm("L"));
+   }
+}
@@ -0,0 +1,98 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+import org.projog.api.Projog;
+import org.projog.api.QueryResult;
+
+/** Tests how {@code wumpus.pl} maintains the {@code possibly_wumpus} locations as the facts it depends on are added. */
+public class PossiblyWumpusTest {
+   private final Projog projog = createProjog();
+
+   private static Projog createProjog() {
+      Projog projog = new Projog();
+      new LocationFacts().register(projog);
+      Geometry.register(projog);
+      projog.addPredicateFactory(FindRoute.KEY, new FindRoute());
+      projog.consultResource("prolog/wumpus.pl");
+      projog.setUserOutput(new PrintStream(new OutputStream() {
+         @Override
+         public void write(int b) {
+         }
+      }));
+      projog.executeOnce("reset_agent_state.");
+      return projog;
+   }
+
+   @Test
+   public void stench_visit_and_wall() {
+      visit("0:0", "[]");
+      assertPossiblyWumpus("[]");
+
+      // first stench - every adjacent square except the one already visited
+      visit("0: -1", "[stench]");
+      assertPossiblyWumpus("[0 : -2,1 : -1,-1 : -1]");
+
+      // later stench - only the squares also adjacent to it
+      visit("1: -2", "[stench]");
+      assertPossiblyWumpus("[0 : -2,1 : -1]");
+
+      execute("add_wall(1: -1).");
+      assertPossiblyWumpus("[0 : -2]");
+
+      // visiting a square with a stench does not rule out its neighbours
+      visit("-1: -2", "[stench]");
+      assertPossiblyWumpus("[0 : -2]");
+
+      // visiting a square without a stench rules out its neighbours
+      visit("0: -3", "[]");
+      assertPossiblyWumpus("[]");
+   }
+
+   /** The first stench ignores the squares already visited and the squares next to a visited square without a stench. */
+   @Test
+   public void first_stench_after_visits() {
+      visit("0:0", "[]");
+      visit("1: -1", "[]");
+      visit("-1:0", "[breeze]");
+      // 0:0 and 1:-1 have been visited, and -1:-1 is next to -1:0 - which was visited without a stench
+      visit("0: -1", "[stench]");
+      assertPossiblyWumpus("[0 : -2]");
+
+      visit("0: -2", "[stench]");
+      assertPossiblyWumpus("[]");
+   }
+
+   @Test
+   public void scream() {
+      visit("0:0", "[stench]");
+      assertPossiblyWumpus("[0 : -1,1 : 0,0 : 1,-1 : 0]");
+
+      execute("process([scream],_).");
+      assertPossiblyWumpus("[]");
+
+      // once the wumpus is dead, a stench does not make any square a possible location of it
+      visit("5:5", "[stench]");
+      assertPossiblyWumpus("[]");
+   }
+
+   /** As {@code update/2} does, finds every solution of {@code add_visited/2} - which fails once it has none left. */
+   private void visit(String location, String percepts) {
+      execute("add_visited(" + location + "," + percepts + "), fail ; true.");
+   }
+
+   private void execute(String query) {
+      assertTrue(query, projog.executeQuery(query).next());
+   }
+
+   private void assertPossiblyWumpus(String expected) {
+      QueryResult result = projog.executeQuery("findall(X,location(possibly_wumpus,X),L).");
+      assertTrue(result.next());
+      assertEquals(expected, projog.formatTerm(result.getTerm("L")));
+   }
+}
@@ -0,0 +1,150 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.projog.wumpus.PrologGameControllerPool.GameSession;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.Maze;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+import org.projog.wumpus.model.World;
+
+public class PrologGameControllerPoolTest {
+   @Test
+   public void checkout_and_close() throws InterruptedException {
+      PrologGameControllerPool pool = new PrologGameControllerPool(2);
+      assertEquals(2, pool.getSize());
+      assertEquals(2, pool.getAvailable());
+
+      GameSession s1 = pool.checkout();
+      GameSession s2 = pool.checkout();
+      assertEquals(0, pool.getAvailable());
+      assertEquals(2, pool.getCheckouts());
+
+      s1.close();
+      assertEquals(1, pool.getAvailable());
+      // closing more than once has no effect
+      s1.close();
+      assertEquals(1, pool.getAvailable());
+      s2.close();
+      assertEquals(2, pool.getAvailable());
+   }
+
+   @Test
+   public void cannot_use_closed_session() throws InterruptedException {
+      PrologGameControllerPool pool = new PrologGameControllerPool(1);
+      GameSession session = pool.checkout();
+      session.close();
+
+      try {
+         session.process(new World(new MazeBuilder().home(0, 0).build()).getPercepts());
+         fail();
+      } catch (IllegalStateException e) {
+         assertEquals("session has been closed", e.getMessage());
+      }
+   }
+
+   @Test
+   public void engine_returned_when_reset_fails() throws InterruptedException {
+      PrologGameControllerPool pool = new PrologGameControllerPool(1);
+      GameSession session = pool.checkout();
+      // resetting the agent state writes to the output stream, so will fail
+      session.setOut(new PrintStream(new OutputStream() {
+         @Override
+         public void write(int b) {
+            throw new UnsupportedOperationException();
+         }
+      }));
+      session.close();
+
+      try {
+         pool.checkout();
+         fail();
+      } catch (RuntimeException e) {
+         // expected
+      }
+      assertEquals(1, pool.getAvailable());
+      assertEquals(1, pool.getCheckouts());
+   }
+
+   @Test
+   public void checkout_waits_until_engine_returned() throws InterruptedException {
+      PrologGameControllerPool pool = new PrologGameControllerPool(1);
+      GameSession session = pool.checkout();
+
+      CountDownLatch latch = new CountDownLatch(1);
+      Thread waiter = new Thread(() -> {
+         try {
+            GameSession other = pool.checkout();
+            latch.countDown();
+            other.close();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      });
+      waiter.start();
+
+      assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+      session.close();
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      waiter.join();
+
+      assertEquals(2, pool.getCheckouts());
+      // exact wait time depends on when the waiting thread was scheduled
+      assertTrue(pool.getMaxWaitNanos() > 0);
+      assertTrue(pool.getTotalWaitNanos() >= pool.getMaxWaitNanos());
+   }
+
+   /** Confirm each session has its own agent state, by playing the same game with two sessions interleaved. */
+   @Test
+   public void sessions_are_independent() throws InterruptedException {
+      MazeBuilder builder = new MazeBuilder();
+      builder.home(0, 0);
+      builder.wall(1, 0).wall(-1, 0).wall(0, 1).wall(0, -1);
+      Maze maze = builder.build();
+
+      PrologGameControllerPool pool = new PrologGameControllerPool(2);
+      List<Action> actions1 = new ArrayList<>();
+      List<Action> actions2 = new ArrayList<>();
+      try (GameSession s1 = pool.checkout(); GameSession s2 = pool.checkout()) {
+         World w1 = new World(maze);
+         World w2 = new World(maze);
+         while (!w1.isFinished()) {
+            Action a1 = s1.process(w1.getPercepts());
+            w1.update(a1);
+            actions1.add(a1);
+            Action a2 = s2.process(w2.getPercepts());
+            w2.update(a2);
+            actions2.add(a2);
+         }
+      }
+
+      assertEquals(8, actions1.size());
+      assertEquals(actions1, actions2);
+   }
+
+   @Test
+   public void batch_simulator() {
+      List<Maze> mazes = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         mazes.add(Maze.buildRandom());
+      }
+
+      PrologGameControllerPool pool = new PrologGameControllerPool(2);
+      BatchResult result = new BatchSimulator(pool, 4, 100).run(mazes);
+
+      assertEquals(20, result.getEscaped());
+      assertEquals(20, pool.getCheckouts());
+      assertEquals(2, pool.getAvailable());
+   }
+}
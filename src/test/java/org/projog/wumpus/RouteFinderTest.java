@@ -0,0 +1,170 @@
+package org.projog.wumpus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.projog.wumpus.RouteFinder.EAST;
+import static org.projog.wumpus.RouteFinder.NORTH;
+import static org.projog.wumpus.RouteFinder.SOUTH;
+import static org.projog.wumpus.RouteFinder.WEST;
+
+import org.junit.Test;
+import org.projog.wumpus.RouteFinder.State;
+import org.projog.wumpus.model.CoordinateSet;
+
+public class RouteFinderTest {
+   private final RouteFinder routeFinder = new RouteFinder();
+
+   @Test
+   public void forward() {
+      CoordinateSet safe = locations(0, 0, 0, -1, 0, -2, 1, 0);
+      State last = routeFinder.find(0, 0, NORTH, field(safe, locations(0, -2)));
+      assertRoute(last, "0:-1:0 0:-2:0");
+      assertEquals(2, last.cost);
+   }
+
+   @Test
+   public void turn() {
+      CoordinateSet safe = locations(0, 0, 0, -1, 1, -1, 2, -1);
+      State last = routeFinder.find(0, 0, NORTH, field(safe, locations(2, -1)));
+      assertRoute(last, "0:-1:0 1:-1:1 2:-1:1");
+      assertEquals(4, last.cost);
+   }
+
+   /** Turning around is represented by a state that faces the opposite direction in the starting location. */
+   @Test
+   public void reverse() {
+      CoordinateSet safe = locations(0, 0, 0, 1, 0, 2);
+      State last = routeFinder.find(0, 0, NORTH, field(safe, locations(0, 2)));
+      assertRoute(last, "0:1:2 0:2:2");
+      assertEquals(4, last.cost);
+      assertEquals(0, last.previous.previous.x);
+      assertEquals(0, last.previous.previous.y);
+      assertEquals(SOUTH, last.previous.previous.direction);
+   }
+
+   @Test
+   public void around_unsafe_location() {
+      // the location between the start and the target is not safe, so go east, north twice and then west
+      CoordinateSet safe = locations(0, 0, 1, 0, 1, -1, 1, -2, 0, -2);
+      State last = routeFinder.find(0, 0, EAST, field(safe, locations(0, -2)));
+      assertRoute(last, "1:0:1 1:-1:0 1:-2:0 0:-2:3");
+      assertEquals(6, last.cost);
+   }
+
+   @Test
+   public void already_at_target() {
+      State last = routeFinder.find(3, 4, WEST, field(locations(3, 4), locations(3, 4)));
+      assertRoute(last, "");
+   }
+
+   @Test
+   public void unreachable() {
+      CoordinateSet safe = locations(0, 0, 0, -1);
+      assertNull(routeFinder.find(0, 0, NORTH, field(safe, locations(0, -3))));
+      assertNull(routeFinder.find(0, 0, NORTH, field(safe, new CoordinateSet())));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void start_not_safe() {
+      routeFinder.find(0, 0, NORTH, field(locations(0, -1), locations(0, -1)));
+   }
+
+   /**
+    * Each state is expanded at most once, and only states on the cheapest routes are expanded - so the number of states
+    * expanded is bounded by the number of states facing the directions the cheapest routes take.
+    */
+   @Test
+   public void bounded_expansions() {
+      int size = 60;
+      CoordinateSet safe = new CoordinateSet();
+      for (int x = 0; x < size; x++) {
+         for (int y = 0; y < size; y++) {
+            // a wall across most of the maze, so the route has to go around it
+            if (y != size / 2 || x == size - 1) {
+               safe.add(x, y);
+            }
+         }
+      }
+
+      State last = routeFinder.find(0, 0, SOUTH, field(safe, locations(0, size - 1)));
+      assertEquals(0, last.x);
+      assertEquals(size - 1, last.y);
+      // south to the wall, east along it, south past it to the far edge and then west along that edge to the target
+      assertEquals(3 * (size - 1) + 3, last.cost);
+      assertTrue(routeFinder.getExpanded() + " > " + safe.size(), routeFinder.getExpanded() <= safe.size());
+   }
+
+   /**
+    * The distance to the nearest target is looked up, rather than calculated from the targets, so the number of targets
+    * does not affect the cost of expanding a state.
+    */
+   @Test
+   public void many_targets() {
+      int size = 100;
+      CoordinateSet safe = new CoordinateSet();
+      CoordinateSet targets = new CoordinateSet();
+      for (int x = 0; x < size; x++) {
+         for (int y = 0; y < size; y++) {
+            safe.add(x, y);
+            if (x == 0 || y == 0 || x == size - 1 || y == size - 1) {
+               targets.add(x, y);
+            }
+         }
+      }
+      DistanceField field = field(safe, targets);
+      assertEquals(4 * (size - 1), field.getTargets().size());
+
+      // the nearest target is straight ahead
+      State last = routeFinder.find(size / 2, size / 3, NORTH, field);
+      assertEquals(size / 2, last.x);
+      assertEquals(0, last.y);
+      assertEquals(size / 3, last.cost);
+      // only the states on the route are expanded
+      assertEquals(last.cost, routeFinder.getExpanded());
+   }
+
+   /** The same route is found when the distance field is updated as when a new one is created. */
+   @Test
+   public void updated_distance_field() {
+      CoordinateSet safe = locations(0, 0, 0, -1, 0, -2, 1, 0, 1, -1, 1, -2, 2, -2);
+      DistanceField field = field(safe, locations(2, -2));
+      assertRoute(routeFinder.find(0, 0, NORTH, field), "0:-1:0 0:-2:0 1:-2:1 2:-2:1");
+
+      field.removeSafe(0, -2);
+      safe.remove(0, -2);
+      assertRoute(routeFinder.find(0, 0, NORTH, field), "1:0:1 1:-1:0 1:-2:0 2:-2:1");
+      assertRoute(routeFinder.find(0, 0, NORTH, field(safe, locations(2, -2))), "1:0:1 1:-1:0 1:-2:0 2:-2:1");
+
+      field.addTarget(1, 0);
+      assertRoute(routeFinder.find(0, 0, NORTH, field), "1:0:1");
+   }
+
+   private static DistanceField field(CoordinateSet safe, CoordinateSet targets) {
+      DistanceField field = new DistanceField();
+      for (int i = 0; i < targets.size(); i++) {
+         field.addTarget(targets.getX(i), targets.getY(i));
+      }
+      for (int i = 0; i < safe.size(); i++) {
+         field.addSafe(safe.getX(i), safe.getY(i));
+      }
+      return field;
+   }
+
+   private static CoordinateSet locations(int... coordinates) {
+      CoordinateSet result = new CoordinateSet();
+      for (int i = 0; i < coordinates.length; i += 2) {
+         result.add(coordinates[i], coordinates[i + 1]);
+      }
+      return result;
+   }
+
+   /** Asserts the x, y and direction of each state of the route, excluding the starting state. */
+   private static void assertRoute(State last, String expected) {
+      StringBuilder sb = new StringBuilder();
+      for (State s = last; s.previous != null; s = s.previous) {
+         sb.insert(0, " " + s.x + ":" + s.y + ":" + s.direction);
+      }
+      assertEquals(expected, sb.toString().trim());
+   }
+}
@@ -10,15 +10,48 @@ import static org.projog.wumpus.model.Action.LEFT;
 import static org.projog.wumpus.model.Action.RIGHT;
 import static org.projog.wumpus.model.Action.TAKE;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Supplier;
+
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 import org.projog.wumpus.model.Action;
 import org.projog.wumpus.model.AgentState;
 import org.projog.wumpus.model.Maze;
 import org.projog.wumpus.model.Maze.MazeBuilder;
 import org.projog.wumpus.model.World;
 
+/**
+ * Confirms {@link PrologGameController} - using either {@link FindRoute} or {@code find_route.pl} to find routes - and
+ * {@link JavaGameController} perform the expected actions.
+ */
+@RunWith(Parameterized.class)
 public class WumpusWorldTest {
-   private static final GameController AGENT = new PrologGameController();
+   private static final GameController PROLOG_AGENT = new PrologGameController();
+   private static final GameController PROLOG_ROUTE_FINDER_AGENT = new PrologGameController(false);
+   private static final GameController JAVA_AGENT = new JavaGameController();
+
+   @Parameters(name = "{0}")
+   public static Collection<Object[]> controllers() {
+      Supplier<GameController> prolog = PrologGameController::new;
+      Supplier<GameController> prologRouteFinder = () -> new PrologGameController(false);
+      Supplier<GameController> java = JavaGameController::new;
+      return Arrays.asList(new Object[][] {
+                  {"prolog", PROLOG_AGENT, prolog},
+                  {"prolog-route-finder", PROLOG_ROUTE_FINDER_AGENT, prologRouteFinder},
+                  {"java", JAVA_AGENT, java}});
+   }
+
+   private final GameController agent;
+   private final Supplier<GameController> factory;
+
+   public WumpusWorldTest(String name, GameController agent, Supplier<GameController> factory) {
+      this.agent = agent;
+      this.factory = factory;
+   }
 
    @Test
    public void home_contains_gold() {
@@ -260,10 +293,10 @@ public class WumpusWorldTest {
    private void assertActions(MazeBuilder builder, Action... expectedActions) {
       Maze maze = builder.build();
       World world = new World(maze);
-      AGENT.reset();
+      agent.reset();
 
       for (int i = 0; i < expectedActions.length; i++) {
-         Action actualAction = AGENT.process(world.getPercepts());
+         Action actualAction = agent.process(world.getPercepts());
          assertSame(maze, expectedActions[i], actualAction);
 
          boolean isFinalMove = i == expectedActions.length - 1;
@@ -273,15 +306,15 @@ public class WumpusWorldTest {
       }
    }
 
-   private static void assertSame(Maze m, Object expected, Object actual) {
+   private void assertSame(Maze m, Object expected, Object actual) {
       if (expected != actual) {
          fail("Expected: " + expected + " Actual: " + actual + " Full solution: " + completeMaze(m));
       }
    }
 
    /** Completes the given maze and returns a comma-separated list of actions in the order they were performed. */
-   private static String completeMaze(Maze maze) {
-      GameController agent = new PrologGameController();
+   private String completeMaze(Maze maze) {
+      GameController agent = factory.get();
       World world = new World(maze);
       agent.reset();
 
@@ -0,0 +1,155 @@
+package org.projog.wumpus.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.projog.wumpus.model.MazeTestUtils.assertInvalid;
+import static org.projog.wumpus.model.MazeTestUtils.find;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.projog.wumpus.model.ChunkedMaze.ChunkedMazeBuilder;
+
+public class ChunkedMazeTest {
+   @Test
+   public void chunks_generated_when_accessed() {
+      ChunkedMaze maze = new ChunkedMazeBuilder(1).chunkSize(16).pitDensity(0.1).wallDensity(0.1).build();
+      assertEquals(0, maze.getLoadedChunks());
+
+      maze.isPit(0, 0);
+      maze.isWall(15, 15);
+      assertEquals(1, maze.getLoadedChunks());
+
+      // chunks either side of 0,0
+      maze.isPit(-1, 0);
+      maze.isPit(0, -1);
+      maze.isWall(16, 0);
+      assertEquals(4, maze.getLoadedChunks());
+
+      // a long way from home
+      maze.isPit(1_000_000_000, -2_000_000_000);
+      assertEquals(5, maze.getLoadedChunks());
+      assertEquals(5, maze.getGeneratedChunks());
+   }
+
+   @Test
+   public void same_seed_same_maze() {
+      ChunkedMaze maze1 = new ChunkedMazeBuilder(7).chunkSize(8).pitDensity(0.2).wallDensity(0.1).build();
+      ChunkedMaze maze2 = new ChunkedMazeBuilder(7).chunkSize(8).pitDensity(0.2).wallDensity(0.1).build();
+      ChunkedMaze other = new ChunkedMazeBuilder(8).chunkSize(8).pitDensity(0.2).wallDensity(0.1).build();
+      // access in a different order
+      for (int x = -40; x < 40; x++) {
+         for (int y = -40; y < 40; y++) {
+            maze1.isPit(x, y);
+            maze2.isPit(-x - 1, -y - 1);
+            other.isPit(x, y);
+         }
+      }
+      assertEquals(maze1.toString(), maze2.toString());
+      assertNotEquals(maze1.toString(), other.toString());
+   }
+
+   @Test
+   public void evicted_chunks_regenerated_with_same_contents() {
+      ChunkedMaze unlimited = new ChunkedMazeBuilder(3).chunkSize(4).pitDensity(0.3).wallDensity(0.2).build();
+      ChunkedMaze limited = new ChunkedMazeBuilder(3).chunkSize(4).pitDensity(0.3).wallDensity(0.2).maxChunks(2).build();
+      for (int i = 0; i < 3; i++) {
+         for (int x = -20; x < 20; x++) {
+            for (int y = -20; y < 20; y++) {
+               assertEquals(unlimited.isPit(x, y), limited.isPit(x, y));
+               assertEquals(unlimited.isWall(x, y), limited.isWall(x, y));
+            }
+         }
+      }
+      assertEquals(100, unlimited.getLoadedChunks());
+      assertEquals(100, unlimited.getGeneratedChunks());
+      assertEquals(2, limited.getLoadedChunks());
+      assertTrue(limited.getGeneratedChunks() > 300);
+   }
+
+   /** When a chunk has to be discarded, it is the one farthest from the chunk being accessed - not the least recent. */
+   @Test
+   public void discards_farthest_chunk() {
+      ChunkedMaze maze = new ChunkedMazeBuilder(3).chunkSize(4).maxChunks(3).build();
+      // access the chunks at 0,0 then 5,0 then 1,0
+      maze.isPit(0, 0);
+      maze.isPit(20, 0);
+      maze.isPit(4, 0);
+      assertEquals(3, maze.getGeneratedChunks());
+
+      // 5,0 is discarded, rather than the less recently accessed 0,0
+      maze.isPit(8, 0);
+      assertEquals(3, maze.getLoadedChunks());
+      assertEquals(4, maze.getGeneratedChunks());
+      maze.isPit(0, 0);
+      assertEquals(4, maze.getGeneratedChunks());
+      maze.isPit(20, 0);
+      assertEquals(5, maze.getGeneratedChunks());
+   }
+
+   @Test
+   public void densities() {
+      ChunkedMaze maze = new ChunkedMazeBuilder(5).pitDensity(0.2).wallDensity(0.1).gold(false).wumpus(false).build();
+      for (int x = 0; x < 1000; x++) {
+         for (int y = 0; y < 1000; y++) {
+            maze.isPit(x, y);
+         }
+      }
+      List<Coordinate> pits = maze.getPits();
+      List<Coordinate> walls = maze.getWalls();
+      // 16x16 chunks of 64x64 locations
+      int locations = 1024 * 1024;
+      assertEquals(0.2, pits.size() / (double) locations, 0.005);
+      assertEquals(0.1, walls.size() / (double) locations, 0.005);
+   }
+
+   @Test
+   public void home_gold_and_wumpus_never_pit_or_wall() {
+      for (long seed = 0; seed < 100; seed++) {
+         ChunkedMaze maze = new ChunkedMazeBuilder(seed).chunkSize(4).pitDensity(0.5).wallDensity(0.5).radius(3).build();
+         Coordinate gold = find(maze, -3, 3, Maze::isGold);
+         Coordinate wumpus = find(maze, -3, 3, Maze::isWumpus);
+         assertNotNull(gold);
+         assertNotNull(wumpus);
+         assertNotEquals(maze.getHome(), wumpus);
+         for (Coordinate c : new Coordinate[] {maze.getHome(), gold, wumpus}) {
+            assertFalse(maze.isPit(c));
+            assertFalse(maze.isWall(c));
+         }
+      }
+   }
+
+   @Test
+   public void play_across_chunks() {
+      ChunkedMaze maze = new ChunkedMazeBuilder(0).chunkSize(2).gold(false).wumpus(false).build();
+      World world = new World(maze);
+      for (int i = 0; i < 100; i++) {
+         assertEquals(AgentState.ACTIVE, world.update(Action.FORWARD));
+      }
+      assertEquals(new Coordinate(0, -100), world.getAgentLocation());
+      // only the chunks containing the locations moved into
+      assertEquals(50, maze.getLoadedChunks());
+      // perceiving the adjacent locations requires the chunks to the north and west
+      assertTrue(world.getPercepts().isEmpty());
+      assertEquals(52, maze.getLoadedChunks());
+   }
+
+   @Test
+   public void invalid_arguments() {
+      assertInvalid(() -> new ChunkedMazeBuilder(0).chunkSize(3), "chunkSize: 3");
+      assertInvalid(() -> new ChunkedMazeBuilder(0).chunkSize(0), "chunkSize: 0");
+      assertInvalid(() -> new ChunkedMazeBuilder(0).pitDensity(-0.1), "density: -0.1");
+      assertInvalid(() -> new ChunkedMazeBuilder(0).radius(0), "radius: 0");
+      assertInvalid(() -> new ChunkedMazeBuilder(0).maxChunks(-1), "maxChunks: -1");
+      try {
+         new ChunkedMazeBuilder(0).pitDensity(0.6).wallDensity(0.5).build();
+         fail();
+      } catch (IllegalStateException e) {
+         assertEquals("pitDensity: 0.6 + wallDensity: 0.5 > 1", e.getMessage());
+      }
+   }
+}
@@ -0,0 +1,124 @@
+package org.projog.wumpus.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CoordinateSetTest {
+   @Test
+   public void add_and_contains() {
+      CoordinateSet set = new CoordinateSet();
+      assertEquals(0, set.size());
+      assertFalse(set.contains(0, 0));
+
+      assertTrue(set.add(0, 0));
+      assertTrue(set.add(new Coordinate(-3, 7)));
+      assertTrue(set.add(Integer.MIN_VALUE, 0));
+      assertTrue(set.add(Integer.MAX_VALUE, Integer.MIN_VALUE));
+      assertEquals(4, set.size());
+
+      // adding existing members has no effect
+      assertFalse(set.add(0, 0));
+      assertFalse(set.add(-3, 7));
+      assertEquals(4, set.size());
+
+      assertTrue(set.contains(0, 0));
+      assertTrue(set.contains(new Coordinate(-3, 7)));
+      assertTrue(set.contains(Integer.MIN_VALUE, 0));
+      assertTrue(set.contains(Integer.MAX_VALUE, Integer.MIN_VALUE));
+      assertFalse(set.contains(7, -3));
+      assertFalse(set.contains(0, Integer.MIN_VALUE));
+      assertFalse(set.contains(-1, -1));
+
+      // members are returned in the order they were added
+      List<Coordinate> expected = Arrays.asList(new Coordinate(0, 0), new Coordinate(-3, 7), new Coordinate(Integer.MIN_VALUE, 0),
+                  new Coordinate(Integer.MAX_VALUE, Integer.MIN_VALUE));
+      assertEquals(expected, new ArrayList<>(set.toCoordinates()));
+   }
+
+   /** Compare behaviour against a {@code HashSet}, for enough coordinates that the table is resized multiple times. */
+   @Test
+   public void compare_to_hash_set() {
+      Random random = new Random(42);
+      CoordinateSet set = new CoordinateSet();
+      Set<Coordinate> expected = new HashSet<>();
+      for (int i = 0; i < 10000; i++) {
+         int x = random.nextInt(200) - 100;
+         int y = random.nextInt(200) - 100;
+         assertEquals(expected.add(new Coordinate(x, y)), set.add(x, y));
+      }
+
+      assertEquals(expected.size(), set.size());
+      assertEquals(expected, set.toCoordinates());
+      for (int x = -101; x < 101; x++) {
+         for (int y = -101; y < 101; y++) {
+            assertEquals(expected.contains(new Coordinate(x, y)), set.contains(x, y));
+         }
+      }
+   }
+
+   @Test
+   public void remove() {
+      CoordinateSet set = new CoordinateSet();
+      assertTrue(set.isEmpty());
+      assertFalse(set.remove(0, 0));
+
+      assertTrue(set.add(0, 0));
+      assertTrue(set.add(-3, 7));
+      assertTrue(set.add(Integer.MIN_VALUE, 0));
+      assertTrue(set.add(Integer.MAX_VALUE, Integer.MIN_VALUE));
+      assertEquals("[0,0, -3,7, -2147483648,0, 2147483647,-2147483648]", set.toString());
+      assertEquals(1, set.positionOf(-3, 7));
+
+      // the last member is moved into the position of the removed member
+      assertTrue(set.remove(-3, 7));
+      assertFalse(set.remove(-3, 7));
+      assertFalse(set.contains(-3, 7));
+      assertEquals(-1, set.positionOf(-3, 7));
+      assertEquals(3, set.size());
+      assertEquals("[0,0, 2147483647,-2147483648, -2147483648,0]", set.toString());
+      assertEquals(Integer.MAX_VALUE, set.getX(1));
+      assertEquals(Integer.MIN_VALUE, set.getY(1));
+      assertEquals(1, set.positionOf(Integer.MAX_VALUE, Integer.MIN_VALUE));
+
+      set.clear();
+      assertTrue(set.isEmpty());
+      assertFalse(set.contains(0, 0));
+      assertTrue(set.add(0, 0));
+      assertEquals("[0,0]", set.toString());
+   }
+
+   /** Compare behaviour against a {@code HashSet}, for enough locations that removals have to shift probe sequences. */
+   @Test
+   public void compare_to_hash_set_with_removals() {
+      Random random = new Random(42);
+      CoordinateSet set = new CoordinateSet();
+      Set<Coordinate> expected = new HashSet<>();
+      for (int i = 0; i < 20000; i++) {
+         int x = random.nextInt(60) - 30;
+         int y = random.nextInt(60) - 30;
+         if (random.nextBoolean()) {
+            assertEquals(expected.add(new Coordinate(x, y)), set.add(x, y));
+         } else {
+            assertEquals(expected.remove(new Coordinate(x, y)), set.remove(x, y));
+         }
+         assertEquals(expected.size(), set.size());
+      }
+
+      assertEquals(expected, set.toCoordinates());
+      for (int x = -31; x < 31; x++) {
+         for (int y = -31; y < 31; y++) {
+            assertEquals(expected.contains(new Coordinate(x, y)), set.contains(x, y));
+         }
+      }
+   }
+}
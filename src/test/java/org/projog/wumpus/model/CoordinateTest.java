@@ -74,4 +74,19 @@ public class CoordinateTest {
       assertEquals("3,5", new Coordinate(3, 5).toString());
       assertEquals("-3,7", new Coordinate(-3, 7).toString());
    }
+
+   @Test
+   public void testPack() {
+      int[] values = {0, 1, -1, 7, -7, Integer.MAX_VALUE, Integer.MIN_VALUE};
+      for (int x : values) {
+         for (int y : values) {
+            long packed = Coordinate.pack(x, y);
+            assertEquals(x, Coordinate.unpackX(packed));
+            assertEquals(y, Coordinate.unpackY(packed));
+            if (x != y) {
+               assertNotEquals(packed, Coordinate.pack(y, x));
+            }
+         }
+      }
+   }
 }
@@ -0,0 +1,161 @@
+package org.projog.wumpus.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedMazeTest {
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void ascii() throws IOException {
+      Maze maze = MappedMaze.readAscii(write("" //
+                  + "######\n" //
+                  + "#H..P#\n" //
+                  + "#.#.W#\n" //
+                  + "#P.G.#\n" //
+                  + "######\n"));
+
+      assertEquals("Maze [home=1,1, gold=3,3, wumpus=4,2, pits=[4,1, 1,3], walls=[0,0, 1,0, 2,0, 3,0, 4,0, 5,0, 0,1, 5,1, 0,2, 2,2, 5,2, 0,3, 5,3, 0,4, 1,4, 2,4, 3,4, 4,4, 5,4]]",
+                  maze.toString());
+      assertFalse(maze.isWall(-1, 0));
+      assertFalse(maze.isWall(6, 0));
+      assertEquals(Percept.STENCH.mask(), maze.getPerceptMask(4, 3));
+      assertEquals(Percept.BREEZE.mask(), maze.getPerceptMask(3, 1));
+
+      // the agent can play a game in the mapped maze
+      World world = new World(maze);
+      world.update(Action.RIGHT);
+      world.update(Action.FORWARD);
+      world.update(Action.FORWARD);
+      assertEquals(Percept.toSet(Percept.BREEZE.mask()), world.getPercepts());
+      assertSame(AgentState.DEAD, world.update(Action.FORWARD));
+   }
+
+   @Test
+   public void ascii_line_terminators() throws IOException {
+      String expected = "Maze [home=0,0, gold=1,0, wumpus=0,1, pits=[1,1], walls=[]]";
+      assertEquals(expected, MappedMaze.readAscii(write("HG\nWP\n")).toString());
+      assertEquals(expected, MappedMaze.readAscii(write("HG\nWP")).toString());
+      assertEquals(expected, MappedMaze.readAscii(write("HG\r\nWP\r\n")).toString());
+      assertEquals(expected, MappedMaze.readAscii(write("HG\r\nWP")).toString());
+      assertEquals("Maze [home=0,0, gold=null, wumpus=null, pits=[], walls=[1,0]]", MappedMaze.readAscii(write("H#")).toString());
+   }
+
+   @Test
+   public void ascii_gold_shares_location() throws IOException {
+      assertEquals("Maze [home=0,0, gold=0,0, wumpus=1,0, pits=[], walls=[]]", MappedMaze.readAscii(write("hW")).toString());
+      assertEquals("Maze [home=0,0, gold=1,0, wumpus=1,0, pits=[], walls=[]]", MappedMaze.readAscii(write("Hw")).toString());
+   }
+
+   @Test
+   public void ascii_invalid() throws IOException {
+      assertInvalid("", "No locations in ");
+      assertInvalid("\nH\n", "No locations in ");
+      assertInvalid("...\n...\n", "No home in ");
+      assertInvalid("H..\n..\n", "Lines of different lengths in ");
+      assertInvalid("H..\n..\n...", "Lines of different lengths in ");
+      assertInvalid("H.\r\n..\n\n", "Lines of different lengths in ");
+      assertInvalid("H.\n.X\n", "Unexpected character: X at 1,1 in ");
+      assertInvalid("H.\n.H\n", "More than one home in ");
+      assertInvalid("HG\n.h\n", "More than one home in ");
+      assertInvalid("HG\nw.\n", "More than one gold in ");
+      assertInvalid("HW\nW.\n", "More than one wumpus in ");
+   }
+
+   private void assertInvalid(String contents, String expectedMessage) throws IOException {
+      Path path = write(contents);
+      try {
+         MappedMaze.readAscii(path);
+         fail();
+      } catch (IOException e) {
+         assertEquals(expectedMessage + path, e.getMessage());
+      }
+   }
+
+   @Test
+   public void binary() throws IOException {
+      Maze expected = new MazeGenerator(200, 150).pitDensity(0.2).wallDensity(0.1).generate(1);
+      Path path = folder.newFile().toPath();
+      try (MazeCorpusWriter writer = new MazeCorpusWriter(path, -1, -1, 202, 152)) {
+         writer.write(expected);
+         // only the first maze is used
+         writer.write(new MazeGenerator(200, 150).generate(2));
+      }
+
+      Maze actual = MappedMaze.readBinary(path);
+      assertEquals(expected.toString(), actual.toString());
+      for (int x = -3; x < 205; x++) {
+         for (int y = -3; y < 155; y++) {
+            assertEquals(expected.getPerceptMask(x, y), actual.getPerceptMask(x, y));
+         }
+      }
+   }
+
+   @Test
+   public void binary_incomplete() throws IOException {
+      Path path = folder.newFile().toPath();
+      new MazeCorpusWriter(path, 0, 0, 4, 4).close();
+      try {
+         MappedMaze.readBinary(path);
+         fail();
+      } catch (IOException e) {
+         assertEquals("Incomplete record in " + path, e.getMessage());
+      }
+   }
+
+   /** Converts a large text file to a binary file, and confirms both represent the same maze. */
+   @Test
+   public void large_ascii_and_binary() throws IOException {
+      int size = 1000;
+      SplittableRandom random = new SplittableRandom(3);
+      StringBuilder sb = new StringBuilder(size * (size + 1));
+      for (int y = 0; y < size; y++) {
+         for (int x = 0; x < size; x++) {
+            int r = random.nextInt(10);
+            sb.append(x == 500 && y == 500 ? 'H' : r == 0 ? 'P' : r == 1 ? '#' : '.');
+         }
+         sb.append('\n');
+      }
+      Path asciiPath = write(sb.toString());
+      Maze ascii = MappedMaze.readAscii(asciiPath);
+
+      Path binaryPath = folder.newFile().toPath();
+      try (MazeCorpusWriter writer = new MazeCorpusWriter(binaryPath, 0, 0, size, size)) {
+         writer.write(ascii);
+      }
+      Maze binary = MappedMaze.readBinary(binaryPath);
+      // a bit, rather than a byte, per location
+      assertTrue(Files.size(binaryPath) < Files.size(asciiPath) / 4);
+
+      for (int i = 0; i < 100_000; i++) {
+         int x = random.nextInt(size);
+         int y = random.nextInt(size);
+         char c = sb.charAt(y * (size + 1) + x);
+         assertEquals(c == 'P', ascii.isPit(x, y));
+         assertEquals(c == 'P', binary.isPit(x, y));
+         assertEquals(c == '#', ascii.isWall(x, y));
+         assertEquals(c == '#', binary.isWall(x, y));
+      }
+      assertEquals(new Coordinate(500, 500), binary.getHome());
+   }
+
+   private Path write(String contents) throws IOException {
+      Path path = folder.newFile().toPath();
+      Files.write(path, contents.getBytes(StandardCharsets.US_ASCII));
+      return path;
+   }
+}
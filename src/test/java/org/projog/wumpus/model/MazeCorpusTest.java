@@ -0,0 +1,148 @@
+package org.projog.wumpus.model;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+
+public class MazeCorpusTest {
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void write_and_read() throws IOException {
+      Path path = folder.newFile().toPath();
+      MazeGenerator generator = new MazeGenerator(4, 4).pits(2).walls(1);
+      List<String> expected = generator.stream(0, 1000).map(Maze::toString).collect(toList());
+
+      try (MazeCorpusWriter writer = new MazeCorpusWriter(path, -1, -1, 6, 6)) {
+         generator.stream(0, 1000).forEach(m -> write(writer, m));
+         assertEquals(1000, writer.getCount());
+      }
+      // 24 byte header, and each record has 1 byte of flags, 3 single byte indexes and two 5 byte bitmaps
+      assertEquals(24 + 1000 * 14, Files.size(path));
+
+      try (MazeCorpusReader reader = new MazeCorpusReader(path)) {
+         assertEquals(1000, reader.size());
+         assertEquals(expected.get(0), reader.get(0).toString());
+         assertEquals(expected.get(999), reader.get(999).toString());
+         assertEquals(expected, reader.stream().map(Maze::toString).collect(toList()));
+         assertEquals(expected, reader.stream().parallel().map(Maze::toString).collect(toList()));
+      }
+   }
+
+   @Test
+   public void optional_gold_and_wumpus() throws IOException {
+      assertRoundTrip(new MazeBuilder().home(0, 0).pit(1, 1).build(), 0, 0, 2, 2);
+      assertRoundTrip(new MazeBuilder().home(0, 0).gold(1, 1).build(), 0, 0, 2, 2);
+      assertRoundTrip(new MazeBuilder().home(0, 0).wumpus(1, 1).wall(0, 1).build(), 0, 0, 2, 2);
+   }
+
+   @Test
+   public void wider_indexes() throws IOException {
+      // area of 300 locations requires 2 byte indexes
+      assertRoundTrip(new MazeBuilder().home(-5, -7).gold(14, 7).wumpus(3, 1).pit(14, -7).wall(-5, 7).build(), -5, -7, 20, 15);
+      // area of 90,000 locations requires 4 byte indexes
+      assertRoundTrip(new MazeBuilder().home(0, 0).gold(299, 299).wumpus(150, 2).pit(299, 0).wall(0, 299).build(), 0, 0, 300, 300);
+   }
+
+   @Test
+   public void index_width() {
+      assertEquals(1, MazeCorpusFormat.indexWidth(256));
+      assertEquals(2, MazeCorpusFormat.indexWidth(257));
+      assertEquals(2, MazeCorpusFormat.indexWidth(65536));
+      assertEquals(4, MazeCorpusFormat.indexWidth(65537));
+   }
+
+   @Test
+   public void maze_outside_of_area() throws IOException {
+      try (MazeCorpusWriter writer = new MazeCorpusWriter(folder.newFile().toPath(), 0, 0, 4, 4)) {
+         writer.write(new MazeBuilder().home(0, 0).pit(4, 3).build());
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("4,3 is outside of area", e.getMessage());
+      }
+   }
+
+   /** An invalid area is rejected before the file is created, so an existing file is not replaced. */
+   @Test
+   public void invalid_area() throws IOException {
+      Path path = folder.newFile().toPath();
+      Files.write(path, "existing".getBytes());
+      try {
+         new MazeCorpusWriter(path, 0, 0, 0, 4).close();
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("width: 0 height: 4", e.getMessage());
+      }
+      assertEquals("existing", new String(Files.readAllBytes(path)));
+
+      Path missing = path.resolveSibling("missing");
+      try {
+         new MazeCorpusWriter(missing, 0, 0, 4, -1).close();
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("width: 4 height: -1", e.getMessage());
+      }
+      assertFalse(Files.exists(missing));
+   }
+
+   @Test
+   public void not_a_corpus() throws IOException {
+      Path path = folder.newFile().toPath();
+      Files.write(path, "not a corpus".getBytes());
+      try {
+         new MazeCorpusReader(path).close();
+         fail();
+      } catch (IOException e) {
+         assertEquals("Not a maze corpus: " + path, e.getMessage());
+      }
+   }
+
+   @Test
+   public void incomplete_record() throws IOException {
+      Path path = folder.newFile().toPath();
+      try (MazeCorpusWriter writer = new MazeCorpusWriter(path, 0, 0, 4, 4)) {
+         writer.write(new MazeBuilder().home(0, 0).build());
+      }
+      byte[] contents = Files.readAllBytes(path);
+      Files.write(path, Arrays.copyOf(contents, contents.length - 1));
+      try {
+         new MazeCorpusReader(path).close();
+         fail();
+      } catch (IOException e) {
+         assertEquals("Incomplete record in " + path, e.getMessage());
+      }
+   }
+
+   private void assertRoundTrip(Maze maze, int minX, int minY, int width, int height) throws IOException {
+      Path path = folder.newFile().toPath();
+      try (MazeCorpusWriter writer = new MazeCorpusWriter(path, minX, minY, width, height)) {
+         writer.write(maze);
+      }
+      try (MazeCorpusReader reader = new MazeCorpusReader(path)) {
+         assertEquals(1, reader.size());
+         assertEquals(maze.toString(), reader.get(0).toString());
+      }
+   }
+
+   private static void write(MazeCorpusWriter writer, Maze maze) {
+      try {
+         writer.write(maze);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+}
@@ -0,0 +1,121 @@
+package org.projog.wumpus.model;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.projog.wumpus.model.MazeTestUtils.assertInvalid;
+import static org.projog.wumpus.model.MazeTestUtils.find;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class MazeGeneratorTest {
+   @Test
+   public void rules_are_followed() {
+      MazeGenerator generator = new MazeGenerator(3, 3).pits(3).walls(2);
+      SplittableRandom random = new SplittableRandom(42);
+      for (int i = 0; i < 1000; i++) {
+         Maze maze = generator.generate(random);
+         Coordinate home = maze.getHome();
+         Coordinate gold = find(maze, -1, 10, Maze::isGold);
+         Coordinate wumpus = find(maze, -1, 10, Maze::isWumpus);
+
+         assertFalse(maze.isPit(home) || maze.isWall(home));
+         assertFalse(maze.isPit(gold) || maze.isWall(gold));
+         assertFalse(maze.isPit(wumpus) || maze.isWall(wumpus));
+         assertNotEquals(home, wumpus);
+
+         assertEquals(3, maze.getPits().size());
+         // 2 walls plus 12 boundary walls
+         assertEquals(14, maze.getWalls().size());
+         for (int x = -1; x <= 3; x++) {
+            for (int y = -1; y <= 3; y++) {
+               boolean isBoundary = (x == -1 || x == 3) != (y == -1 || y == 3);
+               if (isBoundary) {
+                  assertTrue(maze.isWall(x, y));
+               } else if (x == -1 || x == 3) {
+                  // corners
+                  assertFalse(maze.isWall(x, y));
+               }
+            }
+         }
+      }
+   }
+
+   @Test
+   public void densities() {
+      Maze maze = new MazeGenerator(1000, 1000).pitDensity(0.2).wallDensity(0.1).boundary(false).generate(new SplittableRandom(7));
+      assertEquals(200_000, maze.getPits().size());
+      assertEquals(100_000, maze.getWalls().size());
+      assertFalse(maze.isWall(-1, 0));
+   }
+
+   @Test
+   public void high_density() {
+      // no wumpus, so every location other than home is a pit or wall
+      Maze maze = new MazeGenerator(10, 10).pits(60).walls(39).wumpus(false).gold(false).boundary(false).generate(new SplittableRandom(3));
+      assertEquals(60, maze.getPits().size());
+      assertEquals(39, maze.getWalls().size());
+      assertNull(find(maze, -1, 10, Maze::isGold));
+      assertNull(find(maze, -1, 10, Maze::isWumpus));
+      for (int x = 0; x < 10; x++) {
+         for (int y = 0; y < 10; y++) {
+            assertEquals(maze.getHome().isLocated(x, y), !maze.isPit(x, y) && !maze.isWall(x, y));
+         }
+      }
+   }
+
+   @Test
+   public void same_seed_same_maze() {
+      MazeGenerator generator = new MazeGenerator(20, 30).pitDensity(0.1).wallDensity(0.3);
+      assertEquals(generator.generate(99).toString(), generator.generate(99).toString());
+      assertEquals(generator.generate(99).toString(), generator.generate(new SplittableRandom(99)).toString());
+      assertNotEquals(generator.generate(99).toString(), generator.generate(100).toString());
+      assertEquals(Maze.buildRandom(5).toString(), Maze.buildRandom(5).toString());
+   }
+
+   @Test
+   public void parallel_stream_same_as_sequential() {
+      MazeGenerator generator = new MazeGenerator(8, 8).pits(6).walls(4);
+      List<String> sequential = generator.stream(1000, 5000).map(Maze::toString).collect(toList());
+      List<String> parallel = generator.stream(1000, 5000).parallel().map(Maze::toString).collect(toList());
+      assertEquals(5000, sequential.size());
+      assertEquals(sequential, parallel);
+      assertEquals(generator.generate(1000).toString(), sequential.get(0));
+      assertEquals(generator.generate(5999).toString(), sequential.get(4999));
+      // mazes from different seeds should almost always differ
+      assertTrue(new HashSet<>(sequential).size() > 4990);
+   }
+
+   @Test
+   public void stream_count_cannot_be_negative() {
+      assertInvalid(() -> new MazeGenerator(4, 4).stream(0, -1), "count: -1");
+   }
+
+   @Test
+   public void too_many_pits_and_walls() {
+      try {
+         new MazeGenerator(4, 4).pits(10).walls(4).generate();
+         fail();
+      } catch (IllegalStateException e) {
+         assertEquals("Cannot fit 10 pits and 4 walls in 4x4 maze", e.getMessage());
+      }
+   }
+
+   @Test
+   public void invalid_arguments() {
+      assertInvalid(() -> new MazeGenerator(0, 4), "width: 0 height: 4");
+      assertInvalid(() -> new MazeGenerator(10000, 10000), "width: 10000 height: 10000");
+      assertInvalid(() -> new MazeGenerator(4, 4).pits(-1), "pits: -1");
+      assertInvalid(() -> new MazeGenerator(4, 4).walls(-1), "walls: -1");
+      assertInvalid(() -> new MazeGenerator(4, 4).pitDensity(1.5), "density: 1.5");
+      assertInvalid(() -> new MazeGenerator(4, 4).wallDensity(Double.NaN), "density: NaN");
+   }
+}
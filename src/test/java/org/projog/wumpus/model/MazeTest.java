@@ -4,8 +4,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
 
@@ -203,7 +205,67 @@ public class MazeTest {
       assertTrue(maze.isWall(new Coordinate(4, 2)));
       assertTrue(maze.isWall(new Coordinate(4, 3)));
 
-      assertEquals("Maze [home=1,0, gold=3,2, wumpus=0,2, pits=[3,1, 2,3], walls=[-1,0, 4,3, 4,2, 4,1, 4,0, 3,-1, 0,4, 2,-1, -1,3, 1,-1, 1,4, -1,2, 0,3, 0,-1, 2,4, -1,1, 3,4]]",
+      assertEquals("Maze [home=1,0, gold=3,2, wumpus=0,2, pits=[3,1, 2,3], walls=[0,-1, 1,-1, 2,-1, 3,-1, -1,0, 4,0, -1,1, 4,1, -1,2, 4,2, -1,3, 0,3, 4,3, 0,4, 1,4, 2,4, 3,4]]",
                   maze.toString());
    }
+
+   @Test
+   public void builder_uses_grid_when_area_is_small_enough() {
+      MazeBuilder builder = new MazeBuilder();
+      builder.home(-5, -7);
+      builder.pit(100, 200);
+      assertTrue(builder.build() instanceof GridMaze);
+
+      builder.wall(Integer.MAX_VALUE, Integer.MIN_VALUE);
+      assertTrue(builder.build() instanceof SparseMaze);
+   }
+
+   /** Confirm grid and sparse representations of the same maze, which includes negative coordinates, are equivalent. */
+   @Test
+   public void grid_and_sparse_are_equivalent() {
+      Coordinate home = new Coordinate(-2, -3);
+      Coordinate gold = new Coordinate(4, -1);
+      Coordinate wumpus = new Coordinate(0, 5);
+      List<Coordinate> pits = Arrays.asList(new Coordinate(-3, -3), new Coordinate(6, 6), new Coordinate(0, 0));
+      List<Coordinate> walls = Arrays.asList(new Coordinate(-3, 6), new Coordinate(6, -4), new Coordinate(1, 1), new Coordinate(2, 1));
+
+      Maze grid = new GridMaze(home, gold, wumpus, -3, -4, 10, 11, pits, walls);
+      Maze sparse = new SparseMaze(home, gold, wumpus, pits, walls);
+
+      for (int x = -6; x < 10; x++) {
+         for (int y = -6; y < 10; y++) {
+            Coordinate c = new Coordinate(x, y);
+            assertEquals(pits.contains(c), grid.isPit(x, y));
+            assertEquals(pits.contains(c), sparse.isPit(x, y));
+            assertEquals(walls.contains(c), grid.isWall(x, y));
+            assertEquals(walls.contains(c), sparse.isWall(x, y));
+            assertEquals(c.equals(gold), grid.isGold(x, y));
+            assertEquals(c.equals(wumpus), sparse.isWumpus(x, y));
+            assertEquals(grid.getPerceptMask(x, y), sparse.getPerceptMask(x, y));
+         }
+      }
+
+      // pit at edge of area causes breeze outside of area
+      assertEquals(Percept.BREEZE.mask(), grid.getPerceptMask(7, 6));
+      assertEquals(Percept.BREEZE.mask(), grid.getPerceptMask(-4, -3));
+      assertEquals(Percept.BREEZE.mask(), grid.getPerceptMask(0, 1));
+      assertEquals(Percept.STENCH.mask(), grid.getPerceptMask(0, 4));
+      assertEquals(Percept.STENCH.mask(), grid.getPerceptMask(0, 5));
+      assertEquals(0, grid.getPerceptMask(2, 2));
+
+      assertEquals(grid.getPits(), sparse.getPits());
+      assertEquals(grid.getWalls(), sparse.getWalls());
+      assertEquals(grid.toString(), sparse.toString());
+      assertEquals("Maze [home=-2,-3, gold=4,-1, wumpus=0,5, pits=[-3,-3, 0,0, 6,6], walls=[6,-4, 1,1, 2,1, -3,6]]", grid.toString());
+   }
+
+   @Test
+   public void grid_rejects_location_outside_of_area() {
+      try {
+         new GridMaze(new Coordinate(0, 0), null, null, 0, 0, 4, 4, Arrays.asList(new Coordinate(4, 0)), Arrays.asList());
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("4,0 is outside of area", e.getMessage());
+      }
+   }
 }
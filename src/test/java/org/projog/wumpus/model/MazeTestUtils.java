@@ -0,0 +1,40 @@
+package org.projog.wumpus.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/** Assertions and lookups shared by the tests of the different ways of creating a {@link Maze}. */
+final class MazeTestUtils {
+   /** Checks whether something is at a location of a maze - e.g. {@code Maze::isGold}. */
+   interface Locator {
+      boolean isLocated(Maze maze, int x, int y);
+   }
+
+   private MazeTestUtils() {
+   }
+
+   /** Asserts that running {@code r} throws an {@code IllegalArgumentException} with the given message. */
+   static void assertInvalid(Runnable r, String expectedMessage) {
+      try {
+         r.run();
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals(expectedMessage, e.getMessage());
+      }
+   }
+
+   /**
+    * Returns the first location, with x and y both in the range {@code min} to {@code max} inclusive, that the locator
+    * matches - or {@code null} if there is none.
+    */
+   static Coordinate find(Maze maze, int min, int max, Locator locator) {
+      for (int x = min; x <= max; x++) {
+         for (int y = min; y <= max; y++) {
+            if (locator.isLocated(maze, x, y)) {
+               return new Coordinate(x, y);
+            }
+         }
+      }
+      return null;
+   }
+}
@@ -1,5 +1,184 @@
 package org.projog.wumpus.model;
 
-public class WorldTest { // TODO
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.projog.wumpus.model.Percept.BREEZE;
+import static org.projog.wumpus.model.Percept.BUMP;
+import static org.projog.wumpus.model.Percept.GLITTER;
+import static org.projog.wumpus.model.Percept.SCREAM;
+import static org.projog.wumpus.model.Percept.STENCH;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+
+public class WorldTest {
+   @Test
+   public void move_and_turn() {
+      World world = new World(new MazeBuilder().home(2, 3).build());
+      assertEquals(new Coordinate(2, 3), world.getAgentLocation());
+      assertSame(Direction.NORTH, world.getAgentDirection());
+
+      assertSame(AgentState.ACTIVE, world.update(Action.FORWARD));
+      assertEquals(new Coordinate(2, 2), world.getAgentLocation());
+      assertTrue(world.isAgentLocated(new Coordinate(2, 2)));
+      assertFalse(world.isAgentLocated(new Coordinate(2, 3)));
+
+      world.update(Action.RIGHT);
+      assertSame(Direction.EAST, world.getAgentDirection());
+      world.update(Action.FORWARD);
+      assertEquals(new Coordinate(3, 2), world.getAgentLocation());
+
+      world.update(Action.LEFT);
+      world.update(Action.LEFT);
+      assertSame(Direction.WEST, world.getAgentDirection());
+
+      world.reset();
+      assertEquals(new Coordinate(2, 3), world.getAgentLocation());
+      assertSame(Direction.NORTH, world.getAgentDirection());
+   }
+
+   @Test
+   public void copy() {
+      World world = new World(new MazeBuilder().home(0, 0).gold(0, -1).build());
+      world.update(Action.FORWARD);
+      World copy = world.copy();
+
+      world.update(Action.TAKE);
+      world.update(Action.RIGHT);
+      world.update(Action.FORWARD);
+      assertEquals(new Coordinate(1, -1), world.getAgentLocation());
+      assertTrue(world.haveGold());
+
+      // the copy is unaffected by updates to the original
+      assertEquals(new Coordinate(0, -1), copy.getAgentLocation());
+      assertSame(Direction.NORTH, copy.getAgentDirection());
+      assertFalse(copy.haveGold());
+      assertEquals(EnumSet.of(GLITTER), copy.getPercepts());
+      assertChanged(copy, 0, 0, 0, -1);
+      assertSame(world.getMaze(), copy.getMaze());
+   }
+
+   @Test
+   public void changed_locations() {
+      MazeBuilder builder = new MazeBuilder();
+      builder.home(0, 0);
+      builder.wumpus(1, -1);
+      builder.gold(0, -1);
+      builder.wall(0, -2);
+      World world = new World(builder.build());
+      assertChanged(world);
+
+      // moving changes the location moved from and the location moved to
+      world.update(Action.FORWARD);
+      assertChanged(world, 0, 0, 0, -1);
+
+      // bumping into a wall does not change anything
+      world.update(Action.FORWARD);
+      assertChanged(world);
+
+      world.update(Action.TAKE);
+      assertChanged(world, 0, -1);
+
+      world.update(Action.RIGHT);
+      assertChanged(world, 0, -1);
+
+      // killing the wumpus changes the location of the wumpus, not the agent
+      world.update(Action.FIRE);
+      assertChanged(world, 1, -1);
+
+      // resetting changes the location of the agent, home, gold and the wumpus
+      world.reset();
+      assertChanged(world, 0, -1, 0, 0, 1, -1);
+   }
+
+   private static void assertChanged(World world, int... expected) {
+      assertEquals(expected.length / 2, world.getChangedCount());
+      for (int i = 0; i < world.getChangedCount(); i++) {
+         assertEquals(expected[i * 2], world.getChangedX(i));
+         assertEquals(expected[i * 2 + 1], world.getChangedY(i));
+      }
+   }
+
+   @Test
+   public void percepts() {
+      MazeBuilder builder = new MazeBuilder();
+      builder.home(0, 0);
+      builder.pit(1, -1);
+      builder.wumpus(-1, -1);
+      builder.gold(0, -1);
+      builder.wall(0, -2);
+      World world = new World(builder.build());
+
+      assertEquals(EnumSet.noneOf(Percept.class), world.getPercepts());
+
+      world.update(Action.FORWARD);
+      assertEquals(EnumSet.of(BREEZE, STENCH, GLITTER), world.getPercepts());
+
+      world.update(Action.FORWARD);
+      assertEquals(EnumSet.of(BREEZE, STENCH, GLITTER, BUMP), world.getPercepts());
+
+      world.update(Action.TAKE);
+      assertEquals(EnumSet.of(BREEZE, STENCH), world.getPercepts());
+
+      world.update(Action.LEFT);
+      world.update(Action.FIRE);
+      assertEquals(EnumSet.of(BREEZE, STENCH, SCREAM), world.getPercepts());
+      assertTrue(world.isWumpusKilled());
+
+      // scream only perceived immediately after firing
+      world.update(Action.RIGHT);
+      assertEquals(EnumSet.of(BREEZE, STENCH), world.getPercepts());
+   }
+
+   @Test
+   public void percept_mask() {
+      World world = new World(new MazeBuilder().home(0, 0).pit(1, 0).wumpus(-1, 0).gold(0, 0).wall(0, -1).build());
+      assertEquals(BREEZE.mask() | STENCH.mask() | GLITTER.mask(), world.getPerceptMask());
+      assertEquals(world.getPercepts(), Percept.toSet(world.getPerceptMask()));
+
+      world.update(Action.FORWARD);
+      assertEquals(BREEZE.mask() | STENCH.mask() | GLITTER.mask() | BUMP.mask(), world.getPerceptMask());
+      assertEquals(EnumSet.of(BREEZE, STENCH, GLITTER, BUMP), world.getPercepts());
+      assertEquals(world.getPerceptMask(), Percept.toMask(world.getPercepts()));
+   }
+
+   @Test
+   public void percepts_are_immutable_and_reused() {
+      World world = new World(new MazeBuilder().home(0, 0).pit(1, 0).build());
+      Set<Percept> percepts = world.getPercepts();
+      assertSame(percepts, world.getPercepts());
+
+      try {
+         percepts.add(BUMP);
+         fail();
+      } catch (UnsupportedOperationException e) {
+         // expected
+      }
+   }
+
+   @Test
+   public void no_percepts_once_finished() {
+      World world = new World(new MazeBuilder().home(0, 0).pit(0, -1).pit(1, -1).build());
+      assertEquals(EnumSet.of(BREEZE), world.getPercepts());
+      assertSame(AgentState.DEAD, world.update(Action.FORWARD));
+      assertTrue(world.getPercepts().isEmpty());
+   }
+
+   @Test
+   public void cannot_update_once_finished() {
+      World world = new World(new MazeBuilder().home(0, 0).build());
+      assertSame(AgentState.ESCAPED, world.update(Action.CLIMB));
+      try {
+         world.update(Action.FORWARD);
+         fail();
+      } catch (IllegalStateException e) {
+         assertEquals("agent state: ESCAPED", e.getMessage());
+      }
+   }
 }
@@ -0,0 +1,116 @@
+package org.projog.wumpus.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+public class ConsoleOutputStreamTest {
+   private final JTextArea textArea = new JTextArea();
+
+   @Test
+   public void only_complete_lines_displayed() throws Exception {
+      ConsoleOutputStream os = new ConsoleOutputStream(textArea, 10, 1000);
+      PrintStream ps = new PrintStream(os, true, "UTF-8");
+      ps.print("abc\r\ndef\nghi");
+      update(os);
+      assertEquals("abc\ndef\n", textArea.getText());
+
+      ps.println("jkl");
+      update(os);
+      assertEquals("abc\ndef\nghijkl\n", textArea.getText());
+   }
+
+   @Test
+   public void multi_byte_characters_split_across_writes() throws Exception {
+      ConsoleOutputStream os = new ConsoleOutputStream(textArea, 10, 1000);
+      byte[] bytes = "é€😀\n".getBytes(StandardCharsets.UTF_8);
+      for (byte b : bytes) {
+         os.write(b);
+      }
+      update(os);
+      assertEquals("é€😀\n", textArea.getText());
+   }
+
+   @Test
+   public void large_writes() throws Exception {
+      ConsoleOutputStream os = new ConsoleOutputStream(textArea, 10, 1000);
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 20000; i++) {
+         sb.append((char) ('a' + i % 26));
+      }
+      sb.append('\n');
+      os.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+      update(os);
+      assertEquals(sb.toString(), textArea.getText());
+   }
+
+   @Test
+   public void only_last_lines_kept() throws Exception {
+      ConsoleOutputStream os = new ConsoleOutputStream(textArea, 3, 1000);
+      PrintStream ps = new PrintStream(os, true, "UTF-8");
+      // more lines than can be kept written between updates
+      for (int i = 0; i < 5; i++) {
+         ps.println(i);
+      }
+      update(os);
+      assertEquals("2\n3\n4\n", textArea.getText());
+
+      // more lines than can be kept in the text area
+      ps.println(5);
+      ps.println(6);
+      update(os);
+      assertEquals("4\n5\n6\n", textArea.getText());
+   }
+
+   @Test
+   public void clear() throws Exception {
+      ConsoleOutputStream os = new ConsoleOutputStream(textArea, 10, 1000);
+      PrintStream ps = new PrintStream(os, true, "UTF-8");
+      ps.println("abc");
+      update(os);
+      ps.print("def\ngh");
+      os.clear();
+      ps.println("ijk");
+      update(os);
+      assertEquals("ijk\n", textArea.getText());
+   }
+
+   @Test
+   public void updated_by_event_dispatch_thread() throws Exception {
+      ConsoleOutputStream os = new ConsoleOutputStream(textArea, 10, 1);
+      os.write("abc\n".getBytes(StandardCharsets.UTF_8));
+      for (int i = 0; i < 100 && textArea.getText().isEmpty(); i++) {
+         Thread.sleep(10);
+      }
+      assertEquals("abc\n", textArea.getText());
+
+      try {
+         os.updateTextArea();
+         fail();
+      } catch (IllegalStateException e) {
+         assertEquals("not event dispatch thread", e.getMessage());
+      }
+   }
+
+   @Test
+   public void invalid_max_lines() {
+      try {
+         new ConsoleOutputStream(textArea, 0, 1000);
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("maxLines: 0", e.getMessage());
+      }
+   }
+
+   private static void update(ConsoleOutputStream os) throws InterruptedException, InvocationTargetException {
+      SwingUtilities.invokeAndWait(os::updateTextArea);
+   }
+}
@@ -0,0 +1,210 @@
+package org.projog.wumpus.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+import org.projog.wumpus.GameController;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.AgentState;
+import org.projog.wumpus.model.Coordinate;
+import org.projog.wumpus.model.Maze;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+import org.projog.wumpus.model.Percept;
+import org.projog.wumpus.model.World;
+
+public class PlaybackEngineTest {
+   /** Fewer than {@link Snapshot#MAX_CHANGED} locations are visited, so changes are never discarded. */
+   private static final int STEPS = 200;
+
+   private final List<Snapshot> snapshots = new CopyOnWriteArrayList<>();
+   private final Set<Thread> displayThreads = new HashSet<>();
+
+   @Test
+   public void step() throws Exception {
+      PlaybackEngine engine = new PlaybackEngine(new ForwardController(), new World(corridor()), () -> {}, this::display);
+      engine.refresh();
+      engine.step();
+      engine.step();
+      Snapshot last = awaitSnapshot(s -> s.getMove() == 2);
+      assertEquals(new Coordinate(0, -2), last.getWorld().getAgentLocation());
+      assertEquals(Action.FORWARD, last.getAction());
+      assertFalse(last.isPlaying());
+      assertEquals(1, displayThreads.size());
+      assertTrue(displayThreads.iterator().next().getName().startsWith("AWT-EventQueue"));
+   }
+
+   /** Plays as fast as possible, so most snapshots are skipped, and confirms every changed location is still repainted. */
+   @Test
+   public void play_skips_snapshots() throws Exception {
+      ForwardController controller = new ForwardController();
+      PlaybackEngine engine = new PlaybackEngine(controller, new World(corridor()), () -> {}, this::display);
+      engine.setDelay(0);
+      engine.refresh();
+      engine.play();
+      Snapshot last = awaitSnapshot(s -> s.isFinished() && !s.isPlaying());
+      assertEquals(AgentState.ESCAPED, last.getWorld().getAgentState());
+      assertEquals(STEPS * 2 + 3, last.getMove());
+      assertTrue(snapshots.size() < last.getMove());
+
+      // the first snapshot displayed may include skipped snapshots, so every location is repainted
+      Snapshot first = snapshots.get(0);
+      assertTrue(first.isAllChanged());
+      Set<Coordinate> changed = new HashSet<>();
+      for (Snapshot s : snapshots.subList(1, snapshots.size())) {
+         assertFalse(s.isAllChanged());
+         for (int i = 0; i < s.getChangedCount(); i++) {
+            changed.add(new Coordinate(s.getChangedX(i), s.getChangedY(i)));
+         }
+      }
+      // replay the game to confirm every location changed after the first snapshot was repainted
+      World world = new World(corridor());
+      GameController replay = new ForwardController();
+      for (int move = 1; move <= last.getMove(); move++) {
+         world.update(replay.process(world.getPercepts()));
+         for (int i = 0; move > first.getMove() && i < world.getChangedCount(); i++) {
+            assertTrue(changed.contains(new Coordinate(world.getChangedX(i), world.getChangedY(i))));
+         }
+      }
+   }
+
+   @Test
+   public void stop_and_reset() throws Exception {
+      PlaybackEngine engine = new PlaybackEngine(new ForwardController(), new World(corridor()), () -> {}, this::display);
+      engine.setDelay(5);
+      engine.play();
+      awaitSnapshot(s -> s.getMove() > 2);
+      engine.stop();
+      Snapshot stopped = awaitSnapshot(s -> !s.isPlaying());
+      assertFalse(stopped.isFinished());
+
+      engine.reset();
+      Snapshot reset = awaitSnapshot(s -> s.getMove() == 0);
+      assertTrue(reset.isAllChanged());
+      assertEquals(new Coordinate(0, 0), reset.getWorld().getAgentLocation());
+   }
+
+   /** Stopping does not wait for the delay between moves to end, so a reset requested straight after is not delayed. */
+   @Test
+   public void stop_during_delay() throws Exception {
+      PlaybackEngine engine = new PlaybackEngine(new ForwardController(), new World(corridor()), () -> {}, this::display);
+      engine.setDelay((int) TimeUnit.MINUTES.toMillis(1));
+      engine.play();
+      awaitSnapshot(s -> s.getMove() == 1);
+      long start = System.nanoTime();
+      engine.stop();
+      engine.reset();
+      Snapshot reset = awaitSnapshot(s -> s.getMove() == 0);
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+      assertFalse(reset.isPlaying());
+   }
+
+   /** A move that cannot be made stops playing, and the snapshot published afterwards reports why. */
+   @Test
+   public void stops_when_move_fails() throws Exception {
+      // climbing when not at home is not allowed
+      PlaybackEngine engine = new PlaybackEngine(new ForwardController() {
+         @Override
+         public Action process(Set<Percept> percepts) {
+            Action action = super.process(percepts);
+            return action == Action.LEFT ? Action.CLIMB : action;
+         }
+      }, new World(corridor()), () -> {}, this::display);
+      engine.setDelay(0);
+      engine.play();
+      Snapshot failed = awaitSnapshot(s -> s.getFailure() != null);
+      assertEquals("cannot climb as not home", failed.getFailure());
+      assertFalse(failed.isPlaying());
+      assertFalse(failed.isFinished());
+      assertEquals(STEPS, failed.getMove());
+      assertFalse(engine.isPlaying());
+
+      // the failure is only reported once
+      engine.refresh();
+      Snapshot refreshed = awaitSnapshot(s -> s != failed && s.getMove() == STEPS);
+      assertNull(refreshed.getFailure());
+
+      engine.step();
+      awaitSnapshot(s -> s != failed && s.getFailure() != null);
+   }
+
+   private void display(Snapshot snapshot) {
+      displayThreads.add(Thread.currentThread());
+      snapshots.add(snapshot);
+   }
+
+   private Snapshot awaitSnapshot(Predicate<Snapshot> condition) throws Exception {
+      for (int i = 0; i < 500; i++) {
+         CountDownLatch latch = new CountDownLatch(1);
+         SwingUtilities.invokeLater(latch::countDown);
+         latch.await(1, TimeUnit.SECONDS);
+         for (Snapshot s : snapshots) {
+            if (condition.test(s)) {
+               return s;
+            }
+         }
+         Thread.sleep(10);
+      }
+      throw new AssertionError("timed out");
+   }
+
+   /** A maze with a corridor running north from home. */
+   private static Maze corridor() {
+      MazeBuilder builder = new MazeBuilder().home(0, 0);
+      for (int y = 1; y >= -STEPS - 1; y--) {
+         builder.wall(-1, y).wall(1, y);
+      }
+      return builder.wall(0, 1).wall(0, -STEPS - 1).build();
+   }
+
+   /** Moves forward until it bumps into a wall, then returns home and climbs out. */
+   private static class ForwardController implements GameController {
+      private int forward;
+      private boolean returning;
+      private int turns;
+
+      @Override
+      public void setOut(PrintStream out) {
+      }
+
+      @Override
+      public void reset() {
+         forward = 0;
+         returning = false;
+         turns = 0;
+      }
+
+      @Override
+      public Action process(Set<Percept> percepts) {
+         if (!returning) {
+            if (forward < STEPS) {
+               forward++;
+               return Action.FORWARD;
+            }
+            returning = true;
+         }
+         if (turns < 2) {
+            turns++;
+            return Action.LEFT;
+         }
+         if (forward > 0) {
+            forward--;
+            return Action.FORWARD;
+         }
+         return Action.CLIMB;
+      }
+   }
+}
@@ -0,0 +1,176 @@
+package org.projog.wumpus.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.projog.wumpus.model.Action;
+import org.projog.wumpus.model.ChunkedMaze;
+import org.projog.wumpus.model.ChunkedMaze.ChunkedMazeBuilder;
+import org.projog.wumpus.model.Maze.MazeBuilder;
+import org.projog.wumpus.model.MazeGenerator;
+import org.projog.wumpus.model.World;
+
+public class WorldPanelTest {
+   @Test
+   public void paints_location_colours() {
+      MazeBuilder builder = new MazeBuilder();
+      builder.home(0, 0).pit(1, 0).gold(0, 1).wall(1, 1);
+      BufferedImage image = paint(new World(builder.build()), 200, 200);
+
+      // each location is 100x100 pixels - sample a pixel away from the border and image of each location
+      assertEquals(Color.GREEN.getRGB(), image.getRGB(5, 90));
+      assertEquals(Color.RED.getRGB(), image.getRGB(105, 90));
+      assertEquals(Color.YELLOW.getRGB(), image.getRGB(5, 190));
+      assertEquals(Color.BLACK.getRGB(), image.getRGB(105, 190));
+      // border
+      assertEquals(Color.BLACK.getRGB(), image.getRGB(0, 50));
+   }
+
+   @Test
+   public void sized_from_maze_bounds() {
+      // 200x200 plus boundary walls
+      World world = new World(new MazeGenerator(200, 200).pitDensity(0.1).generate(4));
+      BufferedImage image = paint(world, 404, 404);
+
+      // each location is 2x2 pixels, with boundary walls in the first and last row and column
+      assertEquals(Color.BLACK.getRGB(), image.getRGB(2, 0));
+      assertEquals(Color.BLACK.getRGB(), image.getRGB(0, 2));
+      assertEquals(Color.BLACK.getRGB(), image.getRGB(402, 200));
+      for (int x = 0; x < 200; x++) {
+         for (int y = 0; y < 200; y++) {
+            int rgb = image.getRGB((x + 1) * 2, (y + 1) * 2);
+            if (world.isPit(x, y)) {
+               assertEquals(Color.RED.getRGB(), rgb);
+            } else if (world.isHome(x, y)) {
+               assertEquals(Color.GREEN.getRGB(), rgb);
+            }
+         }
+      }
+   }
+
+   @Test
+   public void only_paints_visible_area_of_huge_maze() {
+      ChunkedMaze maze = new ChunkedMazeBuilder(1).chunkSize(16).radius(1_000_000).pitDensity(0.1).wallDensity(0.1).build();
+      World world = new World(maze);
+      WorldPanel panel = new WorldPanel();
+      panel.setSize(400, 400);
+      panel.update(snapshot(world));
+      paint(panel);
+
+      // too big to fit, so the viewport is centred on the agent and only the nearby chunks are generated
+      assertTrue(maze.getLoadedChunks() <= 9);
+      assertTrue(panel.getCachedTiles() <= 9);
+
+      // the static contents are not painted again, so no more of the maze is accessed
+      long generated = maze.getGeneratedChunks();
+      int tiles = panel.getCachedTiles();
+      paint(panel);
+      assertEquals(generated, maze.getGeneratedChunks());
+      assertEquals(tiles, panel.getCachedTiles());
+   }
+
+   @Test
+   public void follows_agent() {
+      World world = new World(new MazeGenerator(1000, 1000).wumpus(false).gold(false).generate(2));
+      WorldPanel panel = new WorldPanel();
+      panel.setSize(400, 400);
+      panel.update(snapshot(world));
+      assertTrue(panel.isFollowing());
+
+      // home is at the centre of the viewport
+      int centre = 200 - WorldPanel.DEFAULT_SIZE / 2 + 2;
+      assertEquals(Color.GREEN.getRGB(), paint(panel).getRGB(centre, centre));
+
+      // dragging the viewport stops it following the agent
+      panel.scroll(1000, 0);
+      assertFalse(panel.isFollowing());
+      assertNotEquals(Color.GREEN.getRGB(), paint(panel).getRGB(centre, centre));
+
+      panel.followAgent();
+      assertTrue(panel.isFollowing());
+      assertEquals(Color.GREEN.getRGB(), paint(panel).getRGB(centre, centre));
+
+      // zooming keeps the location under the mouse in the same place
+      panel.zoom(2, 200, 200);
+      assertEquals(Color.GREEN.getRGB(), paint(panel).getRGB(191, 191));
+      panel.zoom(-4, 200, 200);
+      assertEquals(Color.GREEN.getRGB(), paint(panel).getRGB(195, 195));
+
+   }
+
+   @Test
+   public void only_repaints_changed_locations() {
+      World world = new World(new MazeBuilder().home(1, 1).wall(0, 0).wall(3, 3).build());
+      List<Rectangle> repainted = new ArrayList<>();
+      WorldPanel panel = new WorldPanel() {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         public void repaint(long tm, int x, int y, int width, int height) {
+            repainted.add(new Rectangle(x, y, width, height));
+         }
+      };
+      panel.setSize(400, 400);
+      panel.update(snapshot(world));
+      assertEquals(Arrays.asList(new Rectangle(0, 0, 400, 400)), repainted);
+
+      // 4x4 locations of 100x100 pixels
+      repainted.clear();
+      world.update(Action.FORWARD);
+      panel.update(changes(world));
+      assertEquals(Arrays.asList(new Rectangle(100, 100, 100, 100), new Rectangle(100, 0, 100, 100)), repainted);
+
+      repainted.clear();
+      world.update(Action.RIGHT);
+      panel.update(changes(world));
+      assertEquals(Arrays.asList(new Rectangle(100, 0, 100, 100)), repainted);
+
+      // a snapshot in which every location may have changed - e.g. after a reset - is repainted in full
+      repainted.clear();
+      panel.update(snapshot(new World(world.getMaze())));
+      assertEquals(Arrays.asList(new Rectangle(0, 0, 400, 400)), repainted);
+   }
+
+   private static BufferedImage paint(World world, int width, int height) {
+      WorldPanel panel = new WorldPanel();
+      panel.setSize(width, height);
+      panel.update(snapshot(world));
+      return paint(panel);
+   }
+
+   /** Returns a snapshot of the world in which every location may have changed. */
+   private static Snapshot snapshot(World world) {
+      return new Snapshot(world, 0, null, false, null, 0, null);
+   }
+
+   /** Returns a snapshot of the world in which only the locations changed by its last update have changed. */
+   private static Snapshot changes(World world) {
+      int[] changed = new int[world.getChangedCount() * 2];
+      for (int i = 0; i < world.getChangedCount(); i++) {
+         changed[i * 2] = world.getChangedX(i);
+         changed[i * 2 + 1] = world.getChangedY(i);
+      }
+      return new Snapshot(world, 0, null, false, changed, world.getChangedCount(), null);
+   }
+
+   private static BufferedImage paint(WorldPanel panel) {
+      int width = panel.getWidth();
+      int height = panel.getHeight();
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      Graphics g = image.getGraphics();
+      panel.paint(g);
+      g.dispose();
+      return image;
+   }
+}